@@ -0,0 +1,357 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The Batch class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class runs many objective files against one map in a single run. The map and its travel
+ * costs are loaded once, the scenarios are routed in parallel by a pool of workers sharing one
+ * KnightRouter, and every scenario gets its own file in the format of output.txt. A summary with
+ * the result and the time of every scenario is written next to them.
+ * </p>
+ * <p>
+ * The scenarios are either every file of a directory, in order of name, or the files listed in
+ * a manifest, one per line. Manifest paths are relative to the manifest's directory, and blank
+ * lines and lines starting with # are skipped.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.io.*;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class Batch {
+    private static final String SUMMARY_FILE = "summary.txt";
+
+    /**
+     * Main method to run the batch.
+     * @param args Command-line arguments
+     * @throws Exception If the map or the scenario list cannot be read, or a worker fails
+     */
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String outputDirectory = "out/batch";
+        boolean aStarEnabled = false;
+        boolean bidirectionalEnabled = false;
+        boolean rectanglesEnabled = false;
+        boolean exactRefinement = false;
+        int treeCapacity = 0;
+        int chunkSize = 0;
+
+        // Process flags if present
+        int flagCount = 0;
+        while (flagCount < args.length && args[flagCount].startsWith("-")) {
+            switch (args[flagCount]) {
+                case "-astar":
+                    aStarEnabled = true;
+                    break;
+                case "-bidirectional":
+                    bidirectionalEnabled = true;
+                    break;
+                case "-rectangles":
+                    rectanglesEnabled = true;
+                    break;
+                case "-exact":
+                    exactRefinement = true;
+                    break;
+                case "-threads":
+                case "-trees":
+                case "-chunks":
+                case "-out":
+                    if (flagCount + 1 >= args.length) {
+                        System.out.println("Missing value for " + args[flagCount]);
+                        return;
+                    }
+                    if (args[flagCount].equals("-threads")) {
+                        threads = Integer.parseInt(args[++flagCount]);
+                    } else if (args[flagCount].equals("-trees")) {
+                        treeCapacity = Integer.parseInt(args[++flagCount]);
+                    } else if (args[flagCount].equals("-chunks")) {
+                        chunkSize = Integer.parseInt(args[++flagCount]);
+                    } else {
+                        outputDirectory = args[++flagCount];
+                    }
+                    break;
+                default:
+                    System.out.println("Unknown option: " + args[flagCount]);
+                    return;
+            }
+            flagCount++;
+        }
+        args = Arrays.copyOfRange(args, flagCount, args.length);
+
+        // Check arguments: the two map text files, or a compiled map, and the scenarios
+        boolean compiled = args.length == 2 && CompiledMap.isCompiledMap(args[0]);
+        if (args.length < 3 && !compiled) {
+            System.out.println("Usage: java Batch [-threads n] [-trees n] [-out directory] [-astar] [-bidirectional] [-rectangles] [-chunks n [-exact]] mapData.txt travelCosts.txt scenarios");
+            System.out.println("   or: java Batch [-threads n] [-trees n] [-out directory] [-astar] [-bidirectional] [-rectangles] [-chunks n [-exact]] map.bin scenarios");
+            System.out.println("where scenarios is a directory of objective files or a manifest listing them");
+            return;
+        }
+
+        // Load the map once for every scenario
+        long loadStart = System.nanoTime();
+        KnightRouter router = compiled ? KnightRouter.loadCompiled(args[0]) : KnightRouter.load(args[0], args[1]);
+        long loadNanos = System.nanoTime() - loadStart;
+        if (rectanglesEnabled) {
+            router.setStrategy(SearchStrategy.RECTANGLE_SYMMETRY);
+        } else if (bidirectionalEnabled) {
+            router.setStrategy(aStarEnabled ? SearchStrategy.BIDIRECTIONAL_ASTAR : SearchStrategy.BIDIRECTIONAL_DIJKSTRA);
+        } else if (aStarEnabled) {
+            router.setStrategy(SearchStrategy.ASTAR);
+        }
+        if (treeCapacity > 0) {
+            router.enableTreeCache(treeCapacity);
+        }
+        if (chunkSize > 0) {
+            router.enableChunks(chunkSize, exactRefinement);
+        }
+
+        List<Path> scenarios = listScenarios(Paths.get(args[args.length - 1]));
+        Path outputPath = Paths.get(outputDirectory);
+        Files.createDirectories(outputPath);
+        List<String> outputNames = getOutputNames(scenarios);
+
+        // Route every scenario on the workers
+        long start = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        List<Future<ScenarioResult>> futures = new ArrayList<>();
+        for (int i = 0; i < scenarios.size(); i++) {
+            Path scenario = scenarios.get(i);
+            Path output = outputPath.resolve(outputNames.get(i));
+            futures.add(workers.submit(() -> runScenario(router, scenario, output)));
+        }
+        List<ScenarioResult> results = new ArrayList<>();
+        try {
+            for (Future<ScenarioResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Scenario failed", e.getCause());
+        } finally {
+            workers.shutdown();
+        }
+        long wallNanos = System.nanoTime() - start;
+
+        try (PrintWriter summary = new PrintWriter(new FileWriter(outputPath.resolve(SUMMARY_FILE).toFile()))) {
+            writeSummary(summary, results, outputNames, loadNanos, wallNanos, threads);
+        }
+        PrintWriter console = new PrintWriter(System.out);
+        writeTotals(console, results, loadNanos, wallNanos, threads);
+        TreeCache treeCache = router.getTreeCache();
+        if (treeCache != null) {
+            console.printf("Shortest path trees: %d built, %d legs answered, %d evictions%n",
+                    treeCache.getBuilds(), treeCache.getHits(), treeCache.getEvictions());
+        }
+        console.flush();
+    }
+
+    /**
+     * Lists the objective files of a batch.
+     * @param scenarios A directory of objective files, or a manifest listing them
+     * @return The objective files in the order they are reported
+     * @throws IOException If the directory or manifest cannot be read
+     */
+    private static List<Path> listScenarios(Path scenarios) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(scenarios)) {
+            try (DirectoryStream<Path> directory = Files.newDirectoryStream(scenarios)) {
+                for (Path file : directory) {
+                    if (Files.isRegularFile(file)) {
+                        files.add(file);
+                    }
+                }
+            }
+            Collections.sort(files);
+            return files;
+        }
+
+        Path base = scenarios.toAbsolutePath().getParent();
+        for (String line : Files.readAllLines(scenarios)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                files.add(base.resolve(line));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Names the output file of every scenario after its objective file, numbering the names
+     * of scenarios whose files have the same name.
+     * @param scenarios The objective files
+     * @return The output file names in the same order
+     */
+    private static List<String> getOutputNames(List<Path> scenarios) {
+        List<String> names = new ArrayList<>();
+        Set<String> used = new HashSet<>();
+        used.add(SUMMARY_FILE);
+        for (int i = 0; i < scenarios.size(); i++) {
+            String name = scenarios.get(i).getFileName().toString();
+            if (name.endsWith(".txt")) {
+                name = name.substring(0, name.length() - 4);
+            }
+            String outputName = name + ".output.txt";
+            if (!used.add(outputName)) {
+                outputName = name + "-" + (i + 1) + ".output.txt";
+                used.add(outputName);
+            }
+            names.add(outputName);
+        }
+        return names;
+    }
+
+    /**
+     * Routes one scenario and writes its output file. A scenario that cannot be read or has
+     * objectives outside the map is reported as failed instead of stopping the batch.
+     * @param router The router of the map
+     * @param scenario The objective file
+     * @param output The output file to write
+     * @return The result of the scenario
+     */
+    private static ScenarioResult runScenario(KnightRouter router, Path scenario, Path output) {
+        long start = System.nanoTime();
+        try {
+            ArrayList<int[]> objectives = MapLoader.loadObjectives(scenario.toString());
+            GridGraph map = router.getMap();
+            for (int[] objective : objectives) {
+                if (!map.contains(objective[0], objective[1])) {
+                    throw new IOException(scenario + ": position " + objective[0] + "-" + objective[1] + " is outside the map");
+                }
+            }
+
+            // The first position is the starting position
+            int[] startingPosition = objectives.remove(0);
+            Tile source = router.getTile(startingPosition[0], startingPosition[1]);
+            ArrayList<Tile> targets = new ArrayList<>();
+            for (int[] objective : objectives) {
+                targets.add(router.getTile(objective[0], objective[1]));
+            }
+            Route route = router.route(source, targets);
+
+            try (PrintWriter writer = new PrintWriter(new FileWriter(output.toFile()))) {
+                route.writeOutput(writer);
+            }
+            int reached = 0;
+            for (RouteLeg leg : route.getLegs()) {
+                if (leg.isReached()) {
+                    reached++;
+                }
+            }
+            return new ScenarioResult(scenario, targets.size(), reached, route.getTotalSteps(),
+                    route.getTotalCost(), System.nanoTime() - start, null);
+        } catch (NoSuchFileException e) {
+            return new ScenarioResult(scenario, 0, 0, 0, 0, System.nanoTime() - start, "file not found");
+        } catch (IOException e) {
+            return new ScenarioResult(scenario, 0, 0, 0, 0, System.nanoTime() - start, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes one line per scenario followed by the totals of the batch.
+     * @param output The writer to write to
+     * @param results The results of the scenarios in order
+     * @param outputNames The output file names of the scenarios
+     * @param loadNanos Time spent loading the map
+     * @param wallNanos Time from the first scenario started to the last one finished
+     * @param threads Number of workers
+     */
+    private static void writeSummary(PrintWriter output, List<ScenarioResult> results, List<String> outputNames,
+                                     long loadNanos, long wallNanos, int threads) {
+        for (int i = 0; i < results.size(); i++) {
+            ScenarioResult result = results.get(i);
+            if (result.error != null) {
+                output.printf("%s: failed in %.2f ms: %s%n", result.scenario, result.nanos / 1e6, result.error);
+            } else {
+                output.printf("%s -> %s: %d of %d objectives reached, Total Step: %d, Total Cost: %.2f, %.2f ms%n",
+                        result.scenario, outputNames.get(i), result.reached, result.objectives,
+                        result.steps, result.cost, result.nanos / 1e6);
+            }
+        }
+        writeTotals(output, results, loadNanos, wallNanos, threads);
+    }
+
+    /**
+     * Writes the totals and timing percentiles of a batch.
+     * @param output The writer to write to
+     * @param results The results of the scenarios
+     * @param loadNanos Time spent loading the map
+     * @param wallNanos Time from the first scenario started to the last one finished
+     * @param threads Number of workers
+     */
+    private static void writeTotals(PrintWriter output, List<ScenarioResult> results,
+                                    long loadNanos, long wallNanos, int threads) {
+        int failed = 0;
+        long[] times = new long[results.size()];
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).error != null) {
+                failed++;
+            }
+            times[i] = results.get(i).nanos;
+        }
+        Arrays.sort(times);
+        double seconds = wallNanos / 1e9;
+        output.printf("Scenarios: %d, failed: %d, workers: %d%n", results.size(), failed, threads);
+        output.printf("Map loaded in %.2f ms, scenarios routed in %.2f s, %.1f scenarios/s%n",
+                loadNanos / 1e6, seconds, seconds > 0 ? results.size() / seconds : 0);
+        if (times.length > 0) {
+            output.printf("Scenario ms: p50 %.2f, p99 %.2f, max %.2f%n",
+                    percentile(times, 50), percentile(times, 99), times[times.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Gets a percentile of sorted times by the nearest-rank method.
+     * @param sorted Times in nanoseconds, sorted in increasing order
+     * @param percent The percentile, between 0 and 100
+     * @return The time in milliseconds
+     */
+    private static double percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    /**
+     * The result of routing one scenario.
+     */
+    private static class ScenarioResult {
+        private final Path scenario;
+        private final int objectives;
+        private final int reached;
+        private final int steps;
+        private final double cost;
+        private final long nanos;    // Time to read, route and write the scenario
+        private final String error;  // Why the scenario failed, or null
+
+        /**
+         * Constructs a scenario result.
+         * @param scenario The objective file
+         * @param objectives Number of objectives after the starting position
+         * @param reached Number of objectives reached
+         * @param steps Total steps of the route
+         * @param cost Total cost of the route
+         * @param nanos Time spent on the scenario
+         * @param error Why the scenario failed, or null if it did not
+         */
+        private ScenarioResult(Path scenario, int objectives, int reached, int steps, double cost,
+                               long nanos, String error) {
+            this.scenario = scenario;
+            this.objectives = objectives;
+            this.reached = reached;
+            this.steps = steps;
+            this.cost = cost;
+            this.nanos = nanos;
+            this.error = error;
+        }
+    }
+}
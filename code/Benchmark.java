@@ -0,0 +1,1850 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The Benchmark class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class measures the performance of the pathfinding classes on randomly generated maps.
+ * Each benchmark is selected by name on the command line and prints its timings to the console.
+ * Large maps need a bigger heap, for example {@code java -Xmx4g Benchmark reset}.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+
+public class Benchmark {
+    private static GridGraph map;
+    private static EdgeCosts travelCosts;
+    private static int failures; // Failed checks, so that a run with any exits with a nonzero status
+
+    /**
+     * Main method to run a benchmark. It exits with status 1 if any of the benchmark's checks
+     * failed, and with status 2 for an unknown benchmark.
+     * @param args Command-line arguments
+     * @throws IOException If a benchmark cannot write or read its files
+     * @throws InterruptedException If a benchmark is interrupted while waiting for a solve
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: java Benchmark reset|astar|bidirectional|matrix|parallel|heldkarp [max objectives]|parallelheldkarp|heuristic|branchandbound|load [size]|pathcache|trees|hierarchy [size]|rectangles [size]|hpa [size]|components [size]|dynamic [size]|tourservice [size]");
+            return;
+        }
+
+        switch (args[0]) {
+            case "reset":
+                benchmarkReset();
+                break;
+            case "astar":
+                benchmarkAStar();
+                break;
+            case "bidirectional":
+                benchmarkBidirectional();
+                break;
+            case "matrix":
+                benchmarkMatrix();
+                break;
+            case "parallel":
+                benchmarkParallel();
+                break;
+            case "heldkarp":
+                benchmarkHeldKarp(args.length > 1 ? Integer.parseInt(args[1]) : 20);
+                break;
+            case "parallelheldkarp":
+                benchmarkParallelHeldKarp();
+                break;
+            case "heuristic":
+                benchmarkHeuristic();
+                break;
+            case "branchandbound":
+                benchmarkBranchAndBound();
+                break;
+            case "load":
+                benchmarkLoad(args.length > 1 ? Integer.parseInt(args[1]) : 2000);
+                break;
+            case "pathcache":
+                benchmarkPathCache();
+                break;
+            case "trees":
+                benchmarkTrees();
+                break;
+            case "rectangles":
+                benchmarkRectangles(args.length > 1 ? Integer.parseInt(args[1]) : 1000);
+                break;
+            case "hierarchy":
+                benchmarkHierarchy(args.length > 1 ? Integer.parseInt(args[1]) : 500);
+                break;
+            case "hpa":
+                benchmarkHpa(args.length > 1 ? Integer.parseInt(args[1]) : 1000);
+                break;
+            case "components":
+                benchmarkComponents(args.length > 1 ? Integer.parseInt(args[1]) : 2000);
+                break;
+            case "dynamic":
+                benchmarkDynamic(args.length > 1 ? Integer.parseInt(args[1]) : 1000);
+                break;
+            case "tourservice":
+                benchmarkTourService(args.length > 1 ? Integer.parseInt(args[1]) : 500);
+                break;
+            default:
+                System.out.println("Unknown benchmark: " + args[0]);
+                System.exit(2);
+        }
+        if (failures > 0) {
+            System.out.printf("%d checks failed%n", failures);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Measures near-neighbour queries on a 5000x5000 map with the generation-stamped search state,
+     * against the same queries paying the full-map reset every search used to start with.
+     */
+    private static void benchmarkReset() {
+        int size = 5000;
+        generateMap(size, size, 0.1, 42);
+        PathFinder pathFinder = new PathFinder(map, travelCosts);
+        SearchState fullReset = new SearchState(map.getCellCount());
+        Random random = new Random(7);
+
+        int[][] queries = nearNeighbourQueries(random, 20000, 3);
+
+        // Warm up both variants
+        runQueries(pathFinder, queries, 0, 2000, null);
+        runQueries(pathFinder, queries, 0, 20, fullReset);
+
+        long start = System.nanoTime();
+        runQueries(pathFinder, queries, 0, queries.length, null);
+        double stamped = (System.nanoTime() - start) / 1000.0 / queries.length;
+
+        int resetQueries = 200;
+        start = System.nanoTime();
+        runQueries(pathFinder, queries, 0, resetQueries, fullReset);
+        double reset = (System.nanoTime() - start) / 1000.0 / resetQueries;
+
+        System.out.printf("Map: %dx%d, near-neighbour queries (distance <= 3)%n", size, size);
+        System.out.printf("Before (full reset per query): %10.2f us/query%n", reset);
+        System.out.printf("After (generation stamps):     %10.2f us/query%n", stamped);
+        System.out.printf("Speedup: %.1fx%n", reset / stamped);
+    }
+
+    /**
+     * Compares Dijkstra's algorithm with A* on long random queries over a large map with sparse
+     * obstacles, checking that both return the same paths and reporting the expanded cells.
+     */
+    private static void benchmarkAStar() {
+        int size = 2000;
+        generateMap(size, size, 0.05, 42);
+        PathFinder dijkstra = new PathFinder(map, travelCosts);
+        PathFinder aStar = new PathFinder(map, travelCosts);
+        aStar.setStrategy(SearchStrategy.ASTAR);
+        Random random = new Random(7);
+
+        int queryCount = 50;
+        long dijkstraTime = 0, aStarTime = 0;
+        long dijkstraExpanded = 0, aStarExpanded = 0;
+        int differentPaths = 0, differentCosts = 0;
+        for (int i = 0; i < queryCount; i++) {
+            Tile source = randomPassableTile(random);
+            Tile target = randomPassableTile(random);
+
+            long start = System.nanoTime();
+            ArrayList<Tile> expected = dijkstra.findShortestPath(source, target);
+            dijkstraTime += System.nanoTime() - start;
+            dijkstraExpanded += dijkstra.getExpandedNodes();
+
+            start = System.nanoTime();
+            ArrayList<Tile> actual = aStar.findShortestPath(source, target);
+            aStarTime += System.nanoTime() - start;
+            aStarExpanded += aStar.getExpandedNodes();
+
+            if (dijkstra.getDistance(target) != aStar.getDistance(target)) {
+                differentCosts++;
+            } else if (expected != null && !expected.equals(actual)) {
+                differentPaths++;
+            }
+        }
+
+        System.out.printf("Map: %dx%d with 5%% obstacles, %d random queries%n", size, size, queryCount);
+        System.out.printf("Dijkstra: %8.2f ms/query, %10d nodes expanded/query%n",
+                dijkstraTime / 1e6 / queryCount, dijkstraExpanded / queryCount);
+        System.out.printf("A*:       %8.2f ms/query, %10d nodes expanded/query%n",
+                aStarTime / 1e6 / queryCount, aStarExpanded / queryCount);
+        failures += differentCosts;
+        System.out.printf("Queries with different costs: %d, with different paths: %d%n", differentCosts, differentPaths);
+    }
+
+    /**
+     * Checks the bidirectional strategies against Dijkstra's algorithm on many small random maps,
+     * then compares their speed on long queries over a large map.
+     */
+    private static void benchmarkBidirectional() {
+        SearchStrategy[] strategies = {
+            SearchStrategy.ASTAR, SearchStrategy.BIDIRECTIONAL_DIJKSTRA, SearchStrategy.BIDIRECTIONAL_ASTAR,
+            SearchStrategy.RECTANGLE_SYMMETRY
+        };
+
+        // Correctness on random maps, including obstacles as endpoints and walled-off regions
+        for (SearchStrategy strategy : strategies) {
+            checkAgainstDijkstra(strategy.toString(), 11, 200, new PathQuery() {
+                @Override
+                void setUp(Random random) {
+                    pathFinder = new PathFinder(map, travelCosts);
+                    pathFinder.setStrategy(strategy);
+                }
+            });
+        }
+
+        // Speed on long queries
+        Random random = new Random(11);
+        int size = 2000;
+        int queryCount = 50;
+        generateMap(size, size, 0.05, 42);
+        Tile[][] queries = new Tile[queryCount][];
+        for (int i = 0; i < queryCount; i++) {
+            queries[i] = new Tile[] {randomPassableTile(random), randomPassableTile(random)};
+        }
+        System.out.printf("Map: %dx%d with 5%% obstacles, %d random queries%n", size, size, queryCount);
+        SearchStrategy[] timed = {
+            SearchStrategy.DIJKSTRA, SearchStrategy.ASTAR, SearchStrategy.BIDIRECTIONAL_DIJKSTRA, SearchStrategy.BIDIRECTIONAL_ASTAR
+        };
+        for (SearchStrategy strategy : timed) {
+            PathFinder pathFinder = new PathFinder(map, travelCosts);
+            pathFinder.setStrategy(strategy);
+            long start = System.nanoTime();
+            for (Tile[] query : queries) {
+                pathFinder.findShortestPath(query[0], query[1]);
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%-24s %8.2f ms/query, %10d nodes expanded/query%n", strategy,
+                    elapsed / 1e6 / queryCount, pathFinder.getTotalExpandedNodes() / queryCount);
+        }
+    }
+
+    /**
+     * Measures the bonus route with 16 objectives on a 2000x2000 map. The old pairwise distance
+     * matrix is estimated from a sample of the (n+1)^2 searches it used to run.
+     */
+    private static void benchmarkMatrix() {
+        int size = 2000;
+        int objectiveCount = 16;
+        generateMap(size, size, 0.1, 42);
+        Random random = new Random(7);
+        Tile source = randomPassableTile(random);
+        ArrayList<Tile> objectives = new ArrayList<>();
+        for (int i = 0; i < objectiveCount; i++) {
+            objectives.add(randomPassableTile(random));
+        }
+
+        PathFinder pathFinder = new PathFinder(map, travelCosts);
+        ShortestRoute shortestRoute = new ShortestRoute(map, pathFinder);
+        long start = System.nanoTime();
+        shortestRoute.findShortestRoute(source, objectives);
+        double routeTime = (System.nanoTime() - start) / 1e6;
+        long routeExpanded = pathFinder.getTotalExpandedNodes();
+
+        // Sample the pairwise searches the matrix used to be built from
+        int samples = 10;
+        pathFinder = new PathFinder(map, travelCosts);
+        start = System.nanoTime();
+        for (int i = 0; i < samples; i++) {
+            pathFinder.findShortestPath(objectives.get(i), objectives.get((i + 1) % objectiveCount));
+        }
+        int pairs = (objectiveCount + 1) * objectiveCount;
+        double pairTime = (System.nanoTime() - start) / 1e6 / samples;
+
+        System.out.printf("Map: %dx%d, %d objectives%n", size, size, objectiveCount);
+        System.out.printf("Pairwise matrix (estimated): %d searches, %10.0f ms%n", pairs, pairTime * pairs);
+        System.out.printf("One-to-many sweeps:          %d sweeps,   %10.0f ms for the whole route, %d nodes expanded%n",
+                objectiveCount, routeTime, routeExpanded);
+    }
+
+    /**
+     * Measures the bonus route with 16 objectives on a 2000x2000 map for growing numbers of threads,
+     * checking that every thread count returns the same route.
+     */
+    private static void benchmarkParallel() {
+        int size = 2000;
+        int objectiveCount = 16;
+        generateMap(size, size, 0.1, 42);
+        Random random = new Random(7);
+        Tile source = randomPassableTile(random);
+        ArrayList<Tile> objectives = new ArrayList<>();
+        for (int i = 0; i < objectiveCount; i++) {
+            objectives.add(randomPassableTile(random));
+        }
+
+        System.out.printf("Map: %dx%d, %d objectives, %d cores%n", size, size, objectiveCount,
+                Runtime.getRuntime().availableProcessors());
+        PathFinder pathFinder = new PathFinder(map, travelCosts);
+        ArrayList<Tile> expected = null;
+        double baseline = 0;
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors() * 2; threads *= 2) {
+            ShortestRoute shortestRoute = new ShortestRoute(map, pathFinder);
+            shortestRoute.setParallelism(threads);
+            shortestRoute.findShortestRoute(source, objectives); // Warm up the workers' workspaces
+
+            long start = System.nanoTime();
+            ArrayList<Tile> route = shortestRoute.findShortestRoute(source, objectives);
+            double time = (System.nanoTime() - start) / 1e6;
+            if (expected == null) {
+                expected = route;
+                baseline = time;
+            }
+            System.out.printf("%3d threads: %10.0f ms, speedup %5.2fx, same route: %b%n",
+                    threads, time, baseline / time, check(route.equals(expected)));
+        }
+    }
+
+    /**
+     * Measures the route solver on random cost matrices for growing numbers of objectives, with
+     * costs stored as doubles and as floats. Up to 14 objectives the tour is checked against the
+     * table layout the solver used to have, which kept the source in every mask.
+     * @param maxObjectives Largest number of objectives to solve
+     */
+    private static void benchmarkHeldKarp(int maxObjectives) {
+        Random random = new Random(42);
+        for (int n = 10; n <= maxObjectives; n++) {
+            // Symmetric integer costs, like sums of the map's travel costs
+            double[][] costs = new double[n + 1][n + 1];
+            for (int i = 0; i <= n; i++) {
+                for (int j = i + 1; j <= n; j++) {
+                    costs[i][j] = costs[j][i] = 10 + random.nextInt(500);
+                }
+            }
+
+            // The old layout held a double and an int for every node, per mask that includes the source
+            long oldBytes = (1L << (n + 1)) * (n + 1) * 12;
+            StringBuilder line = new StringBuilder(String.format("%2d objectives: old layout %6d MB,", n, oldBytes >> 20));
+            int[] doubleTour = null;
+            for (boolean floatCosts : new boolean[] {false, true}) {
+                HeldKarpSolver solver = new HeldKarpSolver(costs);
+                solver.setFloatCosts(floatCosts);
+                long start = System.nanoTime();
+                int[] tour = solver.solve();
+                double time = (System.nanoTime() - start) / 1e6;
+                line.append(String.format(" %s %8.0f ms (%6d MB)", floatCosts ? "float" : "double", time,
+                        HeldKarpSolver.estimateBytes(n, floatCosts) >> 20));
+                if (!floatCosts) {
+                    doubleTour = tour;
+                } else {
+                    line.append(String.format(", same tour: %b", check(Arrays.equals(tour, doubleTour))));
+                }
+            }
+            if (n <= 14) {
+                line.append(String.format(", same as old layout: %b", check(Arrays.equals(doubleTour, oldHeldKarp(costs)))));
+            }
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Measures the route solver at 14, 18 and 22 objectives on one thread and on pools of
+     * 2, 4, ... threads, checking that every pool returns the same tour as the sequential solve.
+     * Each size is timed as the average of several runs after warm-up runs.
+     */
+    private static void benchmarkParallelHeldKarp() {
+        Random random = new Random(42);
+        int maxThreads = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+        System.out.printf("%d cores%n", Runtime.getRuntime().availableProcessors());
+        for (int n : new int[] {14, 18, 22}) {
+            double[][] costs = new double[n + 1][n + 1];
+            for (int i = 0; i <= n; i++) {
+                for (int j = i + 1; j <= n; j++) {
+                    costs[i][j] = costs[j][i] = 10 + random.nextInt(500);
+                }
+            }
+            int runs = n <= 14 ? 50 : n <= 18 ? 5 : 1;
+
+            int[] expected = null;
+            double baseline = 0;
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                ForkJoinPool pool = threads == 1 ? null : new ForkJoinPool(threads);
+                int[] tour = null;
+                for (int i = 0; i < runs; i++) { // Warm up
+                    tour = new HeldKarpSolver(costs).solve(pool);
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < runs; i++) {
+                    tour = new HeldKarpSolver(costs).solve(pool);
+                }
+                double time = (System.nanoTime() - start) / 1e6 / runs;
+                if (pool != null) {
+                    pool.shutdown();
+                }
+                if (expected == null) {
+                    expected = tour;
+                    baseline = time;
+                }
+                System.out.printf("%2d objectives, %2d threads: %10.1f ms, speedup %5.2fx, same tour: %b%n",
+                        n, threads, time, baseline / time, check(Arrays.equals(tour, expected)));
+            }
+        }
+    }
+
+    /**
+     * Measures the heuristic route solver on objectives scattered over a 2000x2000 map. Up to 18
+     * objectives its routes are compared with the exact solver, and for 40 to 500 objectives
+     * against the 1-tree lower bound.
+     */
+    private static void benchmarkHeuristic() {
+        Random random = new Random(42);
+        for (int n : new int[] {12, 14, 16, 18, 40, 100, 200, 500}) {
+            double[][] costs = scatteredCosts(random, n, 2000);
+
+            long start = System.nanoTime();
+            HeuristicTourSolver solver = new HeuristicTourSolver(costs);
+            solver.setTimeBudget(1000);
+            double heuristicCost = HeuristicTourSolver.tourCost(costs, solver.solve());
+            double heuristicTime = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            double bound = new OneTreeBound(costs).compute(200, heuristicCost);
+            double boundTime = (System.nanoTime() - start) / 1e6;
+
+            String optimum = "";
+            if (n <= 18) {
+                double exactCost = HeuristicTourSolver.tourCost(costs, new HeldKarpSolver(costs).solve());
+                optimum = String.format(", %.2f%% above optimum", 100 * (heuristicCost - exactCost) / exactCost);
+            }
+            System.out.printf("%3d objectives: heuristic %8.0f in %6.0f ms, bound %8.0f in %5.0f ms, gap %5.2f%%%s%n",
+                    n, heuristicCost, heuristicTime, bound, boundTime,
+                    100 * (heuristicCost - bound) / heuristicCost, optimum);
+        }
+    }
+
+    /**
+     * Measures branch and bound on objectives scattered over a 2000x2000 map, with a 30 second
+     * time limit. Up to 18 objectives its route costs are checked against the exact solver.
+     */
+    private static void benchmarkBranchAndBound() {
+        Random random = new Random(42);
+        for (int n : new int[] {12, 16, 18, 25, 30, 40, 50, 60}) {
+            double[][] costs = scatteredCosts(random, n, 2000);
+            BranchAndBoundSolver solver = new BranchAndBoundSolver(costs);
+            solver.setTimeLimit(30000);
+            long start = System.nanoTime();
+            double cost = HeuristicTourSolver.tourCost(costs, solver.solve());
+            double time = (System.nanoTime() - start) / 1e6;
+
+            String exact = "";
+            if (n <= 18) {
+                double exactCost = HeuristicTourSolver.tourCost(costs, new HeldKarpSolver(costs).solve());
+                exact = String.format(", same cost as exact: %b", check(Math.abs(cost - exactCost) < 1e-6));
+            }
+            System.out.printf("%2d objectives: %8.0f in %7.0f ms, %10d partial tours, %s, gap %5.2f%%%s%n",
+                    n, cost, time, solver.getExploredNodes(), solver.isOptimal() ? "optimal" : "timed out",
+                    100 * (cost - solver.getLowerBound()) / cost, exact);
+        }
+    }
+
+    /**
+     * Checks paths answered by the path cache against Dijkstra on many small random maps,
+     * with a cache small enough to evict, then measures a route on a 2000x2000 map followed by
+     * replaying its legs, with and without the cache.
+     */
+    private static void benchmarkPathCache() {
+        // Correctness, with few tiles per map so that pairs repeat in both directions
+        checkAgainstDijkstra("pathcache", 5, 200, new PathQuery() {
+            private final Tile[] tiles = new Tile[8];
+            private ArrayList<Tile> targets;
+            private double[] sweptDistances;
+
+            @Override
+            void setUp(Random random) {
+                pathFinder = new PathFinder(map, travelCosts);
+                pathFinder.setPathCache(new PathCache(map, 16));
+                for (int i = 0; i < tiles.length; i++) {
+                    tiles[i] = randomListedTile(random);
+                }
+                // Sweeps fill the cache like the bonus route does
+                targets = new ArrayList<>(Arrays.asList(tiles).subList(1, tiles.length));
+                sweptDistances = pathFinder.findDistances(tiles[0], targets);
+            }
+
+            @Override
+            Tile[] pickEnds(Random random) {
+                return new Tile[] {tiles[random.nextInt(tiles.length)], tiles[random.nextInt(tiles.length)]};
+            }
+
+            @Override
+            int checkMap(PathFinder reference, Random random) {
+                return Arrays.equals(reference.findDistances(tiles[0], targets), sweptDistances) ? 0 : 1;
+            }
+        });
+
+        // Speed of a route followed by its replay
+        int size = 2000;
+        int objectiveCount = 16;
+        generateMap(size, size, 0.1, 42);
+        Random random = new Random(7);
+        Tile source = randomPassableTile(random);
+        ArrayList<Tile> objectives = new ArrayList<>();
+        for (int i = 0; i < objectiveCount; i++) {
+            objectives.add(randomPassableTile(random));
+        }
+        System.out.printf("Map: %dx%d, %d objectives%n", size, size, objectiveCount);
+        for (boolean useCache : new boolean[] {false, true}) {
+            PathFinder pathFinder = new PathFinder(map, travelCosts);
+            if (useCache) {
+                pathFinder.setPathCache(new PathCache(map, KnightRouter.PATH_CACHE_CAPACITY));
+            }
+            ShortestRoute shortestRoute = new ShortestRoute(map, pathFinder);
+            shortestRoute.setParallelism(1);
+            long start = System.nanoTime();
+            ArrayList<Tile> route = shortestRoute.findShortestRoute(source, objectives);
+            double routeTime = (System.nanoTime() - start) / 1e6;
+            long routeExpanded = pathFinder.getTotalExpandedNodes();
+
+            start = System.nanoTime();
+            for (int i = 1; i < route.size(); i++) {
+                pathFinder.findShortestPath(route.get(i - 1), route.get(i));
+            }
+            double replayTime = (System.nanoTime() - start) / 1e6;
+            System.out.printf("%-8s route %6.0f ms, replay %6.0f ms, %10d nodes expanded by the replay%n",
+                    useCache ? "cache" : "no cache", routeTime, replayTime,
+                    pathFinder.getTotalExpandedNodes() - routeExpanded);
+        }
+    }
+
+    /**
+     * Checks queries answered from shortest path trees against Dijkstra on many small random
+     * maps, then measures queries between a depot and random tiles of a 1000x1000 map
+     * with and without the tree cache.
+     */
+    private static void benchmarkTrees() {
+        // Correctness, with two depots so that trees are built, reused and evicted
+        checkAgainstDijkstra("trees", 9, 200, new PathQuery() {
+            private final Tile[] depots = new Tile[2];
+
+            @Override
+            void setUp(Random random) {
+                pathFinder = new PathFinder(map, travelCosts);
+                pathFinder.setTreeCache(new TreeCache(map, 1, 2));
+                for (int i = 0; i < depots.length; i++) {
+                    depots[i] = randomListedTile(random);
+                }
+            }
+
+            @Override
+            Tile[] pickEnds(Random random) {
+                Tile depot = depots[random.nextInt(depots.length)];
+                Tile other = randomListedTile(random);
+                return random.nextBoolean() ? new Tile[] {depot, other} : new Tile[] {other, depot};
+            }
+
+            @Override
+            int checkMap(PathFinder reference, Random random) {
+                // Sweeps from a depot with a tree add up the same distances
+                ArrayList<Tile> targets = new ArrayList<>();
+                for (int i = 0; i < 5; i++) {
+                    targets.add(randomListedTile(random));
+                }
+                int mismatches = 0;
+                for (Tile depot : depots) {
+                    if (!Arrays.equals(reference.findDistances(depot, targets), pathFinder.findDistances(depot, targets))) {
+                        mismatches++;
+                    }
+                }
+                return mismatches;
+            }
+        });
+
+        // Speed of queries from and to one depot
+        int size = 1000;
+        int queryCount = 200;
+        generateMap(size, size, 0.1, 42);
+        Random random = new Random(3);
+        Tile depot = randomPassableTile(random);
+        Tile[][] queries = new Tile[queryCount][];
+        for (int i = 0; i < queryCount; i++) {
+            Tile other = randomPassableTile(random);
+            queries[i] = i % 2 == 0 ? new Tile[] {depot, other} : new Tile[] {other, depot};
+        }
+        System.out.printf("Map: %dx%d, %d queries from and to one depot%n", size, size, queryCount);
+        for (boolean useTrees : new boolean[] {false, true}) {
+            PathFinder pathFinder = new PathFinder(map, travelCosts);
+            if (useTrees) {
+                pathFinder.setTreeCache(new TreeCache(map, 1, TreeCache.DEFAULT_THRESHOLD));
+            }
+            long start = System.nanoTime();
+            for (Tile[] query : queries) {
+                pathFinder.findShortestPath(query[0], query[1]);
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%-8s %8.3f ms/query, %10d nodes expanded/query%n", useTrees ? "trees" : "search",
+                    elapsed / 1e6 / queryCount, pathFinder.getTotalExpandedNodes() / queryCount);
+        }
+    }
+
+    /**
+     * Checks searches with rectangle symmetry reduction against Dijkstra on many small open-field
+     * maps, half of them with missing tiles, then measures long queries on an open-field map of the given size and on a map with
+     * random costs, where few rectangles are found.
+     * @param size Width and height of the maps
+     */
+    private static void benchmarkRectangles(int size) {
+        checkAgainstDijkstra("rectangles on open fields", 17, 200, new PathQuery() {
+            @Override
+            void generateMap(Random random, int round) {
+                // Every other field leaves some tiles out, as a map file that does not list them
+                generateOpenField(5 + random.nextInt(60), 5 + random.nextInt(60), round % 2 == 0 ? 0 : 0.05, true, round);
+            }
+
+            @Override
+            void setUp(Random random) {
+                pathFinder = new PathFinder(map, travelCosts);
+                pathFinder.setStrategy(SearchStrategy.RECTANGLE_SYMMETRY);
+            }
+        });
+
+        Random random = new Random(17);
+        int queryCount = 50;
+        for (boolean openField : new boolean[] {true, false}) {
+            if (openField) {
+                generateOpenField(size, size, 42);
+            } else {
+                generateMap(size, size, 0.05, 42);
+            }
+            Tile[][] queries = new Tile[queryCount][];
+            for (int i = 0; i < queryCount; i++) {
+                queries[i] = new Tile[] {randomPassableTile(random), randomPassableTile(random)};
+            }
+            PathFinder rectangles = new PathFinder(map, travelCosts);
+            long start = System.nanoTime();
+            rectangles.setStrategy(SearchStrategy.RECTANGLE_SYMMETRY);
+            UniformRegions regions = rectangles.getUniformRegions();
+            System.out.printf("Map: %dx%d %s, %d rectangles covering %.0f%% of the cells, found in %.0f ms%n",
+                    size, size, openField ? "open field" : "with random costs", regions.getCount(),
+                    100.0 * regions.getCoveredCells() / map.getCellCount(), (System.nanoTime() - start) / 1e6);
+
+            for (SearchStrategy strategy : new SearchStrategy[] {SearchStrategy.DIJKSTRA, SearchStrategy.ASTAR, SearchStrategy.RECTANGLE_SYMMETRY}) {
+                PathFinder pathFinder = strategy == SearchStrategy.RECTANGLE_SYMMETRY ? rectangles : new PathFinder(map, travelCosts);
+                pathFinder.setStrategy(strategy);
+                start = System.nanoTime();
+                for (Tile[] query : queries) {
+                    pathFinder.findShortestPath(query[0], query[1]);
+                }
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("%-24s %8.2f ms/query, %10d nodes expanded/query%n", strategy,
+                        elapsed / 1e6 / queryCount, pathFinder.getTotalExpandedNodes() / queryCount);
+            }
+        }
+    }
+
+    /**
+     * Checks contraction hierarchy queries against Dijkstra on many small random maps, then
+     * measures preprocessing, the index file and query times on a map of the given size against
+     * Dijkstra and A*.
+     * @param size Width and height of the map
+     * @throws IOException If the index file cannot be written or read
+     */
+    private static void benchmarkHierarchy(int size) throws IOException {
+        int[] samePaths = new int[1];
+        checkAgainstDijkstra("hierarchy", 13, 200, new PathQuery() {
+            private ContractionHierarchy hierarchy;
+
+            @Override
+            void setUp(Random random) {
+                hierarchy = ContractionHierarchy.build(map, travelCosts);
+            }
+
+            @Override
+            ArrayList<Tile> findPath(Tile source, Tile target) {
+                return hierarchy.findShortestPath(source, target);
+            }
+
+            @Override
+            double getCost(Tile source, Tile target) {
+                return hierarchy.findCost(source, target);
+            }
+
+            @Override
+            boolean agrees(Tile source, Tile target, ArrayList<Tile> expected, double expectedCost,
+                           ArrayList<Tile> actual, double cost) {
+                if (expected == null || expected.equals(actual)) {
+                    samePaths[0]++;
+                }
+                return true;
+            }
+        });
+        System.out.printf("%-24s %d identical paths to Dijkstra's%n", "hierarchy", samePaths[0]);
+
+        // Preprocessing and the index file
+        generateMap(size, size, 0.1, 0, true, 42);
+        System.out.printf("Map: %dx%d%n", size, size);
+        long start = System.nanoTime();
+        HierarchyBuilder builder = new HierarchyBuilder(map, travelCosts);
+        ContractionHierarchy built = builder.build();
+        double buildTime = (System.nanoTime() - start) / 1e6;
+        File directory = Files.createTempDirectory("knight-hierarchy").toFile();
+        File indexFile = new File(directory, "map.ch");
+        start = System.nanoTime();
+        built.save(indexFile.getPath());
+        double saveTime = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        ContractionHierarchy hierarchy = ContractionHierarchy.load(indexFile.getPath(), map, travelCosts);
+        double loadTime = (System.nanoTime() - start) / 1e6;
+        System.out.printf("Preprocessing %.0f ms, %d shortcuts, %d edges, index file %.1f MB, saved in %.0f ms, loaded in %.0f ms%n",
+                buildTime, builder.getShortcuts(), hierarchy.getEdgeCount(), indexFile.length() / 1048576.0, saveTime, loadTime);
+        indexFile.delete();
+        directory.delete();
+
+        // Query times between random passable tiles
+        int queryCount = 200;
+        Random random = new Random(5);
+        Tile[][] queries = new Tile[queryCount][];
+        for (int i = 0; i < queryCount; i++) {
+            queries[i] = new Tile[] {randomPassableTile(random), randomPassableTile(random)};
+        }
+        PathFinder pathFinder = new PathFinder(map, travelCosts);
+        int loadedMismatches = 0;
+        for (SearchStrategy strategy : new SearchStrategy[] {SearchStrategy.DIJKSTRA, SearchStrategy.ASTAR}) {
+            pathFinder.setStrategy(strategy);
+            start = System.nanoTime();
+            for (Tile[] query : queries) {
+                pathFinder.findShortestPath(query[0], query[1]);
+                if (strategy == SearchStrategy.DIJKSTRA && hierarchy.findCost(query[0], query[1]) != pathFinder.getDistance(query[1])) {
+                    loadedMismatches++;
+                }
+            }
+            System.out.printf("%-10s %10.1f us/query%n", strategy == SearchStrategy.DIJKSTRA ? "dijkstra" : "astar",
+                    (System.nanoTime() - start) / 1e3 / queryCount);
+        }
+        for (int run = 0; run < 2; run++) { // The first run warms up the queries
+            start = System.nanoTime();
+            for (int repeat = 0; repeat < 10; repeat++) {
+                for (Tile[] query : queries) {
+                    hierarchy.findCost(query[0], query[1]);
+                }
+            }
+            double costTime = (System.nanoTime() - start) / 1e3 / (10 * queryCount);
+            start = System.nanoTime();
+            for (int repeat = 0; repeat < 10; repeat++) {
+                for (Tile[] query : queries) {
+                    hierarchy.findShortestPath(query[0], query[1]);
+                }
+            }
+            double pathTime = (System.nanoTime() - start) / 1e3 / (10 * queryCount);
+            if (run == 1) {
+                System.out.printf("%-10s %10.1f us/query for the cost, %.1f us/query for the tile path%n", "hierarchy", costTime, pathTime);
+            }
+        }
+        failures += loadedMismatches;
+        System.out.printf("Loaded index against Dijkstra: %d mismatches%n", loadedMismatches);
+    }
+
+    /**
+     * Checks hierarchical searches in both refinement modes against Dijkstra on many small random
+     * maps with random chunk sizes: every path must be valid, found exactly when one exists, and
+     * cost at least the optimum. Then measures preprocessing, memory and query times on a map of
+     * the given size against the flat PathFinder.
+     * @param size Width and height of the map
+     */
+    private static void benchmarkHpa(int size) {
+        double[] totalExcess = new double[2];
+        double[] maxExcess = new double[2];
+        int[] optimal = new int[2];
+        int[] reached = new int[1];
+        checkAgainstDijkstra("hpa, both modes", 23, 200, new PathQuery() {
+            private HierarchicalPathFinder hierarchical;
+
+            @Override
+            void setUp(Random random) {
+                pathFinder = new PathFinder(map, travelCosts);
+                hierarchical = new HierarchicalPathFinder(map, travelCosts, 3 + random.nextInt(10));
+            }
+
+            @Override
+            ArrayList<Tile> findPath(Tile source, Tile target) {
+                hierarchical.setExactRefinement(false);
+                return hierarchical.findShortestPath(source, target);
+            }
+
+            @Override
+            double getCost(Tile source, Tile target) {
+                int[] cells = hierarchical.findPath(map.index(source), map.index(target));
+                return cells == null ? Double.POSITIVE_INFINITY : pathFinder.getPathCost(cells);
+            }
+
+            @Override
+            boolean isOptimal() {
+                return false;
+            }
+
+            @Override
+            boolean agrees(Tile source, Tile target, ArrayList<Tile> expected, double expectedCost,
+                           ArrayList<Tile> actual, double cost) {
+                // The exact refinement keeps to the corridor of the near-optimal path, so it is never worse
+                hierarchical.setExactRefinement(true);
+                ArrayList<Tile> exact = hierarchical.findShortestPath(source, target);
+                double exactCost = getCost(source, target);
+                if ((expected == null) != (exact == null) || exact != null && (!samePathCost(exact, exactCost, exact, source, target)
+                        || exactCost < expectedCost - 1e-9 || exactCost > cost + 1e-9)) {
+                    return false;
+                }
+                if (expected != null) {
+                    double[] costs = {cost, exactCost};
+                    for (int mode = 0; mode < 2; mode++) {
+                        double excess = expectedCost == 0 ? 0 : costs[mode] / expectedCost - 1;
+                        totalExcess[mode] += excess;
+                        maxExcess[mode] = Math.max(maxExcess[mode], excess);
+                        if (excess < 1e-9) {
+                            optimal[mode]++;
+                        }
+                    }
+                    reached[0]++;
+                }
+                return true;
+            }
+        });
+        for (int mode = 0; mode < 2; mode++) {
+            System.out.printf("%-12s %5.1f%% optimal, %.2f%% above optimal on average, %.1f%% at most%n",
+                    mode == 1 ? "exact" : "near-optimal", 100.0 * optimal[mode] / reached[0],
+                    100 * totalExcess[mode] / reached[0], 100 * maxExcess[mode]);
+        }
+
+        // Preprocessing and memory
+        generateMap(size, size, 0.1, 42);
+        System.out.printf("Map: %dx%d%n", size, size);
+        long start = System.nanoTime();
+        HierarchicalPathFinder hierarchical = new HierarchicalPathFinder(map, travelCosts, HierarchicalPathFinder.DEFAULT_CHUNK_SIZE);
+        System.out.printf("Preprocessing %.0f ms, chunks of %d, %d entrance nodes, %d edges%n",
+                (System.nanoTime() - start) / 1e6, hierarchical.getChunkSize(), hierarchical.getNodeCount(),
+                hierarchical.getEdgeCount());
+
+        // Query times between random passable tiles
+        int queryCount = 50;
+        Random random = new Random(5);
+        Tile[][] queries = new Tile[queryCount][];
+        for (int i = 0; i < queryCount; i++) {
+            queries[i] = new Tile[] {randomPassableTile(random), randomPassableTile(random)};
+        }
+        PathFinder pathFinder = new PathFinder(map, travelCosts);
+        double[] optimalCosts = new double[queryCount];
+        for (SearchStrategy strategy : new SearchStrategy[] {SearchStrategy.DIJKSTRA, SearchStrategy.ASTAR}) {
+            pathFinder.setStrategy(strategy);
+            long expanded = pathFinder.getTotalExpandedNodes();
+            start = System.nanoTime();
+            for (int i = 0; i < queryCount; i++) {
+                pathFinder.findShortestPath(queries[i][0], queries[i][1]);
+                optimalCosts[i] = pathFinder.getDistance(queries[i][1]);
+            }
+            System.out.printf("%-12s %8.2f ms/query, %10d nodes expanded/query%n",
+                    strategy == SearchStrategy.DIJKSTRA ? "dijkstra" : "astar", (System.nanoTime() - start) / 1e6 / queryCount,
+                    (pathFinder.getTotalExpandedNodes() - expanded) / queryCount);
+        }
+        for (int mode = 0; mode < 2; mode++) {
+            hierarchical.setExactRefinement(mode == 1);
+            long expanded = 0;
+            double excess = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < queryCount; i++) {
+                int[] cells = hierarchical.findPath(map.index(queries[i][0]), map.index(queries[i][1]));
+                expanded += hierarchical.getExpandedNodes();
+                excess += pathFinder.getPathCost(cells) / optimalCosts[i] - 1;
+            }
+            System.out.printf("%-12s %8.2f ms/query, %10d nodes expanded/query, %.2f%% above optimal on average%n",
+                    mode == 1 ? "hpa exact" : "hpa near", (System.nanoTime() - start) / 1e6 / queryCount,
+                    expanded / queryCount, 100 * excess / queryCount);
+        }
+
+        // Memory of one searching thread, the flat workspace against the abstract graph and the largest window
+        long flatBytes = SearchState.estimateBytes(map.getCellCount());
+        long hierarchicalBytes = hierarchical.estimateBytes(1) + SearchState.estimateBytes(hierarchical.getWindowCapacity());
+        System.out.printf("Search memory: flat %.1f MB, hierarchical %.1f MB (window of %d cells), map itself %.1f MB%n",
+                flatBytes / 1048576.0, hierarchicalBytes / 1048576.0, hierarchical.getWindowCapacity(),
+                map.getCellCount() * 17 / 1048576.0);
+    }
+
+    /**
+     * Checks component labels against Dijkstra on many small random maps, including ends on
+     * obstacles, then times labelling a map of the given size with walled-off
+     * objectives, and the legs and tour sweeps to them with and without the labels.
+     * @param size Width and height of the map
+     */
+    private static void benchmarkComponents(int size) {
+        checkAgainstDijkstra("components", 29, 300, new PathQuery() {
+            private ConnectedComponents components;
+
+            @Override
+            void setUp(Random random) {
+                components = new ConnectedComponents(map);
+                pathFinder = new PathFinder(map, travelCosts);
+                pathFinder.setComponents(components);
+            }
+
+            @Override
+            boolean agrees(Tile source, Tile target, ArrayList<Tile> expected, double expectedCost,
+                           ArrayList<Tile> actual, double cost) {
+                return (expected != null) == components.isConnected(map.index(source), map.index(target));
+            }
+        });
+
+        // Wall off some tiles of a large map by making their four neighbours obstacles
+        generateMap(size, size, 0.1, 42);
+        Random random = new Random(3);
+        Tile[] walledOff = new Tile[4];
+        for (int i = 0; i < walledOff.length; i++) {
+            walledOff[i] = randomPassableTile(random);
+            for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                int neighbor = map.neighbor(map.index(walledOff[i]), direction);
+                if (neighbor >= 0) {
+                    map.setType(map.getColumn(neighbor), map.getRow(neighbor), GridGraph.OBSTACLE);
+                }
+            }
+        }
+        long start = System.nanoTime();
+        ConnectedComponents components = new ConnectedComponents(map);
+        System.out.printf("Map: %dx%d, %d components labelled in %.0f ms%n", size, size, components.getCount(),
+                (System.nanoTime() - start) / 1e6);
+
+        // The route of Main: legs to the walled-off tiles, then a tour of Bonus over them and reachable objectives
+        Tile source = randomPassableTile(random);
+        ArrayList<Tile> objectives = new ArrayList<>(Arrays.asList(walledOff));
+        while (objectives.size() < 10) {
+            Tile objective = randomPassableTile(random);
+            if (components.isConnected(map.index(source), map.index(objective))) {
+                objectives.add(objective);
+            }
+        }
+        Collections.shuffle(objectives, random);
+        for (boolean labelled : new boolean[] {false, true}) {
+            PathFinder pathFinder = new PathFinder(map, travelCosts);
+            if (labelled) {
+                pathFinder.setComponents(components);
+            }
+            pathFinder.findShortestPath(source, source); // Allocates the workspace of the thread
+            start = System.nanoTime();
+            for (Tile target : walledOff) {
+                if (pathFinder.findShortestPath(source, target) != null) {
+                    failures++;
+                    System.out.println("Walled-off tile was reached");
+                }
+            }
+            double legTime = (System.nanoTime() - start) / 1e6 / walledOff.length;
+            long legNodes = pathFinder.getTotalExpandedNodes() / walledOff.length;
+            ShortestRoute shortestRoute = new ShortestRoute(map, pathFinder);
+            shortestRoute.setParallelism(1);
+            long expanded = pathFinder.getTotalExpandedNodes();
+            start = System.nanoTime();
+            shortestRoute.findShortestRoute(source, objectives);
+            System.out.printf("%-16s unreachable leg %8.2f ms, %8d nodes expanded; tour of %d objectives %8.0f ms, %9d nodes expanded%n",
+                    labelled ? "with labels" : "without labels", legTime, legNodes, objectives.size(),
+                    (System.nanoTime() - start) / 1e6, pathFinder.getTotalExpandedNodes() - expanded);
+        }
+    }
+
+    /**
+     * Checks the dynamic planner against Dijkstra on many small random maps while tiles and
+     * travel costs change between queries, then times a knight walking across a map of the given
+     * size while obstacles keep appearing on its path, re-planning every step with the planner
+     * against searching from scratch.
+     * @param size Width and height of the map
+     */
+    private static void benchmarkDynamic(int size) {
+        checkAgainstDijkstra("dynamic on changing maps", 31, 200, new PathQuery() {
+            private DynamicPlanner planner;
+            private final Tile[] targets = new Tile[4];
+
+            @Override
+            void setUp(Random random) {
+                planner = new DynamicPlanner(map, travelCosts);
+                planner.setTreeCapacity(1 + random.nextInt(3));
+                for (int i = 0; i < targets.length; i++) {
+                    targets[i] = randomListedTile(random);
+                }
+            }
+
+            @Override
+            Tile[] pickEnds(Random random) {
+                // A few changes: tiles turning into obstacles or back, and new costs, rarely below all others
+                for (int change = random.nextInt(4); change > 0; change--) {
+                    Tile tile = randomListedTile(random);
+                    int x = tile.getColumn();
+                    int y = tile.getRow();
+                    if (random.nextBoolean()) {
+                        planner.setTileType(x, y, random.nextInt(3));
+                    } else if (x + 1 < map.getColumns() && map.getType(x + 1, y) != GridGraph.MISSING) {
+                        planner.setTravelCost(x, y, x + 1, y, random.nextInt(20) == 0 ? 0.5 : 1 + random.nextInt(14001) / 1000.0);
+                    }
+                }
+                Tile target = map.toTile(map.index(targets[random.nextInt(targets.length)]));
+                return new Tile[] {randomListedTile(random), target};
+            }
+
+            @Override
+            ArrayList<Tile> findPath(Tile source, Tile target) {
+                return planner.findShortestPath(source, target);
+            }
+
+            @Override
+            double getCost(Tile source, Tile target) {
+                return Double.NaN; // The planner reports paths only
+            }
+        });
+
+        // A knight walks from one corner towards the other while obstacles appear on its path ahead
+        int steps = 300;
+        for (int mode = 0; mode < 3; mode++) {
+            generateMap(size, size, 0.1, 42);
+            Random random = new Random(7);
+            Tile source = randomPassableTile(random);
+            while (map.getColumn(map.index(source)) > size / 10 || map.getRow(map.index(source)) > size / 10) {
+                source = randomPassableTile(random);
+            }
+            Tile target = randomPassableTile(random);
+            while (map.getColumn(map.index(target)) < size - size / 10 || map.getRow(map.index(target)) < size - size / 10) {
+                target = randomPassableTile(random);
+            }
+            DynamicPlanner planner = new DynamicPlanner(map, travelCosts);
+            PathFinder pathFinder = new PathFinder(map, travelCosts);
+            pathFinder.setStrategy(mode == 1 ? SearchStrategy.ASTAR : SearchStrategy.DIJKSTRA);
+
+            long expanded = 0;
+            double cost = 0;
+            int moves = 0;
+            long start = System.nanoTime();
+            ArrayList<Tile> path = mode == 2 ? planner.findShortestPath(source, target) : pathFinder.findShortestPath(source, target);
+            long firstPlan = System.nanoTime() - start;
+            expanded += mode == 2 ? planner.getExpandedNodes() : pathFinder.getExpandedNodes();
+            start = System.nanoTime();
+            for (int step = 0; step < steps && path != null && path.size() > 1; step++) {
+                // Every few steps block the path a few tiles ahead, and change a cost nearby every step
+                if (step % 5 == 0 && path.size() > 6) {
+                    Tile blocked = path.get(5);
+                    if (mode == 2) {
+                        planner.setTileType(blocked.getColumn(), blocked.getRow(), GridGraph.OBSTACLE);
+                    } else {
+                        map.setType(blocked.getColumn(), blocked.getRow(), GridGraph.OBSTACLE);
+                    }
+                }
+                Tile near = path.get(Math.min(path.size() - 1, 10));
+                if (near.getColumn() + 1 < size) {
+                    double newCost = 1 + random.nextInt(14);
+                    if (mode == 2) {
+                        planner.setTravelCost(near.getColumn(), near.getRow(), near.getColumn() + 1, near.getRow(), newCost);
+                    } else {
+                        travelCosts.setCost(near.getColumn(), near.getRow(), near.getColumn() + 1, near.getRow(), newCost);
+                    }
+                }
+
+                // Take one step and plan again from there
+                Tile next = path.get(1);
+                cost += travelCosts.getStepCost(path.get(0), next);
+                source = map.getTile(next.getColumn(), next.getRow());
+                moves++;
+                path = mode == 2 ? planner.findShortestPath(source, target) : pathFinder.findShortestPath(source, target);
+                expanded += mode == 2 ? planner.getExpandedNodes() : pathFinder.getExpandedNodes();
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%-9s first plan %7.1f ms, re-plan %7.2f ms/step, %9d nodes expanded/step, %d steps walked at cost %.2f%n",
+                    mode == 2 ? "d* lite" : mode == 1 ? "astar" : "dijkstra", firstPlan / 1e6, elapsed / 1e6 / moves,
+                    expanded / (moves + 1), moves, cost);
+        }
+    }
+
+    /**
+     * Checks the tour service against ShortestRoute on many small random maps while objectives
+     * are added and removed, then times adding and removing objectives one at a time on a map of
+     * the given size against solving the whole tour again after every edit.
+     * @param size Width and height of the map
+     * @throws InterruptedException If waiting for an exact solve is interrupted
+     */
+    private static void benchmarkTourService(int size) throws InterruptedException {
+        Random random = new Random(37);
+        int checked = 0;
+        int mismatches = 0;
+        int notOptimal = 0;
+        for (int round = 0; round < 100; round++) {
+            generateCheckMap(random, round);
+            PathFinder pathFinder = new PathFinder(map, travelCosts);
+            Tile source = randomListedTile(random);
+            TourService service = new TourService(map, pathFinder, source);
+            service.setBackgroundExact(true);
+            for (int edit = 0; edit < 20; edit++) {
+                List<Tile> objectives = service.getObjectives();
+                if (!objectives.isEmpty() && random.nextInt(3) == 0) {
+                    service.removeObjective(objectives.get(random.nextInt(objectives.size())));
+                } else if (objectives.size() < 10) {
+                    service.addObjective(randomListedTile(random));
+                }
+                boolean optimal = service.awaitExactSolve(10_000);
+                ShortestRoute shortestRoute = new ShortestRoute(map, new PathFinder(map, travelCosts));
+                shortestRoute.setParallelism(1);
+                ArrayList<Tile> expected = shortestRoute.findShortestRoute(source, new ArrayList<>(service.getObjectives()));
+                ArrayList<Tile> actual = service.getRoute();
+                boolean sameCost = service.getRouteCost() == shortestRoute.getRouteCost()
+                        || Math.abs(service.getRouteCost() - shortestRoute.getRouteCost()) < 1e-6;
+                boolean sameTiles = expected.size() == actual.size() && expected.containsAll(actual) && actual.containsAll(expected);
+                if (!sameCost || !sameTiles) {
+                    mismatches++;
+                }
+                if (!optimal && service.getRouteCost() != Double.POSITIVE_INFINITY) {
+                    notOptimal++;
+                }
+                checked++;
+            }
+            service.close();
+        }
+        failures += mismatches;
+        System.out.printf("Checked %d edits against ShortestRoute after the exact solve: %d mismatches, %d tours not confirmed optimal%n",
+                checked, mismatches, notOptimal);
+
+        // Add objectives one at a time, then remove some, against a full solve after every edit
+        generateMap(size, size, 0.1, 42);
+        random = new Random(9);
+        Tile source = randomPassableTile(random);
+        PathFinder pathFinder = new PathFinder(map, travelCosts);
+        pathFinder.setComponents(new ConnectedComponents(map));
+        TourService service = new TourService(map, pathFinder, source);
+        service.setBackgroundExact(true);
+        System.out.printf("Map: %dx%d%n", size, size);
+        int[] checkpoints = {8, 16, 24, 40};
+        int checkpoint = 0;
+        long editNanos = 0;
+        long maxEditNanos = 0;
+        int edits = 0;
+        while (checkpoint < checkpoints.length) {
+            Tile objective = randomPassableTile(random);
+            if (!pathFinder.getComponents().isConnected(map.index(source), map.index(objective))) {
+                continue;
+            }
+            long start = System.nanoTime();
+            service.addObjective(objective);
+            long elapsed = System.nanoTime() - start;
+            editNanos += elapsed;
+            maxEditNanos = Math.max(maxEditNanos, elapsed);
+            edits++;
+            int count = service.getObjectives().size();
+            if (count == checkpoints[checkpoint]) {
+                boolean optimal = service.awaitExactSolve(60_000);
+                ShortestRoute shortestRoute = new ShortestRoute(map, new PathFinder(map, travelCosts));
+                start = System.nanoTime();
+                shortestRoute.findShortestRoute(source, new ArrayList<>(service.getObjectives()));
+                double fullTime = (System.nanoTime() - start) / 1e6;
+                System.out.printf("%2d objectives: add %6.1f ms on average, %6.1f ms at most; full solve %7.0f ms; tour %.2f%s, full solve %.2f%s%n",
+                        count, editNanos / 1e6 / edits, maxEditNanos / 1e6, fullTime, service.getRouteCost(),
+                        optimal ? " (optimal)" : "", shortestRoute.getRouteCost(), shortestRoute.isRouteOptimal() ? " (optimal)" : "");
+                editNanos = 0;
+                maxEditNanos = 0;
+                edits = 0;
+                checkpoint++;
+            }
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            List<Tile> objectives = service.getObjectives();
+            service.removeObjective(objectives.get(random.nextInt(objectives.size())));
+        }
+        System.out.printf("Removed 10 objectives: %.1f ms each, %d sweeps for all edits%n",
+                (System.nanoTime() - start) / 1e6 / 10, service.getSweeps());
+        service.close();
+    }
+
+    /**
+     * Builds a cost matrix for objectives at random points of a map, where the cost between two
+     * points is their Manhattan distance times a random average step cost.
+     * @param random Random number generator
+     * @param n Number of objectives
+     * @param size Width and height of the map
+     * @return Matrix of costs between the source and the objectives
+     */
+    private static double[][] scatteredCosts(Random random, int n, int size) {
+        int[] x = new int[n + 1];
+        int[] y = new int[n + 1];
+        for (int i = 0; i <= n; i++) {
+            x[i] = random.nextInt(size);
+            y[i] = random.nextInt(size);
+        }
+        double[][] costs = new double[n + 1][n + 1];
+        for (int i = 0; i <= n; i++) {
+            for (int j = i + 1; j <= n; j++) {
+                double stepCost = 2 + random.nextDouble();
+                costs[i][j] = costs[j][i] = Math.round((Math.abs(x[i] - x[j]) + Math.abs(y[i] - y[j])) * stepCost);
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Solves a tour with the tables the route solver used to allocate, indexed by a mask that
+     * includes the source and holding a double and an int per entry.
+     * @param costs Matrix of path costs between nodes, where node 0 is the source
+     * @return Node indices of the tour starting with 0, or null if no tour exists
+     */
+    private static int[] oldHeldKarp(double[][] costs) {
+        int n = costs.length - 1;
+        double[][] dp = new double[1 << (n + 1)][n + 1];
+        int[][] parent = new int[1 << (n + 1)][n + 1];
+        for (double[] row : dp) {
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+        }
+        dp[1][0] = 0;
+        for (int mask = 1; mask < (1 << (n + 1)); mask++) {
+            for (int last = 0; last <= n; last++) {
+                if (dp[mask][last] == Double.POSITIVE_INFINITY) continue;
+                for (int next = 0; next <= n; next++) {
+                    if ((mask & (1 << next)) == 0 && costs[last][next] != Double.POSITIVE_INFINITY) {
+                        int newMask = mask | (1 << next);
+                        double newCost = dp[mask][last] + costs[last][next];
+                        if (newCost < dp[newMask][next]) {
+                            dp[newMask][next] = newCost;
+                            parent[newMask][next] = last;
+                        }
+                    }
+                }
+            }
+        }
+
+        double minCost = Double.POSITIVE_INFINITY;
+        int lastNode = -1;
+        int finalMask = (1 << (n + 1)) - 1;
+        for (int last = 1; last <= n; last++) {
+            if (costs[last][0] != Double.POSITIVE_INFINITY && dp[finalMask][last] + costs[last][0] < minCost) {
+                minCost = dp[finalMask][last] + costs[last][0];
+                lastNode = last;
+            }
+        }
+        if (lastNode == -1) {
+            return null;
+        }
+        int[] tour = new int[n + 1];
+        int mask = finalMask;
+        for (int position = n; position >= 1; position--) {
+            tour[position] = lastNode;
+            int previous = parent[mask][lastNode];
+            mask ^= 1 << lastNode;
+            lastNode = previous;
+        }
+        return tour;
+    }
+
+    /**
+     * Measures loading a generated map of the given size from text files, with the Scanner and
+     * String.split readers Main used to have against MapLoader, and from a compiled map file,
+     * checking that every way gives the same map.
+     * @param size Width and height of the map
+     * @throws IOException If the files cannot be written or read
+     */
+    private static void benchmarkLoad(int size) throws IOException {
+        generateMap(size, size, 0.1, 42);
+        File directory = Files.createTempDirectory("knight-load").toFile();
+        File mapFile = new File(directory, "mapData.txt");
+        File costFile = new File(directory, "travelCosts.txt");
+        writeMapFiles(mapFile, costFile);
+        System.out.printf("Map: %dx%d, files: %d MB%n", size, size, (mapFile.length() + costFile.length()) >> 20);
+
+        GridGraph expectedMap = map;
+        EdgeCosts expectedCosts = travelCosts;
+        for (int run = 1; run <= 2; run++) {
+            long start = System.nanoTime();
+            GridGraph scannerMap = scannerLoadMap(mapFile);
+            EdgeCosts scannerCosts = scannerLoadCosts(costFile, scannerMap);
+            double scannerTime = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            GridGraph loadedMap = MapLoader.loadMap(mapFile.getPath());
+            EdgeCosts loadedCosts = MapLoader.loadTravelCosts(costFile.getPath(), loadedMap);
+            double loaderTime = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("Run %d: Scanner %8.0f ms, MapLoader %8.0f ms, speedup %5.1fx, same map: %b/%b%n",
+                    run, scannerTime, loaderTime, scannerTime / loaderTime,
+                    check(sameMap(expectedMap, expectedCosts, scannerMap, scannerCosts)),
+                    check(sameMap(expectedMap, expectedCosts, loadedMap, loadedCosts)));
+        }
+
+        // Compile the map once, then load the binary file the way every later run would
+        File compiledFile = new File(directory, "map.bin");
+        long start = System.nanoTime();
+        new CompiledMap(MapLoader.loadMap(mapFile.getPath()), expectedCosts).save(compiledFile.getPath());
+        double compileTime = (System.nanoTime() - start) / 1e6;
+        for (int run = 1; run <= 2; run++) {
+            start = System.nanoTime();
+            CompiledMap compiledMap = CompiledMap.load(compiledFile.getPath());
+            double loadTime = (System.nanoTime() - start) / 1e6;
+            System.out.printf("Run %d: compiled map (%d MB, compiled in %.0f ms) loaded in %6.0f ms, same map: %b%n",
+                    run, compiledFile.length() >> 20, compileTime, loadTime,
+                    check(sameMap(expectedMap, expectedCosts, compiledMap.getMap(), compiledMap.getTravelCosts())));
+        }
+
+        mapFile.delete();
+        costFile.delete();
+        compiledFile.delete();
+        directory.delete();
+    }
+
+    /**
+     * Writes the generated map and its costs in the input file format. Costs get a random
+     * fraction so that decimals are parsed as well.
+     * @param mapFile The map data file to write
+     * @param costFile The travel costs file to write
+     * @throws IOException If a file cannot be written
+     */
+    private static void writeMapFiles(File mapFile, File costFile) throws IOException {
+        Random random = new Random(11);
+        try (PrintWriter output = new PrintWriter(new BufferedWriter(new FileWriter(mapFile)))) {
+            output.println(map.getColumns() + " " + map.getRows());
+            for (int x = 0; x < map.getColumns(); x++) {
+                for (int y = 0; y < map.getRows(); y++) {
+                    output.println(x + " " + y + " " + map.getType(x, y));
+                }
+            }
+        }
+        try (PrintWriter output = new PrintWriter(new BufferedWriter(new FileWriter(costFile)))) {
+            for (int cell = 0; cell < map.getCellCount(); cell++) {
+                for (int direction : new int[] {GridGraph.EAST, GridGraph.SOUTH}) {
+                    int neighbor = map.neighbor(cell, direction);
+                    if (neighbor < 0) {
+                        continue;
+                    }
+                    double cost = travelCosts.getCost(cell, direction) + random.nextInt(4) * 0.25;
+                    travelCosts.setCost(cell, direction, cost);
+                    output.println(map.getColumn(cell) + " " + map.getRow(cell) + " "
+                            + map.getColumn(neighbor) + " " + map.getRow(neighbor) + " " + cost);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a map data file the way Main used to, with a Scanner and String.split.
+     * @param file The map data file
+     * @return The grid graph of the map
+     * @throws IOException If the file cannot be read
+     */
+    private static GridGraph scannerLoadMap(File file) throws IOException {
+        Scanner scanner = new Scanner(file);
+        String[] dimensions = scanner.nextLine().split(" ");
+        GridGraph loaded = new GridGraph(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+        while (scanner.hasNextLine()) {
+            String line = scanner.nextLine();
+            if (line.trim().isEmpty()) continue;
+            String[] parts = line.split(" ");
+            loaded.setType(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        }
+        scanner.close();
+        return loaded;
+    }
+
+    /**
+     * Reads a travel costs file the way Main used to, with a Scanner and String.split.
+     * @param file The travel costs file
+     * @param loadedMap The grid graph the costs belong to
+     * @return The travel costs
+     * @throws IOException If the file cannot be read
+     */
+    private static EdgeCosts scannerLoadCosts(File file, GridGraph loadedMap) throws IOException {
+        Scanner scanner = new Scanner(file);
+        EdgeCosts loaded = new EdgeCosts(loadedMap);
+        while (scanner.hasNextLine()) {
+            String line = scanner.nextLine();
+            if (line.trim().isEmpty()) continue;
+            String[] parts = line.split(" ");
+            loaded.setCost(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                    Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), Double.parseDouble(parts[4]));
+        }
+        scanner.close();
+        return loaded;
+    }
+
+    /**
+     * Checks that two maps have the same terrain and exactly the same edge costs.
+     * @param expectedMap The reference map
+     * @param expectedCosts The reference costs
+     * @param actualMap The map to check
+     * @param actualCosts The costs to check
+     * @return True if every cell and edge matches
+     */
+    private static boolean sameMap(GridGraph expectedMap, EdgeCosts expectedCosts,
+                                   GridGraph actualMap, EdgeCosts actualCosts) {
+        if (expectedMap.getColumns() != actualMap.getColumns() || expectedMap.getRows() != actualMap.getRows()) {
+            return false;
+        }
+        for (int cell = 0; cell < expectedMap.getCellCount(); cell++) {
+            if (expectedMap.getType(cell) != actualMap.getType(cell)) {
+                return false;
+            }
+            for (int direction : new int[] {GridGraph.EAST, GridGraph.SOUTH}) {
+                if (expectedMap.neighbor(cell, direction) >= 0
+                        && Double.compare(expectedCosts.getCost(cell, direction), actualCosts.getCost(cell, direction)) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks a way of answering path queries against Dijkstra's algorithm on many small random
+     * maps, 50 queries per map. Every path must be valid, found exactly when Dijkstra finds one
+     * and, unless the query allows longer paths, cost the same. A cost the query reports must
+     * equal Dijkstra's to the last bit. Every mismatch counts as a failed check.
+     * @param name Name of the query in the report
+     * @param seed Seed of the random number generator
+     * @param rounds Number of maps
+     * @param query The query to check, set up again on every map
+     * @return Number of mismatches
+     */
+    private static int checkAgainstDijkstra(String name, long seed, int rounds, PathQuery query) {
+        Random random = new Random(seed);
+        int checked = 0;
+        int unreachable = 0;
+        int mismatches = 0;
+        for (int round = 0; round < rounds; round++) {
+            query.generateMap(random, round);
+            PathFinder reference = new PathFinder(map, travelCosts);
+            query.setUp(random);
+            for (int i = 0; i < 50; i++) {
+                Tile[] ends = query.pickEnds(random);
+                Tile source = ends[0];
+                Tile target = ends[1];
+                ArrayList<Tile> expected = reference.findShortestPath(source, target);
+                double expectedCost = reference.getDistance(target);
+                ArrayList<Tile> actual = query.findPath(source, target);
+                double cost = query.getCost(source, target);
+                boolean valid;
+                if (query.isOptimal()) {
+                    valid = samePathCost(expected, expectedCost, actual, source, target)
+                            && (Double.isNaN(cost) || cost == expectedCost);
+                } else {
+                    valid = (expected == null) == (actual == null)
+                            && (actual == null || samePathCost(actual, cost, actual, source, target) && cost >= expectedCost - 1e-9);
+                }
+                if (!valid || !query.agrees(source, target, expected, expectedCost, actual, cost)) {
+                    mismatches++;
+                }
+                if (expected == null) {
+                    unreachable++;
+                }
+                checked++;
+            }
+            mismatches += query.checkMap(reference, random);
+        }
+        failures += mismatches;
+        System.out.printf("%-24s checked %d random queries against Dijkstra, %d unreachable: %d mismatches%n",
+                name, checked, unreachable, mismatches);
+        return mismatches;
+    }
+
+    /**
+     * Records the outcome of a check, which makes the run exit with a nonzero status if it failed.
+     * @param passed True if the check passed
+     * @return The outcome, for the report
+     */
+    private static boolean check(boolean passed) {
+        if (!passed) {
+            failures++;
+        }
+        return passed;
+    }
+
+    /**
+     * Generates a small random map for a check against Dijkstra. Every other map leaves a tenth
+     * of its tiles out, as a map file that does not list them, and the travel costs have three
+     * decimals like the input files.
+     * @param random Random number generator of the check
+     * @param round Number of the map, also the seed of its tiles and costs
+     */
+    private static void generateCheckMap(Random random, int round) {
+        generateMap(5 + random.nextInt(50), 5 + random.nextInt(50), 0.1 + random.nextDouble() * 0.3,
+                round % 2 == 0 ? 0 : 0.1, true, round);
+    }
+
+    /**
+     * A way of answering path queries that checkAgainstDijkstra compares against Dijkstra's
+     * algorithm. By default it asks the path finder it sets up on each map, between two random
+     * tiles listed in the map.
+     */
+    private abstract static class PathQuery {
+        protected PathFinder pathFinder; // Answers the queries, unless findPath is overridden
+
+        /**
+         * Generates the next map of the check into map and travelCosts.
+         * @param random Random number generator of the check
+         * @param round Number of the map
+         */
+        void generateMap(Random random, int round) {
+            generateCheckMap(random, round);
+        }
+
+        /**
+         * Sets up the queries on a newly generated map.
+         * @param random Random number generator of the check
+         */
+        abstract void setUp(Random random);
+
+        /**
+         * Picks the ends of the next query.
+         * @param random Random number generator of the check
+         * @return The source and the target
+         */
+        Tile[] pickEnds(Random random) {
+            return new Tile[] {randomListedTile(random), randomListedTile(random)};
+        }
+
+        /**
+         * Finds the path between two tiles.
+         * @param source The starting tile
+         * @param target The destination tile
+         * @return The path, or null if there is none
+         */
+        ArrayList<Tile> findPath(Tile source, Tile target) {
+            return pathFinder.findShortestPath(source, target);
+        }
+
+        /**
+         * Gets the cost reported for the path just found.
+         * @param source The starting tile
+         * @param target The destination tile
+         * @return The cost, infinity if there is no path, or NaN if no cost is reported
+         */
+        double getCost(Tile source, Tile target) {
+            return pathFinder.getDistance(target);
+        }
+
+        /**
+         * Checks if the paths must be shortest paths. Otherwise they only must not be cheaper,
+         * and getCost must give their cost.
+         * @return True if the paths must be shortest
+         */
+        boolean isOptimal() {
+            return true;
+        }
+
+        /**
+         * Checks a query further against Dijkstra's answer.
+         * @param source The starting tile
+         * @param target The destination tile
+         * @param expected Dijkstra's path, or null if there is none
+         * @param expectedCost Cost of Dijkstra's path
+         * @param actual The path found, or null if there is none
+         * @param cost The cost reported for the path found
+         * @return True if the query passes
+         */
+        boolean agrees(Tile source, Tile target, ArrayList<Tile> expected, double expectedCost,
+                       ArrayList<Tile> actual, double cost) {
+            return true;
+        }
+
+        /**
+         * Checks the map further after its queries.
+         * @param reference Dijkstra's algorithm on the map
+         * @param random Random number generator of the check
+         * @return Number of mismatches
+         */
+        int checkMap(PathFinder reference, Random random) {
+            return 0;
+        }
+    }
+
+    /**
+     * Checks that a path is a valid path between two tiles with the expected cost.
+     * @param expected Reference path, or null if there is none
+     * @param expectedCost Cost of the reference path
+     * @param actual Path to check, or null if there is none
+     * @param source The starting tile
+     * @param target The destination tile
+     * @return True if both are null, or both exist and the path is valid with the same cost
+     */
+    private static boolean samePathCost(ArrayList<Tile> expected, double expectedCost, ArrayList<Tile> actual,
+                                        Tile source, Tile target) {
+        if (expected == null || actual == null) {
+            return expected == actual;
+        }
+        if (!actual.get(0).equals(source) || !actual.get(actual.size() - 1).equals(target)) {
+            return false;
+        }
+        double cost = 0;
+        for (int i = 1; i < actual.size(); i++) {
+            Tile from = actual.get(i - 1);
+            Tile to = actual.get(i);
+            if (Math.abs(from.getColumn() - to.getColumn()) + Math.abs(from.getRow() - to.getRow()) != 1
+                    || to.getType() == GridGraph.OBSTACLE || to.getType() == GridGraph.MISSING) {
+                return false;
+            }
+            cost += travelCosts.getStepCost(from, to);
+        }
+        return Math.abs(cost - expectedCost) < 1e-9;
+    }
+
+    /**
+     * Picks a random passable tile of the map.
+     * @param random Random number generator
+     * @return A passable tile
+     */
+    private static Tile randomPassableTile(Random random) {
+        while (true) {
+            int cell = random.nextInt(map.getCellCount());
+            if (map.isPassable(cell)) {
+                return map.toTile(cell);
+            }
+        }
+    }
+
+    /**
+     * Picks a random tile listed in the map, which may be an obstacle.
+     * @param random Random number generator
+     * @return A tile that is not missing
+     */
+    private static Tile randomListedTile(Random random) {
+        while (true) {
+            int cell = random.nextInt(map.getCellCount());
+            if (map.getType(cell) != GridGraph.MISSING) {
+                return map.toTile(cell);
+            }
+        }
+    }
+
+    /**
+     * Runs a range of queries through the path finder.
+     * @param pathFinder The path finder to query
+     * @param queries Query pairs as {sourceColumn, sourceRow, targetColumn, targetRow}
+     * @param from First query to run
+     * @param to One past the last query to run
+     * @param fullReset If not null, a state of the same size that is wiped before each query
+     */
+    private static void runQueries(PathFinder pathFinder, int[][] queries, int from, int to, SearchState fullReset) {
+        for (int i = from; i < to; i++) {
+            int[] query = queries[i];
+            if (fullReset != null) {
+                fullReset.clear();
+            }
+            pathFinder.findShortestPath(map.getTile(query[0], query[1]), map.getTile(query[2], query[3]));
+        }
+    }
+
+    /**
+     * Creates random queries between tiles that are close to each other. The target is always
+     * reachable along an L-shaped path of passable tiles, so no query floods the whole map.
+     * @param random Random number generator
+     * @param count Number of queries
+     * @param maxDistance Maximum Manhattan distance between source and target
+     * @return Query pairs as {sourceColumn, sourceRow, targetColumn, targetRow}
+     */
+    private static int[][] nearNeighbourQueries(Random random, int count, int maxDistance) {
+        int[][] queries = new int[count][];
+        int i = 0;
+        while (i < count) {
+            int x1 = random.nextInt(map.getColumns());
+            int y1 = random.nextInt(map.getRows());
+            int x2 = x1 + random.nextInt(2 * maxDistance + 1) - maxDistance;
+            int y2 = y1 + random.nextInt(2 * maxDistance + 1) - maxDistance;
+            if (Math.abs(x2 - x1) + Math.abs(y2 - y1) > maxDistance || !map.contains(x2, y2)) {
+                continue;
+            }
+            if (!hasOpenLPath(x1, y1, x2, y2)) {
+                continue;
+            }
+            queries[i++] = new int[] {x1, y1, x2, y2};
+        }
+        return queries;
+    }
+
+    /**
+     * Checks if the L-shaped path going horizontally first, then vertically, is free of obstacles.
+     * @param x1 Column of the first tile
+     * @param y1 Row of the first tile
+     * @param x2 Column of the second tile
+     * @param y2 Row of the second tile
+     * @return True if every tile on the path is passable
+     */
+    private static boolean hasOpenLPath(int x1, int y1, int x2, int y2) {
+        int stepX = Integer.signum(x2 - x1);
+        int stepY = Integer.signum(y2 - y1);
+        for (int x = x1; x != x2; x += stepX) {
+            if (!map.isPassable(map.index(x, y1))) return false;
+        }
+        for (int y = y1; y != y2; y += stepY) {
+            if (!map.isPassable(map.index(x2, y))) return false;
+        }
+        return map.isPassable(map.index(x2, y2));
+    }
+
+    /**
+     * Generates a random map with grass, sand and obstacles, and travel costs for every edge
+     * between passable tiles using the same ranges as the input files.
+     * @param columns Number of columns
+     * @param rows Number of rows
+     * @param obstacleRatio Fraction of tiles that are obstacles
+     * @param seed Seed of the random number generator
+     */
+    private static void generateMap(int columns, int rows, double obstacleRatio, long seed) {
+        generateMap(columns, rows, obstacleRatio, 0, false, seed);
+    }
+
+    /**
+     * Generates a random map like generateMap, where some tiles are left out of the map as if
+     * the map file did not list them, and the travel costs may have decimals like the input files.
+     * @param columns Number of columns
+     * @param rows Number of rows
+     * @param obstacleRatio Fraction of tiles that are obstacles
+     * @param missingRatio Fraction of tiles that are missing
+     * @param decimalCosts True for costs with three decimals, false for whole costs
+     * @param seed Seed of the random number generator
+     */
+    private static void generateMap(int columns, int rows, double obstacleRatio, double missingRatio,
+                                    boolean decimalCosts, long seed) {
+        Random random = new Random(seed);
+        map = new GridGraph(columns, rows);
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                double roll = random.nextDouble();
+                if (roll < missingRatio) {
+                    continue;
+                }
+                roll = (roll - missingRatio) / (1 - missingRatio);
+                if (roll < obstacleRatio) {
+                    map.setType(x, y, GridGraph.OBSTACLE);
+                } else if (roll < obstacleRatio + (1 - obstacleRatio) / 3) {
+                    map.setType(x, y, GridGraph.SAND);
+                } else {
+                    map.setType(x, y, GridGraph.GRASS);
+                }
+            }
+        }
+
+        travelCosts = new EdgeCosts(map);
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                if (map.getType(x, y) == GridGraph.MISSING) {
+                    continue; // A map file gives no costs for missing tiles
+                }
+                if (x + 1 < columns && map.getType(x + 1, y) != GridGraph.MISSING) {
+                    travelCosts.setCost(x, y, x + 1, y, randomCost(random, map.getType(x, y), map.getType(x + 1, y), decimalCosts));
+                }
+                if (y + 1 < rows && map.getType(x, y + 1) != GridGraph.MISSING) {
+                    travelCosts.setCost(x, y, x, y + 1, randomCost(random, map.getType(x, y), map.getType(x, y + 1), decimalCosts));
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates an open-field map: grass with large patches of sand and a few straight walls of
+     * obstacles, where every edge between two tile types has the same cost.
+     * @param columns Number of columns
+     * @param rows Number of rows
+     * @param seed Seed of the random number generator
+     */
+    private static void generateOpenField(int columns, int rows, long seed) {
+        generateOpenField(columns, rows, 0, false, seed);
+    }
+
+    /**
+     * Generates an open-field map like generateOpenField, where some tiles are left out of the
+     * map as if the map file did not list them, and the costs may have decimals.
+     * @param columns Number of columns
+     * @param rows Number of rows
+     * @param missingRatio Fraction of tiles that are missing
+     * @param decimalCosts True for costs with three decimals, false for whole costs
+     * @param seed Seed of the random number generator
+     */
+    private static void generateOpenField(int columns, int rows, double missingRatio, boolean decimalCosts, long seed) {
+        Random random = new Random(seed);
+        map = new GridGraph(columns, rows);
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                map.setType(x, y, GridGraph.GRASS);
+            }
+        }
+        int patches = Math.max(2, columns * rows / 20000);
+        for (int i = 0; i < patches; i++) {
+            int left = random.nextInt(columns);
+            int top = random.nextInt(rows);
+            int right = Math.min(columns, left + 3 + random.nextInt(Math.max(1, columns / 8)));
+            int bottom = Math.min(rows, top + 3 + random.nextInt(Math.max(1, rows / 8)));
+            for (int y = top; y < bottom; y++) {
+                for (int x = left; x < right; x++) {
+                    map.setType(x, y, GridGraph.SAND);
+                }
+            }
+        }
+        for (int i = 0; i < patches; i++) {
+            boolean horizontal = random.nextBoolean();
+            int x = random.nextInt(columns);
+            int y = random.nextInt(rows);
+            int length = 1 + random.nextInt(Math.max(1, (horizontal ? columns : rows) / 4));
+            for (int step = 0; step < length && map.contains(x, y); step++) {
+                map.setType(x, y, GridGraph.OBSTACLE);
+                x += horizontal ? 1 : 0;
+                y += horizontal ? 0 : 1;
+            }
+        }
+        if (missingRatio > 0) {
+            for (int cell = 0; cell < map.getCellCount(); cell++) {
+                if (random.nextDouble() < missingRatio) {
+                    map.setType(map.getColumn(cell), map.getRow(cell), GridGraph.MISSING);
+                }
+            }
+        }
+
+        travelCosts = new EdgeCosts(map);
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                if (map.getType(x, y) == GridGraph.MISSING) {
+                    continue; // A map file gives no costs for missing tiles
+                }
+                if (x + 1 < columns && map.getType(x + 1, y) != GridGraph.MISSING) {
+                    travelCosts.setCost(x, y, x + 1, y, fieldCost(map.getType(x, y), map.getType(x + 1, y), decimalCosts));
+                }
+                if (y + 1 < rows && map.getType(x, y + 1) != GridGraph.MISSING) {
+                    travelCosts.setCost(x, y, x, y + 1, fieldCost(map.getType(x, y), map.getType(x, y + 1), decimalCosts));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the single travel cost of an edge between two tile types on an open field.
+     * @param fromType Type of the first tile
+     * @param toType Type of the second tile
+     * @param decimal True for a cost with three decimals, false for a whole cost
+     * @return Travel cost of the edge
+     */
+    private static double fieldCost(int fromType, int toType, boolean decimal) {
+        if (fromType == GridGraph.GRASS && toType == GridGraph.GRASS) {
+            return decimal ? 2.371 : 2;
+        } else if (fromType == GridGraph.SAND && toType == GridGraph.SAND) {
+            return decimal ? 8.913 : 9;
+        }
+        return decimal ? 6.157 : 6;
+    }
+
+    /**
+     * Picks a random travel cost for an edge between two tile types.
+     * @param random Random number generator
+     * @param fromType Type of the first tile
+     * @param toType Type of the second tile
+     * @param decimal True for a cost with three decimals, false for a whole cost
+     * @return Travel cost of the edge
+     */
+    private static double randomCost(Random random, int fromType, int toType, boolean decimal) {
+        if (decimal) {
+            if (fromType == GridGraph.GRASS && toType == GridGraph.GRASS) {
+                return 1 + random.nextInt(4001) / 1000.0;
+            } else if (fromType == GridGraph.SAND && toType == GridGraph.SAND) {
+                return 8 + random.nextInt(2001) / 1000.0;
+            }
+            return 5 + random.nextInt(5001) / 1000.0;
+        }
+        if (fromType == GridGraph.GRASS && toType == GridGraph.GRASS) {
+            return 1 + random.nextInt(5);
+        } else if (fromType == GridGraph.SAND && toType == GridGraph.SAND) {
+            return 8 + random.nextInt(3);
+        }
+        return 5 + random.nextInt(6);
+    }
+}
@@ -17,15 +17,22 @@ import java.util.*;
 import java.awt.Color;
 
 public class Bonus {
-    private static Tile[][] map;
+    // Most objectives routed by branch and bound with -audit
+    private static final int AUDIT_LIMIT = 60;
+    private static KnightRouter router;
+    private static GridGraph map;
     private static int columns;
     private static int rows;
-    private static HashMap<String, Double> travelCosts;
     private static ArrayList<int[]> objectives;
     private static int[] startingPosition;
     private static boolean drawEnabled = false;
-    private static double totalCost = 0;
-    private static int totalSteps = 0;
+    private static boolean statsEnabled = false;
+    private static boolean aStarEnabled = false;
+    private static boolean bidirectionalEnabled = false;
+    private static boolean rectanglesEnabled = false;
+    private static long timeBudgetMillis = 1000; // Time the route heuristic may spend on many objectives
+    private static boolean auditEnabled = false;  // Prove routes optimal by branch and bound where feasible
+    private static int exactLimit = ShortestRoute.DEFAULT_EXACT_LIMIT; // Most objectives solved exactly
     private static final ArrayList<Tile> visitedTiles = new ArrayList<>();
     private static final List<Map.Entry<List<Tile>, Color>> pathSegments = new ArrayList<>();
     private static List<Tile> currentSegmentTiles = new ArrayList<>();
@@ -46,24 +53,73 @@ public class Bonus {
      * @throws IOException If an I/O error occurs
      */
     public static void main(String[] args) throws IOException {
-        // Process draw flag if present
-        if (args.length > 0 && args[0].equals("-draw")) {
-            drawEnabled = true;
-            String[] newArgs = new String[args.length - 1];
-            System.arraycopy(args, 1, newArgs, 0, args.length - 1);
-            args = newArgs;
+        // Process flags if present
+        int flagCount = 0;
+        while (flagCount < args.length && args[flagCount].startsWith("-")) {
+            switch (args[flagCount]) {
+                case "-draw":
+                    drawEnabled = true;
+                    break;
+                case "-astar":
+                    aStarEnabled = true;
+                    break;
+                case "-bidirectional":
+                    bidirectionalEnabled = true;
+                    break;
+                case "-rectangles":
+                    rectanglesEnabled = true;
+                    break;
+                case "-stats":
+                    statsEnabled = true;
+                    break;
+                case "-audit":
+                    auditEnabled = true;
+                    break;
+                case "-budget":
+                    if (flagCount + 1 >= args.length) {
+                        System.out.println("Missing value for -budget");
+                        return;
+                    }
+                    timeBudgetMillis = Long.parseLong(args[++flagCount]);
+                    break;
+                case "-exact-limit":
+                    if (flagCount + 1 >= args.length) {
+                        System.out.println("Missing value for -exact-limit");
+                        return;
+                    }
+                    exactLimit = Integer.parseInt(args[++flagCount]);
+                    if (exactLimit < 0 || exactLimit > HeldKarpSolver.MAX_OBJECTIVES) {
+                        System.out.println("Exact limit must be between 0 and " + HeldKarpSolver.MAX_OBJECTIVES);
+                        return;
+                    }
+                    break;
+                default:
+                    System.out.println("Unknown option: " + args[flagCount]);
+                    return;
+            }
+            flagCount++;
         }
+        args = Arrays.copyOfRange(args, flagCount, args.length);
 
-        // Check arguments
-        if (args.length < 3) {
-            System.out.println("Usage: java Bonus [-draw] mapData.txt travelCosts.txt objectives.txt");
+        // Check arguments: the three text files, or a compiled map and the objectives
+        boolean compiled = args.length == 2 && CompiledMap.isCompiledMap(args[0]);
+        if (args.length < 3 && !compiled) {
+            System.out.println("Usage: java Bonus [-draw] [-astar] [-bidirectional] [-rectangles] [-stats] [-audit] [-budget ms] [-exact-limit n] mapData.txt travelCosts.txt objectives.txt");
+            System.out.println("   or: java Bonus [-draw] [-astar] [-bidirectional] [-rectangles] [-stats] [-audit] [-budget ms] [-exact-limit n] map.bin objectives.txt");
             return;
         }
 
         // Read all input files
-        readMapData(args[0]);
-        readTravelCosts(args[1]);
-        readObjectives(args[2]);
+        if (compiled) {
+            router = KnightRouter.loadCompiled(args[0]);
+            readObjectives(args[1]);
+        } else {
+            router = KnightRouter.load(args[0], args[1]);
+            readObjectives(args[2]);
+        }
+        map = router.getMap();
+        columns = map.getColumns();
+        rows = map.getRows();
 
         // Create output directory if needed
         File outputDir = new File("out");
@@ -87,145 +143,78 @@ public class Bonus {
      * @throws IOException If an I/O error occurs
      */
     private static void processObjectives() throws IOException {
-        PrintWriter output = new PrintWriter(new FileWriter("out/bonus.txt"));
-
-        // Create PathFinder and ShortestRoute
-        PathFinder pathFinder = new PathFinder(map, columns, rows, travelCosts);
-        ShortestRoute shortestRoute = new ShortestRoute(map, columns, rows, travelCosts, pathFinder);
-
-        // Get the optimal order of objectives
-        ArrayList<Tile> optimalRoute = shortestRoute.findShortestRoute(
-                map[startingPosition[0]][startingPosition[1]],
-                getObjectiveTiles()
-        );
-
-        // Map objectives to their original indices in objectives.txt
-        HashMap<Tile, Integer> objectiveIndices = new HashMap<>();
-        for (int i = 0; i < objectives.size(); i++) {
-            int[] obj = objectives.get(i);
-            Tile tile = map[obj[0]][obj[1]];
-            objectiveIndices.put(tile, i + 1); // 1-based indexing for objectives
+        router.setStrategy(getStrategy());
+        router.setTimeBudget(timeBudgetMillis);
+        router.setExactLimit(exactLimit);
+        if (auditEnabled) {
+            router.setBranchAndBoundLimit(AUDIT_LIMIT);
         }
 
-        // Start from the initial position
-        Tile currentTile = map[startingPosition[0]][startingPosition[1]];
-
-        // Process each tile in the optimal route (excluding the final return to start)
-        for (int i = 1; i < optimalRoute.size() - 1; i++) {
-            Tile targetTile = optimalRoute.get(i);
-            int objectiveNumber = objectiveIndices.getOrDefault(targetTile, -1);
-
-            // Find the shortest path to the current objective
-            ArrayList<Tile> path = pathFinder.findShortestPath(currentTile, targetTile);
-
-            // If a path exists, follow it
-            if (path != null && path.size() > 1) {
-                currentSegmentTiles = new ArrayList<>(); // Start new segment
-
-                // Follow the path
-                for (int j = 1; j < path.size(); j++) {
-                    Tile from = path.get(j - 1);
-                    Tile to = path.get(j);
-                    visitedTiles.add(from);
-                    currentSegmentTiles.add(from);
-
-                    // Calculate cost for this step
-                    String key = from.getColumn() + " " + from.getRow() + " " + to.getColumn() + " " + to.getRow();
-                    String reverseKey = to.getColumn() + " " + to.getRow() + " " + from.getColumn() + " " + from.getRow();
-
-                    double stepCost = 0;
-                    if (travelCosts.containsKey(key)) {
-                        stepCost = travelCosts.get(key);
-                    } else if (travelCosts.containsKey(reverseKey)) {
-                        stepCost = travelCosts.get(reverseKey);
-                    }
-
-                    totalCost += stepCost;
-                    totalSteps++;
-
-                    // Write step to output file
-                    output.printf("Step Count: %d, move to %s. Total Cost: %.2f.%n", totalSteps, to, totalCost);
-
-                    // Visualize step if drawing is enabled
-                    if (drawEnabled && j != path.size() - 1) {
-                        StdDraw.clear();
-                        drawStep(to);
-                        StdDraw.pause(150);
-                    }
-                }
-
-                // Save the current segment
-                pathSegments.add(new AbstractMap.SimpleEntry<>(new ArrayList<>(currentSegmentTiles), currentPathColor));
+        // Visit the objectives in the optimal order and return to the start
+        Tile startTile = router.getTile(startingPosition[0], startingPosition[1]);
+        Tour tour = router.tour(startTile, getObjectiveTiles());
 
-                output.println("Objective " + objectiveNumber + " reached!");
-
-                // Change path color randomly for the next segment
-                if (drawEnabled) {
-                    currentPathColor = getRandomColor();
-                    objectives.removeIf(obj -> obj != null && obj[0] == targetTile.getColumn() && obj[1] == targetTile.getRow());
-                    drawObjectiveReached(targetTile);
-                    StdDraw.pause(700);
-                }
+        PrintWriter output = new PrintWriter(new FileWriter("out/bonus.txt"));
+        tour.writeBonus(output);
+        output.close();
 
-                // Update current position to the reached objective
-                currentTile = targetTile;
-            } else {
-                // Path doesn't exist
-                output.println("Objective " + objectiveNumber + " cannot be reached!");
+        if (statsEnabled) {
+            System.out.printf("Total nodes expanded: %d%n", router.getTotalExpandedNodes());
+            PathCache pathCache = router.getPathCache();
+            System.out.printf("Path cache: %d hits, %d misses, %d evictions%n",
+                    pathCache.getHits(), pathCache.getMisses(), pathCache.getEvictions());
+            double routeCost = tour.getRouteCost();
+            double lowerBound = tour.getLowerBound();
+            if (routeCost != Double.POSITIVE_INFINITY) {
+                double gap = routeCost == 0 ? 0 : 100 * (routeCost - lowerBound) / routeCost;
+                System.out.printf("Route cost: %.2f, lower bound: %.2f, gap: %.2f%%, %s%n", routeCost, lowerBound, gap,
+                        tour.isOptimal() ? "proven optimal" : "not proven optimal");
             }
         }
 
-        // Return to the starting position
-        Tile startTile = map[startingPosition[0]][startingPosition[1]];
-        ArrayList<Tile> returnPath = pathFinder.findShortestPath(currentTile, startTile);
+        if (drawEnabled) {
+            drawTour(tour);
+        }
+    }
 
-        if (returnPath != null && returnPath.size() > 1) {
-            currentSegmentTiles = new ArrayList<>(); // Start return segment
-            // Change path color for return path
-            if (drawEnabled) {
+    /**
+     * Animates the knight following each reachable leg of the tour, in a new color per leg.
+     * @param tour The tour to draw
+     */
+    private static void drawTour(Tour tour) {
+        for (RouteLeg leg : tour.getLegs()) {
+            if (!leg.isReached()) {
+                continue;
+            }
+            // Change path color for the return path
+            if (leg.isReturn()) {
                 currentPathColor = getRandomColor();
             }
 
-            for (int j = 1; j < returnPath.size(); j++) {
-                Tile from = returnPath.get(j - 1);
-                Tile to = returnPath.get(j);
-                visitedTiles.add(from);
-                currentSegmentTiles.add(from);
-
-                String key = from.getColumn() + " " + from.getRow() + " " + to.getColumn() + " " + to.getRow();
-                String reverseKey = to.getColumn() + " " + to.getRow() + " " + from.getColumn() + " " + from.getRow();
-
-                double stepCost = 0;
-                if (travelCosts.containsKey(key)) {
-                    stepCost = travelCosts.get(key);
-                } else if (travelCosts.containsKey(reverseKey)) {
-                    stepCost = travelCosts.get(reverseKey);
-                }
-
-                totalCost += stepCost;
-                totalSteps++;
-
-                output.printf("Step Count: %d, move to %s. Total Cost: %.2f.%n", totalSteps, to, totalCost);
-
-                if (drawEnabled && j != returnPath.size() - 1) {
+            List<Tile> path = leg.getPath();
+            currentSegmentTiles = new ArrayList<>(); // Start new segment
+            for (int j = 1; j < path.size(); j++) {
+                visitedTiles.add(path.get(j - 1));
+                currentSegmentTiles.add(path.get(j - 1));
+                if (j != path.size() - 1) {
                     StdDraw.clear();
-                    drawStep(to);
+                    drawStep(path.get(j));
                     StdDraw.pause(150);
                 }
             }
 
-            // Save the return segment
+            // Save the current segment
             pathSegments.add(new AbstractMap.SimpleEntry<>(new ArrayList<>(currentSegmentTiles), currentPathColor));
 
-            if (drawEnabled) {
-                drawObjectiveReached(startTile);
-                StdDraw.pause(700);
+            Tile targetTile = leg.getTarget();
+            if (!leg.isReturn()) {
+                // Change path color randomly for the next segment
+                currentPathColor = getRandomColor();
+                objectives.removeIf(obj -> obj != null && obj[0] == targetTile.getColumn() && obj[1] == targetTile.getRow());
             }
+            drawObjectiveReached(targetTile);
+            StdDraw.pause(700);
         }
-
-        // Write total statistics
-        output.printf("Total Step: %d, Total Cost: %.2f%n", totalSteps, totalCost);
-        output.close();
     }
 
     /**
@@ -235,88 +224,23 @@ public class Bonus {
     private static ArrayList<Tile> getObjectiveTiles() {
         ArrayList<Tile> objectiveTiles = new ArrayList<>();
         for (int[] objective : objectives) {
-            objectiveTiles.add(map[objective[0]][objective[1]]);
+            objectiveTiles.add(map.getTile(objective[0], objective[1]));
         }
         return objectiveTiles;
     }
 
     /**
-     * Reads the map data file and initializes the map.
-     * @param filename The name of the map data file
-     * @throws IOException If an I/O error occurs
+     * Gets the search strategy selected by the command-line flags.
+     * @return The search strategy
      */
-    private static void readMapData(String filename) throws IOException {
-        Scanner scanner = new Scanner(new File(filename));
-
-        // Read map dimensions
-        String[] dimensions = scanner.nextLine().split(" ");
-        columns = Integer.parseInt(dimensions[0]);
-        rows = Integer.parseInt(dimensions[1]);
-
-        // Initialize map
-        map = new Tile[columns][rows];
-
-        // Read tile data
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            if (line.trim().isEmpty()) continue;
-
-            String[] parts = line.split(" ");
-            int x = Integer.parseInt(parts[0]);
-            int y = Integer.parseInt(parts[1]);
-            int type = Integer.parseInt(parts[2]);
-
-            map[x][y] = new Tile(x, y, type);
+    private static SearchStrategy getStrategy() {
+        if (rectanglesEnabled) {
+            return SearchStrategy.RECTANGLE_SYMMETRY;
         }
-
-        scanner.close();
-
-        // Set up adjacent tiles
-        for (int x = 0; x < columns; x++) {
-            for (int y = 0; y < rows; y++) {
-                if (map[x][y] != null) {
-                    if (x > 0 && map[x-1][y] != null) {
-                        map[x][y].addAdjacentTile(map[x-1][y]);
-                    }
-                    if (x < columns-1 && map[x+1][y] != null) {
-                        map[x][y].addAdjacentTile(map[x+1][y]);
-                    }
-                    if (y > 0 && map[x][y-1] != null) {
-                        map[x][y].addAdjacentTile(map[x][y-1]);
-                    }
-                    if (y < rows-1 && map[x][y+1] != null) {
-                        map[x][y].addAdjacentTile(map[x][y+1]);
-                    }
-                }
-            }
+        if (bidirectionalEnabled) {
+            return aStarEnabled ? SearchStrategy.BIDIRECTIONAL_ASTAR : SearchStrategy.BIDIRECTIONAL_DIJKSTRA;
         }
-    }
-
-    /**
-     * Reads the travel costs file and initializes the travel costs map.
-     * @param filename The name of the travel costs file
-     * @throws IOException If an I/O error occurs
-     */
-    private static void readTravelCosts(String filename) throws IOException {
-        Scanner scanner = new Scanner(new File(filename));
-        travelCosts = new HashMap<>();
-
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            if (line.trim().isEmpty()) continue;
-
-            String[] parts = line.split(" ");
-            int x1 = Integer.parseInt(parts[0]);
-            int y1 = Integer.parseInt(parts[1]);
-            int x2 = Integer.parseInt(parts[2]);
-            int y2 = Integer.parseInt(parts[3]);
-            double cost = Double.parseDouble(parts[4]); // Fixed: parseDouble instead of parseInt
-
-            travelCosts.put(x1 + " " + y1 + " " + x2 + " " + y2, cost);
-            travelCosts.put(x2 + " " + y2 + " " + x1 + " " + y1, cost);
-        }
-
-        scanner.close();
+        return aStarEnabled ? SearchStrategy.ASTAR : SearchStrategy.DIJKSTRA;
     }
 
     /**
@@ -325,26 +249,10 @@ public class Bonus {
      * @throws IOException If an I/O error occurs
      */
     private static void readObjectives(String filename) throws IOException {
-        Scanner scanner = new Scanner(new File(filename));
-        objectives = new ArrayList<>();
-
-        // Read starting position
-        String[] startPos = scanner.nextLine().split(" ");
-        startingPosition = new int[] {Integer.parseInt(startPos[0]), Integer.parseInt(startPos[1])};
-
-        // Read objectives
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            if (line.trim().isEmpty()) continue;
-
-            String[] parts = line.split(" ");
-            int x = Integer.parseInt(parts[0]);
-            int y = Integer.parseInt(parts[1]);
-
-            objectives.add(new int[] {x, y});
-        }
+        objectives = MapLoader.loadObjectives(filename);
 
-        scanner.close();
+        // The first position is the starting position
+        startingPosition = objectives.remove(0);
     }
 
     /**
@@ -368,10 +276,10 @@ public class Bonus {
     private static void drawMap() {
         for (int x = 0; x < columns; x++) {
             for (int y = 0; y < rows; y++) {
-                if (map[x][y] != null) {
-                    if (map[x][y].getType() == 0) {
+                if (map.getType(x, y) != GridGraph.MISSING) {
+                    if (map.getType(x, y) == 0) {
                         StdDraw.picture(x, rows-1-y, "./misc/grassTile.jpeg", 1.0, 1.0);
-                    } else if (map[x][y].getType() == 1) {
+                    } else if (map.getType(x, y) == 1) {
                         StdDraw.picture(x, rows-1-y, "./misc/sandTile.png", 1.0, 1.0);
                     } else {
                         StdDraw.picture(x, rows-1-y, "./misc/impassableTile.jpeg", 1.0, 1.0);
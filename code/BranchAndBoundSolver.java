@@ -0,0 +1,227 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The BranchAndBoundSolver class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class finds a provably shortest tour for more objectives than the Held-Karp tables can
+ * hold, using memory proportional to the square of the number of objectives. It grows the tour
+ * from the source one node at a time in a depth-first search, nearest nodes first, and drops
+ * every partial tour whose lower bound is no better than the best tour known. The search starts
+ * from the HeuristicTourSolver's tour. Bounds use the node penalties of the root's Held-Karp
+ * 1-tree bound: the rest of a partial tour is a path from its last node through the unvisited
+ * nodes back to the source, which costs at least the penalised minimum spanning tree of those
+ * nodes. If the time limit is hit, the best tour found so far is returned unproven.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+public class BranchAndBoundSolver {
+    // Improvements smaller than this are treated as rounding noise
+    private static final double EPSILON = 1e-9;
+    // Subgradient steps spent on the root bound
+    private static final int ROOT_ITERATIONS = 1000;
+
+    private final double[][] costs; // costs[i][j] between nodes, node 0 is the source
+    private final int count;        // Number of nodes, including the source
+    private long timeLimitMillis = 60000;
+    private long deadline;
+    private boolean timedOut;
+    private long exploredNodes;     // Partial tours looked at by the last search
+    private double rootBound;       // Lower bound on every tour
+
+    private double[] penalties;     // Node penalties of the root bound
+    private final int[] path;       // Nodes of the current partial tour
+    private final boolean[] visited;
+    private final int[][] candidates;  // Unvisited nodes at each depth, nearest first
+    private final double[] minEdge;    // Working array of Prim's algorithm
+    private final boolean[] inTree;    // Working array of Prim's algorithm
+    private int[] best;
+    private double bestCost;
+
+    /**
+     * Constructs a solver for the given cost matrix. Costs must be symmetric.
+     * @param costs Matrix of path costs between nodes, where node 0 is the source
+     */
+    public BranchAndBoundSolver(double[][] costs) {
+        this.costs = costs;
+        this.count = costs.length;
+        this.path = new int[count];
+        this.visited = new boolean[count];
+        this.candidates = new int[count][];
+        this.minEdge = new double[count];
+        this.inTree = new boolean[count];
+    }
+
+    /**
+     * Sets how long the search may run before it returns the best tour found so far.
+     * @param timeLimitMillis Time limit in milliseconds
+     */
+    public void setTimeLimit(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Checks if the last tour found is proven to be the shortest.
+     * @return True if the search finished within the time limit
+     */
+    public boolean isOptimal() {
+        return !timedOut;
+    }
+
+    /**
+     * Gets the lower bound on the cost of every tour, from the root of the search.
+     * @return The lower bound
+     */
+    public double getLowerBound() {
+        return rootBound;
+    }
+
+    /**
+     * Gets the number of partial tours looked at by the last search.
+     * @return Number of explored partial tours
+     */
+    public long getExploredNodes() {
+        return exploredNodes;
+    }
+
+    /**
+     * Finds the shortest tour through all nodes, or the best one found within the time limit.
+     * @return Node indices of the tour, starting with 0 and without the final return to 0,
+     *         or null if some node cannot be reached from another
+     */
+    public int[] solve() {
+        deadline = System.nanoTime() + timeLimitMillis * 1_000_000;
+        timedOut = false;
+        exploredNodes = 0;
+
+        // Start from a good tour so the bounds prune from the first branch on
+        HeuristicTourSolver heuristic = new HeuristicTourSolver(costs);
+        heuristic.setTimeBudget(Math.min(1000, timeLimitMillis / 10));
+        best = heuristic.solve();
+        if (best == null) {
+            return null;
+        }
+        bestCost = HeuristicTourSolver.tourCost(costs, best);
+
+        OneTreeBound bound = new OneTreeBound(costs);
+        rootBound = bound.compute(ROOT_ITERATIONS, bestCost);
+        if (rootBound >= bestCost - EPSILON || count <= 3) {
+            rootBound = bestCost;
+            return best;
+        }
+        penalties = bound.getPenalties();
+
+        visited[0] = true;
+        path[0] = 0;
+        search(1, 0, 0);
+        visited[0] = false;
+        if (!timedOut) {
+            rootBound = bestCost;
+        }
+        return best;
+    }
+
+    /**
+     * Extends the partial tour in path[0..depth) by every unvisited node that may still lead to
+     * a shorter tour.
+     * @param depth Number of nodes in the partial tour
+     * @param last Last node of the partial tour
+     * @param pathCost Cost of the partial tour
+     */
+    private void search(int depth, int last, double pathCost) {
+        exploredNodes++;
+        if (System.nanoTime() - deadline > 0) {
+            timedOut = true;
+            return;
+        }
+        if (depth == count) {
+            double tourCost = pathCost + costs[last][0];
+            if (tourCost < bestCost - EPSILON) {
+                bestCost = tourCost;
+                best = path.clone();
+            }
+            return;
+        }
+        if (depth > 1 && pathCost + remainingBound(last) >= bestCost - EPSILON) {
+            return;
+        }
+
+        // Try the nearest unvisited nodes first, so good tours are found early
+        if (candidates[depth] == null) {
+            candidates[depth] = new int[count];
+        }
+        int[] order = candidates[depth];
+        int size = 0;
+        for (int node = 1; node < count; node++) {
+            if (visited[node]) {
+                continue;
+            }
+            int position = size++;
+            while (position > 0 && costs[last][order[position - 1]] > costs[last][node]) {
+                order[position] = order[position - 1];
+                position--;
+            }
+            order[position] = node;
+        }
+
+        for (int i = 0; i < size && !timedOut; i++) {
+            int node = order[i];
+            visited[node] = true;
+            path[depth] = node;
+            search(depth + 1, node, pathCost + costs[last][node]);
+            visited[node] = false;
+        }
+    }
+
+    /**
+     * Computes a lower bound on the cost of a path from the last node through every unvisited
+     * node to the source. Such a path is a spanning tree of those nodes where the inner nodes
+     * have two edges and the ends one, so its penalised cost is at least the penalised minimum
+     * spanning tree's.
+     * @param last Last node of the partial tour
+     * @return Lower bound on the cost of completing the tour
+     */
+    private double remainingBound(int last) {
+        // Prim's algorithm over the unvisited nodes, the last node and the source
+        int remaining = 0;
+        for (int node = 0; node < count; node++) {
+            inTree[node] = visited[node] && node != last && node != 0;
+            minEdge[node] = Double.POSITIVE_INFINITY;
+            if (!inTree[node]) {
+                remaining++;
+            }
+        }
+
+        double total = 0;
+        minEdge[last] = 0;
+        for (int added = 0; added < remaining; added++) {
+            int next = -1;
+            for (int node = 0; node < count; node++) {
+                if (!inTree[node] && (next == -1 || minEdge[node] < minEdge[next])) {
+                    next = node;
+                }
+            }
+            inTree[next] = true;
+            total += minEdge[next];
+            for (int node = 0; node < count; node++) {
+                if (!inTree[node]) {
+                    double weight = costs[next][node] + penalties[next] + penalties[node];
+                    if (weight < minEdge[node]) {
+                        minEdge[node] = weight;
+                    }
+                }
+            }
+        }
+
+        // Inner nodes carry their penalty twice, the two ends once
+        double penaltySum = penalties[last] + penalties[0];
+        for (int node = 1; node < count; node++) {
+            if (!visited[node]) {
+                penaltySum += 2 * penalties[node];
+            }
+        }
+        return total - penaltySum;
+    }
+}
@@ -0,0 +1,256 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The CompiledMap class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class stores a map and its travel costs in a binary file, so that many objective files
+ * can be run against the same map without parsing the text files every time. The file starts
+ * with a header (magic number, format version, columns, rows), followed by one terrain byte per
+ * cell and then the east and south cost of every cell as little-endian doubles, NaN where no cost
+ * is given. Loading memory-maps each section and copies it into the map's arrays in bulk, in
+ * windows of at most 2 GB, so maps of any size that fits in an array can be compiled.
+ * Run {@code java CompiledMap mapData.txt travelCosts.txt map.bin} to compile a map.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class CompiledMap {
+    public static final int MAGIC = 0x4B4E4D50; // First four bytes of every compiled map
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int WINDOW_SIZE = Integer.MAX_VALUE - 7; // Largest multiple of 8 bytes one buffer maps
+
+    private final GridGraph map;
+    private final EdgeCosts travelCosts;
+
+    /**
+     * Constructs a compiled map from a map and its travel costs.
+     * @param map The grid graph of the map
+     * @param travelCosts The travel costs of the map
+     */
+    public CompiledMap(GridGraph map, EdgeCosts travelCosts) {
+        this.map = map;
+        this.travelCosts = travelCosts;
+    }
+
+    /**
+     * Gets the grid graph of the map.
+     * @return The grid graph
+     */
+    public GridGraph getMap() {
+        return map;
+    }
+
+    /**
+     * Gets the travel costs of the map.
+     * @return The travel costs
+     */
+    public EdgeCosts getTravelCosts() {
+        return travelCosts;
+    }
+
+    /**
+     * Compiles a map data file and a travel costs file into a binary map file.
+     * @param args The map data file, the travel costs file and the binary file to write
+     * @throws IOException If a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: java CompiledMap mapData.txt travelCosts.txt map.bin");
+            return;
+        }
+        long start = System.nanoTime();
+        GridGraph map = MapLoader.loadMap(args[0]);
+        EdgeCosts travelCosts = MapLoader.loadTravelCosts(args[1], map);
+        new CompiledMap(map, travelCosts).save(args[2]);
+        System.out.printf("Compiled %dx%d map into %s in %.0f ms%n", map.getColumns(), map.getRows(), args[2],
+                (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Checks if a file starts with the magic number of a compiled map.
+     * @param filename The name of the file
+     * @return True if the file looks like a compiled map
+     * @throws IOException If the file cannot be read
+     */
+    public static boolean isCompiledMap(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    return false;
+                }
+            }
+            return header.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Writes the map and its travel costs to a binary file.
+     * @param filename The name of the file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void save(String filename) throws IOException {
+        Path path = Paths.get(filename);
+        Files.deleteIfExists(path);
+        int cells = map.getCellCount();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(map.getColumns()).putInt(map.getRows());
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+
+            map.writeTerrain(section(channel, FileChannel.MapMode.READ_WRITE, HEADER_SIZE, cells));
+            for (long first = 0; first < cells; first += WINDOW_SIZE / 8) {
+                int count = (int) Math.min(cells - first, WINDOW_SIZE / 8);
+                MappedByteBuffer east = section(channel, FileChannel.MapMode.READ_WRITE,
+                        HEADER_SIZE + cells + 8L * first, 8L * count);
+                MappedByteBuffer south = section(channel, FileChannel.MapMode.READ_WRITE,
+                        HEADER_SIZE + 9L * cells + 8L * first, 8L * count);
+                travelCosts.writeCosts((int) first, east.asDoubleBuffer(), south.asDoubleBuffer());
+                east.force();
+                south.force();
+            }
+        }
+    }
+
+    /**
+     * Loads a map and its travel costs from a binary file.
+     * @param filename The name of the file
+     * @return The compiled map
+     * @throws IOException If the file cannot be read or is not a compiled map of this version
+     */
+    public static CompiledMap load(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(filename + ": not a compiled map");
+            }
+            ByteBuffer header = section(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(filename + ": not a compiled map");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(filename + ": unsupported compiled map version " + version
+                        + ", expected " + VERSION + "; compile the map again");
+            }
+            int columns = header.getInt();
+            int rows = header.getInt();
+            long cells = (long) columns * rows;
+            if (columns <= 0 || rows <= 0 || cells > Integer.MAX_VALUE) {
+                throw new IOException(filename + ": invalid map dimensions " + columns + "x" + rows);
+            }
+            if (channel.size() != HEADER_SIZE + 17 * cells) {
+                throw new IOException(filename + ": expected " + (HEADER_SIZE + 17 * cells)
+                        + " bytes but found " + channel.size());
+            }
+
+            GridGraph map = new GridGraph(columns, rows);
+            map.readTerrain(section(channel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE, cells));
+            EdgeCosts travelCosts = new EdgeCosts(map);
+            for (long first = 0; first < cells; first += WINDOW_SIZE / 8) {
+                int count = (int) Math.min(cells - first, WINDOW_SIZE / 8);
+                travelCosts.readCosts((int) first,
+                        section(channel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE + cells + 8L * first, 8L * count).asDoubleBuffer(),
+                        section(channel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE + 9 * cells + 8L * first, 8L * count).asDoubleBuffer());
+            }
+            return new CompiledMap(map, travelCosts);
+        }
+    }
+
+    /**
+     * Writes an array of doubles to the file at a position, mapping it in windows.
+     * @param channel The open file
+     * @param position Offset of the array in the file
+     * @param array The values to write
+     * @throws IOException If the file cannot be mapped
+     */
+    static void writeDoubles(FileChannel channel, long position, double[] array) throws IOException {
+        for (long first = 0; first < array.length; first += WINDOW_SIZE / 8) {
+            int count = (int) Math.min(array.length - first, WINDOW_SIZE / 8);
+            MappedByteBuffer window = section(channel, FileChannel.MapMode.READ_WRITE, position + 8L * first, 8L * count);
+            window.asDoubleBuffer().put(array, (int) first, count);
+            window.force();
+        }
+    }
+
+    /**
+     * Reads an array of doubles from the file at a position, mapping it in windows.
+     * @param channel The open file
+     * @param position Offset of the array in the file
+     * @param array Receives the values
+     * @throws IOException If the file cannot be mapped
+     */
+    static void readDoubles(FileChannel channel, long position, double[] array) throws IOException {
+        for (long first = 0; first < array.length; first += WINDOW_SIZE / 8) {
+            int count = (int) Math.min(array.length - first, WINDOW_SIZE / 8);
+            section(channel, FileChannel.MapMode.READ_ONLY, position + 8L * first, 8L * count)
+                    .asDoubleBuffer().get(array, (int) first, count);
+        }
+    }
+
+    /**
+     * Writes an array of ints to the file at a position, mapping it in windows.
+     * @param channel The open file
+     * @param position Offset of the array in the file
+     * @param array The values to write
+     * @throws IOException If the file cannot be mapped
+     */
+    static void writeInts(FileChannel channel, long position, int[] array) throws IOException {
+        for (long first = 0; first < array.length; first += WINDOW_SIZE / 4) {
+            int count = (int) Math.min(array.length - first, WINDOW_SIZE / 4);
+            MappedByteBuffer window = section(channel, FileChannel.MapMode.READ_WRITE, position + 4L * first, 4L * count);
+            window.asIntBuffer().put(array, (int) first, count);
+            window.force();
+        }
+    }
+
+    /**
+     * Reads an array of ints from the file at a position, mapping it in windows.
+     * @param channel The open file
+     * @param position Offset of the array in the file
+     * @param array Receives the values
+     * @throws IOException If the file cannot be mapped
+     */
+    static void readInts(FileChannel channel, long position, int[] array) throws IOException {
+        for (long first = 0; first < array.length; first += WINDOW_SIZE / 4) {
+            int count = (int) Math.min(array.length - first, WINDOW_SIZE / 4);
+            section(channel, FileChannel.MapMode.READ_ONLY, position + 4L * first, 4L * count)
+                    .asIntBuffer().get(array, (int) first, count);
+        }
+    }
+
+    /**
+     * Memory-maps one section of the file in little-endian order.
+     * @param channel The open file
+     * @param mode Whether the section is read or written
+     * @param position Offset of the section in the file
+     * @param size Size of the section in bytes, at most 2 GB
+     * @return The mapped section
+     * @throws IOException If the section is too large to map or cannot be mapped
+     */
+    static MappedByteBuffer section(FileChannel channel, FileChannel.MapMode mode,
+                                    long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("A section of " + size + " bytes cannot be mapped at once");
+        }
+        MappedByteBuffer buffer = channel.map(mode, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+}
@@ -0,0 +1,142 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The ConnectedComponents class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class labels the connected components of a map once, when it is loaded, so that a query
+ * between two cells that no path joins is answered by comparing two labels instead of a search
+ * that floods everything reachable from the source. Cells a search can enter, every cell that is
+ * listed in the map and not an obstacle, are joined to their west and north neighbours with a
+ * union-find in one pass in reading order, and a second pass numbers the components. Every set
+ * is linked under its lowest cell, so each cell's parent comes before it and the labels replace
+ * the parents in place.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+public class ConnectedComponents {
+    private final GridGraph map;
+    private final int[] labels; // Component of every cell, -1 for obstacles and missing cells
+    private final int count;
+
+    /**
+     * Labels the connected components of a map.
+     * @param map The grid graph of the map
+     */
+    public ConnectedComponents(GridGraph map) {
+        this.map = map;
+        int cellCount = map.getCellCount();
+        int columns = map.getColumns();
+        this.labels = new int[cellCount];
+
+        // Join every open cell to its open west and north neighbours
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (!map.isPassable(cell)) {
+                labels[cell] = -1;
+                continue;
+            }
+            labels[cell] = cell;
+            if (cell % columns > 0 && labels[cell - 1] >= 0) {
+                union(cell, cell - 1);
+            }
+            if (cell >= columns && labels[cell - columns] >= 0) {
+                union(cell, cell - columns);
+            }
+        }
+
+        // Number the roots in reading order, every other cell takes the label of its parent
+        int components = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            int parent = labels[cell];
+            if (parent == cell) {
+                labels[cell] = components++;
+            } else if (parent >= 0) {
+                labels[cell] = labels[parent];
+            }
+        }
+        this.count = components;
+    }
+
+    /**
+     * Joins the sets of two cells under the lower of their roots.
+     * @param a One cell
+     * @param b The other cell
+     */
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA < rootB) {
+            labels[rootB] = rootA;
+        } else if (rootB < rootA) {
+            labels[rootA] = rootB;
+        }
+    }
+
+    /**
+     * Finds the root of the set of a cell, halving the path on the way.
+     * @param cell Cell index
+     * @return The root cell
+     */
+    private int find(int cell) {
+        while (labels[cell] != cell) {
+            labels[cell] = labels[labels[cell]];
+            cell = labels[cell];
+        }
+        return cell;
+    }
+
+    /**
+     * Gets the component of a cell.
+     * @param cell Cell index
+     * @return Component number, or -1 for an obstacle or a missing cell
+     */
+    public int getComponent(int cell) {
+        return labels[cell];
+    }
+
+    /**
+     * Gets the number of components.
+     * @return Number of components
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Checks if a search from one cell can reach another. A search never enters an obstacle or
+     * a missing cell, but a source on one may be left towards any open neighbour.
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @return True if a path exists
+     */
+    public boolean isConnected(int sourceCell, int targetCell) {
+        if (sourceCell == targetCell) {
+            return true;
+        }
+        int target = labels[targetCell];
+        if (target < 0) {
+            return false;
+        }
+        if (labels[sourceCell] >= 0) {
+            return labels[sourceCell] == target;
+        }
+        for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+            int neighbor = map.neighbor(sourceCell, direction);
+            if (neighbor >= 0 && labels[neighbor] == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Estimates the memory taken by the components of a map.
+     * @param cellCount Number of cells in the map
+     * @return Estimated size in bytes
+     */
+    public static long estimateBytes(int cellCount) {
+        return 4L * cellCount; // The label of every cell
+    }
+}
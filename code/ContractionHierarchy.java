@@ -0,0 +1,481 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The ContractionHierarchy class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class answers shortest path queries on a static map in microseconds, using an index built
+ * once by a HierarchyBuilder. Every cell a search can enter has a rank, and every cell keeps its
+ * edges to cells of higher rank, which are either edges of the map or shortcuts standing for a
+ * path through a lower cell. A query searches upwards from both ends at once and the two searches
+ * meet at the highest cell of the shortest path, so each settles only a few hundred cells. A
+ * search does not expand a cell it reached more cheaply through a higher cell (stall on demand).
+ * Shortcuts are unpacked into the cells of the map with an explicit stack. Paths that start on an
+ * obstacle are answered the way PathFinder answers them, leaving through its open neighbours.
+ * Cells missing from the map file are left out of the hierarchy and have no paths.
+ * </p>
+ * <p>
+ * The index is saved in a binary file laid out like a CompiledMap: a header (magic number, format
+ * version, columns, rows, a fingerprint of the terrain and travel costs, number of edges), then
+ * the edge weights as little-endian doubles, the ranks, the first edge of every cell, and the
+ * target and middle cell of every edge. Loading checks the fingerprint against the given map, so
+ * an index is never used with a map it was not built for. Run
+ * {@code java ContractionHierarchy mapData.txt travelCosts.txt map.ch} to build an index.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class ContractionHierarchy {
+    public static final int MAGIC = 0x4B4E4348; // First four bytes of every hierarchy file
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    private final GridGraph map;
+    private final PathFinder pathFinder; // Pays the edges of obstacle ends and of unpacked paths
+    private final EdgeCosts travelCosts;
+    private final int[] ranks;     // Contraction order of every cell, -1 for obstacles and missing cells
+    private final int[] firstEdge; // First upward edge of every cell, and one past the last edge at the end
+    private final int[] targets;   // Higher cell of every edge
+    private final double[] weights;
+    private final int[] middles;   // Cell a shortcut leads through, -1 for an edge of the map
+
+    // Every thread queries with its own pair of preallocated workspaces
+    private final ThreadLocal<SearchState> forwardStates;
+    private final ThreadLocal<SearchState> backwardStates;
+
+    /**
+     * Constructs a hierarchy from the arrays of its upward edges, grouped by their lower cell.
+     * @param map The grid graph of the map
+     * @param travelCosts The travel costs of the map
+     * @param ranks Contraction order of every cell, -1 for obstacles and missing cells
+     * @param firstEdge First edge of every cell, with the number of edges at the end
+     * @param targets Higher cell of every edge
+     * @param weights Weight of every edge
+     * @param middles Cell every shortcut leads through, -1 for an edge of the map
+     */
+    ContractionHierarchy(GridGraph map, EdgeCosts travelCosts, int[] ranks, int[] firstEdge,
+                         int[] targets, double[] weights, int[] middles) {
+        this.map = map;
+        this.travelCosts = travelCosts;
+        this.pathFinder = new PathFinder(map, travelCosts);
+        this.ranks = ranks;
+        this.firstEdge = firstEdge;
+        this.targets = targets;
+        this.weights = weights;
+        this.middles = middles;
+        int cellCount = map.getCellCount();
+        this.forwardStates = ThreadLocal.withInitial(() -> new SearchState(cellCount));
+        this.backwardStates = ThreadLocal.withInitial(() -> new SearchState(cellCount));
+    }
+
+    /**
+     * Builds the hierarchy of a map.
+     * @param map The grid graph of the map
+     * @param travelCosts The travel costs of the map
+     * @return The contraction hierarchy
+     */
+    public static ContractionHierarchy build(GridGraph map, EdgeCosts travelCosts) {
+        return new HierarchyBuilder(map, travelCosts).build();
+    }
+
+    /**
+     * Builds the hierarchy of a map and saves it to a file.
+     * @param args The map data and travel costs files, or a compiled map, then the file to write
+     * @throws IOException If a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 && args.length != 3) {
+            System.out.println("Usage: java ContractionHierarchy mapData.txt travelCosts.txt map.ch | map.bin map.ch");
+            return;
+        }
+        GridGraph map;
+        EdgeCosts travelCosts;
+        if (args.length == 2) {
+            CompiledMap compiledMap = CompiledMap.load(args[0]);
+            map = compiledMap.getMap();
+            travelCosts = compiledMap.getTravelCosts();
+        } else {
+            map = MapLoader.loadMap(args[0]);
+            travelCosts = MapLoader.loadTravelCosts(args[1], map);
+        }
+
+        long start = System.nanoTime();
+        HierarchyBuilder builder = new HierarchyBuilder(map, travelCosts);
+        ContractionHierarchy hierarchy = builder.build();
+        String filename = args[args.length - 1];
+        hierarchy.save(filename);
+        System.out.printf("Built the hierarchy of the %dx%d map into %s in %.0f ms: %d shortcuts, %d edges, %d bytes%n",
+                map.getColumns(), map.getRows(), filename, (System.nanoTime() - start) / 1e6,
+                builder.getShortcuts(), hierarchy.getEdgeCount(), hierarchy.getFileBytes());
+    }
+
+    /**
+     * Gets the grid graph of the map.
+     * @return The grid graph
+     */
+    public GridGraph getMap() {
+        return map;
+    }
+
+    /**
+     * Gets the number of upward edges, counting edges of the map and shortcuts.
+     * @return Number of edges
+     */
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Gets the size of the file the hierarchy is saved in.
+     * @return Size in bytes
+     */
+    public long getFileBytes() {
+        int cells = map.getCellCount();
+        return HEADER_SIZE + 4L * cells + 4L * (cells + 1) + 16L * targets.length;
+    }
+
+    /**
+     * Finds the cost of the shortest path between two tiles. The shortcut weights add up the
+     * edges in another order than a search does, so the cost is added up again along the
+     * unpacked path to give the same value as PathFinder to the last bit.
+     * @param source The starting tile
+     * @param target The destination tile
+     * @return The path cost, or infinity if no path exists
+     */
+    public double findCost(Tile source, Tile target) {
+        int[] cells = findPath(map.index(source), map.index(target));
+        return cells == null ? Double.POSITIVE_INFINITY : pathFinder.getPathCost(cells);
+    }
+
+    /**
+     * Finds the shortest path between two tiles.
+     * @param source The starting tile
+     * @param target The destination tile
+     * @return ArrayList of tiles representing the shortest path, or null if no path exists
+     */
+    public ArrayList<Tile> findShortestPath(Tile source, Tile target) {
+        int[] cells = findPath(map.index(source), map.index(target));
+        if (cells == null) {
+            return null;
+        }
+        ArrayList<Tile> path = new ArrayList<>(cells.length);
+        for (int cell : cells) {
+            path.add(map.toTile(cell));
+        }
+        return path;
+    }
+
+    /**
+     * Finds the cells of the shortest path between two cells.
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @return The cells of the path from source to target, or null if no path exists
+     */
+    public int[] findPath(int sourceCell, int targetCell) {
+        SearchState state = forwardStates.get();
+        SearchState backwardState = backwardStates.get();
+        int meetingCell = query(state, backwardState, sourceCell, targetCell);
+        if (state.getPathCost() == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        if (sourceCell == targetCell) {
+            return new int[] {sourceCell};
+        }
+
+        // Cells of the hierarchy from the first open cell up to the meeting cell and down to the target
+        int upLength = 0;
+        for (int cell = meetingCell; cell != -1; cell = state.getPrevious(cell)) {
+            upLength++;
+        }
+        int downLength = 0;
+        for (int cell = backwardState.getPrevious(meetingCell); cell != -1; cell = backwardState.getPrevious(cell)) {
+            downLength++;
+        }
+        int[] chain = new int[upLength + downLength];
+        int i = upLength;
+        for (int cell = meetingCell; cell != -1; cell = state.getPrevious(cell)) {
+            chain[--i] = cell;
+        }
+        i = upLength;
+        for (int cell = backwardState.getPrevious(meetingCell); cell != -1; cell = backwardState.getPrevious(cell)) {
+            chain[i++] = cell;
+        }
+        return unpack(chain, map.getType(sourceCell) == GridGraph.OBSTACLE ? sourceCell : -1);
+    }
+
+    /**
+     * Runs the upward searches from both ends until neither can improve the best meeting cell.
+     * The cost found is recorded as the result of the forward state.
+     * @param state The workspace of the search from the source
+     * @param backwardState The workspace of the search from the target
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @return The cell where the shortest path changes direction, or -1 if there is none
+     */
+    private int query(SearchState state, SearchState backwardState, int sourceCell, int targetCell) {
+        state.reset();
+        backwardState.reset();
+        if (sourceCell == targetCell) {
+            state.setResult(targetCell, 0);
+            return -1;
+        }
+        // A search never enters an obstacle, but it may leave one. Missing cells are not in the hierarchy
+        if (map.getType(targetCell) == GridGraph.OBSTACLE || map.getType(sourceCell) == GridGraph.MISSING
+                || map.getType(targetCell) == GridGraph.MISSING) {
+            return -1;
+        }
+        if (map.getType(sourceCell) == GridGraph.OBSTACLE) {
+            for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                int neighbor = map.neighbor(sourceCell, direction);
+                if (neighbor >= 0 && map.getType(neighbor) != GridGraph.OBSTACLE) {
+                    double cost = pathFinder.getEdgeCost(sourceCell, direction);
+                    if (cost < state.getDistance(neighbor)) {
+                        state.update(neighbor, cost, -1);
+                        state.getQueue().insertOrDecrease(neighbor, cost);
+                    }
+                }
+            }
+        } else {
+            state.update(sourceCell, 0, -1);
+            state.getQueue().insertOrDecrease(sourceCell, 0);
+        }
+        backwardState.update(targetCell, 0, -1);
+        backwardState.getQueue().insertOrDecrease(targetCell, 0);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meetingCell = -1;
+        IndexedMinHeap forwardQueue = state.getQueue();
+        IndexedMinHeap backwardQueue = backwardState.getQueue();
+        while (true) {
+            double forwardKey = forwardQueue.isEmpty() ? Double.POSITIVE_INFINITY : forwardQueue.peekKey();
+            double backwardKey = backwardQueue.isEmpty() ? Double.POSITIVE_INFINITY : backwardQueue.peekKey();
+            if (Math.min(forwardKey, backwardKey) >= best) {
+                break;
+            }
+
+            // Settle the closer of the two searches
+            SearchState current = forwardKey <= backwardKey ? state : backwardState;
+            SearchState other = current == state ? backwardState : state;
+            int cell = current.getQueue().poll();
+            double distance = current.getDistance(cell);
+            current.countExpanded();
+            if (other.isReached(cell) && distance + other.getDistance(cell) < best) {
+                best = distance + other.getDistance(cell);
+                meetingCell = cell;
+            }
+            if (isStalled(current, cell, distance)) {
+                continue;
+            }
+            for (int edge = firstEdge[cell]; edge < firstEdge[cell + 1]; edge++) {
+                int neighbor = targets[edge];
+                double newDistance = distance + weights[edge];
+                if (newDistance < current.getDistance(neighbor)) {
+                    current.update(neighbor, newDistance, cell);
+                    current.getQueue().insertOrDecrease(neighbor, newDistance);
+                }
+            }
+        }
+        state.setResult(targetCell, best);
+        return meetingCell;
+    }
+
+    /**
+     * Checks if a cell was reached more cheaply through a higher cell than by the edge the
+     * search took, in which case no shortest path of the search continues from it.
+     * @param state The workspace of the search
+     * @param cell The cell being settled
+     * @param distance Distance of the cell in the search
+     * @return True if the cell does not need to be expanded
+     */
+    private boolean isStalled(SearchState state, int cell, double distance) {
+        for (int edge = firstEdge[cell]; edge < firstEdge[cell + 1]; edge++) {
+            if (state.getDistance(targets[edge]) + weights[edge] < distance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces every shortcut between consecutive cells of the hierarchy by the cells it stands for.
+     * @param chain The cells of the hierarchy on the path
+     * @param obstacleSource The obstacle the path starts from, or -1 if it starts on the first cell of the chain
+     * @return The cells of the map on the path
+     */
+    private int[] unpack(int[] chain, int obstacleSource) {
+        int[] cells = new int[Math.max(16, 2 * chain.length)];
+        int length = 0;
+        if (obstacleSource >= 0) {
+            cells[length++] = obstacleSource;
+        }
+        cells[length++] = chain[0];
+
+        // Pairs of cells still to unpack, the next pair on top
+        int[] stack = new int[32];
+        for (int i = 1; i < chain.length; i++) {
+            int top = 0;
+            stack[top++] = chain[i - 1];
+            stack[top++] = chain[i];
+            while (top > 0) {
+                int to = stack[--top];
+                int from = stack[--top];
+                int middle = middles[findEdge(from, to)];
+                if (middle < 0) {
+                    if (length == cells.length) {
+                        cells = Arrays.copyOf(cells, 2 * length);
+                    }
+                    cells[length++] = to;
+                    continue;
+                }
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * stack.length);
+                }
+                stack[top++] = middle;
+                stack[top++] = to;
+                stack[top++] = from;
+                stack[top++] = middle;
+            }
+        }
+        return Arrays.copyOf(cells, length);
+    }
+
+    /**
+     * Finds the edge between two cells of the hierarchy, which is kept by the lower of the two.
+     * @param a One cell
+     * @param b The other cell
+     * @return Index of the edge
+     */
+    private int findEdge(int a, int b) {
+        int lower = ranks[a] < ranks[b] ? a : b;
+        int higher = lower == a ? b : a;
+        for (int edge = firstEdge[lower]; edge < firstEdge[lower + 1]; edge++) {
+            if (targets[edge] == higher) {
+                return edge;
+            }
+        }
+        throw new IllegalStateException("No edge between cells " + a + " and " + b);
+    }
+
+    /**
+     * Computes a fingerprint of the terrain and travel costs of a map, which changes whenever
+     * the map does.
+     * @param map The grid graph of the map
+     * @param travelCosts The travel costs of the map
+     * @return The fingerprint
+     */
+    public static long fingerprint(GridGraph map, EdgeCosts travelCosts) {
+        int cells = map.getCellCount();
+        ByteBuffer terrain = ByteBuffer.allocate(cells);
+        map.writeTerrain(terrain);
+        DoubleBuffer east = DoubleBuffer.allocate(cells);
+        DoubleBuffer south = DoubleBuffer.allocate(cells);
+        travelCosts.writeCosts(0, east, south);
+
+        // 64-bit FNV-1a over the dimensions, the terrain bytes and the bits of every cost
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ map.getColumns()) * 0x100000001b3L;
+        hash = (hash ^ map.getRows()) * 0x100000001b3L;
+        for (int i = 0; i < cells; i++) {
+            hash = (hash ^ terrain.get(i)) * 0x100000001b3L;
+        }
+        for (int i = 0; i < cells; i++) {
+            hash = (hash ^ Double.doubleToLongBits(east.get(i))) * 0x100000001b3L;
+            hash = (hash ^ Double.doubleToLongBits(south.get(i))) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Writes the hierarchy to a binary file.
+     * @param filename The name of the file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void save(String filename) throws IOException {
+        Path path = Paths.get(filename);
+        Files.deleteIfExists(path);
+        int cells = map.getCellCount();
+        long edges = targets.length;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(map.getColumns()).putInt(map.getRows());
+            header.putLong(fingerprint(map, travelCosts)).putLong(edges);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+
+            long position = HEADER_SIZE;
+            CompiledMap.writeDoubles(channel, position, weights);
+            position += 8 * edges;
+            for (int[] array : new int[][] {ranks, firstEdge, targets, middles}) {
+                CompiledMap.writeInts(channel, position, array);
+                position += 4L * array.length;
+            }
+        }
+    }
+
+    /**
+     * Loads the hierarchy of a map from a binary file.
+     * @param filename The name of the file
+     * @param map The grid graph of the map the hierarchy was built for
+     * @param travelCosts The travel costs of the map the hierarchy was built for
+     * @return The contraction hierarchy
+     * @throws IOException If the file cannot be read, is not a hierarchy of this version or was built for another map
+     */
+    public static ContractionHierarchy load(String filename, GridGraph map, EdgeCosts travelCosts) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(filename + ": not a contraction hierarchy");
+            }
+            ByteBuffer header = CompiledMap.section(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(filename + ": not a contraction hierarchy");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(filename + ": unsupported contraction hierarchy version " + version
+                        + ", expected " + VERSION + "; build the hierarchy again");
+            }
+            int columns = header.getInt();
+            int rows = header.getInt();
+            long fingerprint = header.getLong();
+            long edges = header.getLong();
+            if (columns != map.getColumns() || rows != map.getRows() || fingerprint != fingerprint(map, travelCosts)) {
+                throw new IOException(filename + ": built for a different map; build the hierarchy again");
+            }
+            int cells = map.getCellCount();
+            long expectedSize = HEADER_SIZE + 8L * cells + 4 + 16 * edges;
+            if (edges < 0 || edges > Integer.MAX_VALUE || channel.size() != expectedSize) {
+                throw new IOException(filename + ": expected " + expectedSize + " bytes but found " + channel.size());
+            }
+
+            double[] weights = new double[(int) edges];
+            int[] ranks = new int[cells];
+            int[] firstEdge = new int[cells + 1];
+            int[] targets = new int[(int) edges];
+            int[] middles = new int[(int) edges];
+            long position = HEADER_SIZE;
+            CompiledMap.readDoubles(channel, position, weights);
+            position += 8 * edges;
+            for (int[] array : new int[][] {ranks, firstEdge, targets, middles}) {
+                CompiledMap.readInts(channel, position, array);
+                position += 4L * array.length;
+            }
+            return new ContractionHierarchy(map, travelCosts, ranks, firstEdge, targets, weights, middles);
+        }
+    }
+}
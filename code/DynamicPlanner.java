@@ -0,0 +1,442 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The DynamicPlanner class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class finds paths on a map that changes while it is used: tiles turn into obstacles or
+ * back, and travel costs are updated. It keeps a distance tree for each of the last few targets
+ * and repairs it with D* Lite instead of searching again from scratch. A tree holds the distance
+ * of cells to its target and is searched backwards from the target towards the current source
+ * with an A* heuristic. A change only reopens the cells at the ends of the edges it touches, and
+ * the next query settles again just the cells whose distance depends on them. Moving the source,
+ * for example when the knight walks along its path, keeps the tree valid as well.
+ * </p>
+ * <p>
+ * The map and travel costs must only be changed through the planner, and the planner must not be
+ * used by several threads at once. Routers and path finders that keep caches assume a map that
+ * never changes, so they must not share it.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+public class DynamicPlanner {
+    public static final int DEFAULT_TREE_CAPACITY = 4;
+
+    private final GridGraph map;
+    private final EdgeCosts travelCosts;
+    private final PathFinder pathFinder; // Gives the edge costs of the map as it is now
+    // Distance trees by target, the least recently used first
+    private final LinkedHashMap<Integer, DistanceTree> trees = new LinkedHashMap<>(16, 0.75f, true);
+    private int treeCapacity = DEFAULT_TREE_CAPACITY;
+    private double heuristicWeight; // Cheapest edge cost, lowered when a cheaper edge appears
+    private long expandedNodes;     // Cells expanded by the last query
+    private long totalExpandedNodes;
+
+    /**
+     * Constructs a planner for a map that will be changed through it.
+     * @param map The grid graph of the map
+     * @param travelCosts The travel costs of the map
+     */
+    public DynamicPlanner(GridGraph map, EdgeCosts travelCosts) {
+        this.map = map;
+        this.travelCosts = travelCosts;
+        this.pathFinder = new PathFinder(map, travelCosts);
+
+        // Every edge counts, also into obstacles, since an obstacle may be cleared later
+        double cheapest = Double.POSITIVE_INFINITY;
+        for (int cell = 0; cell < map.getCellCount(); cell++) {
+            cheapest = Math.min(cheapest, getCheapestEdge(cell));
+        }
+        this.heuristicWeight = cheapest == Double.POSITIVE_INFINITY ? 0 : Math.max(cheapest, 0);
+    }
+
+    /**
+     * Sets how many targets keep their distance trees. Each tree takes 40 bytes per cell.
+     * @param treeCapacity Most trees to keep
+     */
+    public void setTreeCapacity(int treeCapacity) {
+        if (treeCapacity < 1) {
+            throw new IllegalArgumentException("Tree capacity must be at least 1, got " + treeCapacity);
+        }
+        this.treeCapacity = treeCapacity;
+        while (trees.size() > treeCapacity) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Gets the grid graph of the map.
+     * @return The grid graph
+     */
+    public GridGraph getMap() {
+        return map;
+    }
+
+    /**
+     * Gets the number of distance trees kept.
+     * @return Number of trees
+     */
+    public int getTreeCount() {
+        return trees.size();
+    }
+
+    /**
+     * Gets the number of cells expanded by the last query.
+     * @return Number of expanded cells
+     */
+    public long getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * Gets the number of cells expanded by all queries so far.
+     * @return Number of expanded cells
+     */
+    public long getTotalExpandedNodes() {
+        return totalExpandedNodes;
+    }
+
+    /**
+     * Estimates the memory taken by the planner's distance trees, not counting the map.
+     * @return Estimated size in bytes
+     */
+    public long estimateBytes() {
+        return (long) trees.size() * DistanceTree.BYTES_PER_CELL * map.getCellCount();
+    }
+
+    /**
+     * Changes the type of a tile. The edges into it appear or disappear, and edges without a
+     * given cost change with the tile type, so the tile and its neighbours are reopened in every tree.
+     * @param column Column number
+     * @param row Row number
+     * @param type Type of the tile (0: Grass, 1: Sand, 2: Obstacle)
+     */
+    public void setTileType(int column, int row, int type) {
+        if (!map.contains(column, row)) {
+            throw new IllegalArgumentException("Tile " + column + "-" + row + " is not on the map");
+        }
+        int cell = map.index(column, row);
+        if (map.getType(cell) == type) {
+            return;
+        }
+        map.setType(column, row, type);
+        // Edges without a given cost fall back to costs by tile type, which may now be cheaper
+        if (lowerHeuristicWeight(cell)) {
+            return;
+        }
+        for (DistanceTree tree : trees.values()) {
+            tree.updateCell(cell);
+            for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                int neighbor = map.neighbor(cell, direction);
+                if (neighbor >= 0) {
+                    tree.updateCell(neighbor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Changes the travel cost between two adjacent tiles, in both directions. Both ends are
+     * reopened in every tree.
+     * @param x1 Column of the first tile
+     * @param y1 Row of the first tile
+     * @param x2 Column of the second tile
+     * @param y2 Row of the second tile
+     * @param cost New travel cost between the tiles
+     * @return True if the cost was changed, false if the tiles are not adjacent cells of the map
+     */
+    public boolean setTravelCost(int x1, int y1, int x2, int y2, double cost) {
+        if (!travelCosts.setCost(x1, y1, x2, y2, cost)) {
+            return false;
+        }
+        int a = map.index(x1, y1);
+        int b = map.index(x2, y2);
+        if (lowerHeuristicWeight(a)) {
+            return true;
+        }
+        for (DistanceTree tree : trees.values()) {
+            tree.updateCell(a);
+            tree.updateCell(b);
+        }
+        return true;
+    }
+
+    /**
+     * Finds the shortest path between two tiles on the map as it is now, repairing or building the
+     * distance tree of the target.
+     * @param source The starting tile
+     * @param target The destination tile
+     * @return ArrayList of tiles of the path, or null if no path exists
+     */
+    public ArrayList<Tile> findShortestPath(Tile source, Tile target) {
+        int[] cells = findPath(map.index(source), map.index(target));
+        if (cells == null) {
+            return null;
+        }
+        ArrayList<Tile> path = new ArrayList<>(cells.length);
+        for (int cell : cells) {
+            path.add(map.toTile(cell));
+        }
+        return path;
+    }
+
+    /**
+     * Finds the cells of the shortest path between two cells on the map as it is now.
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @return The cells of the path from source to target, or null if no path exists
+     */
+    public int[] findPath(int sourceCell, int targetCell) {
+        expandedNodes = 0;
+        if (sourceCell == targetCell) {
+            return new int[] {sourceCell};
+        }
+        // A search never enters an obstacle, but it may leave one
+        if (map.getType(targetCell) == GridGraph.OBSTACLE) {
+            return null;
+        }
+        DistanceTree tree = getTree(targetCell, sourceCell);
+        tree.moveSource(sourceCell);
+        tree.computeShortestPath();
+        totalExpandedNodes += expandedNodes;
+        return tree.getPath(sourceCell);
+    }
+
+    /**
+     * Gets the tree of a target, building a new one in the place of the least recently used tree
+     * if there is none.
+     * @param targetCell The destination cell
+     * @param sourceCell The starting cell a new tree searches towards
+     * @return The tree
+     */
+    private DistanceTree getTree(int targetCell, int sourceCell) {
+        DistanceTree tree = trees.get(targetCell);
+        if (tree != null) {
+            return tree;
+        }
+        tree = trees.size() >= treeCapacity ? evictOldest() : new DistanceTree();
+        tree.start(targetCell, sourceCell);
+        trees.put(targetCell, tree);
+        return tree;
+    }
+
+    /**
+     * Removes the least recently used tree.
+     * @return The removed tree, whose arrays can be reused
+     */
+    private DistanceTree evictOldest() {
+        Iterator<DistanceTree> iterator = trees.values().iterator();
+        DistanceTree oldest = iterator.next();
+        iterator.remove();
+        return oldest;
+    }
+
+    /**
+     * Lowers the heuristic weight if an edge of a cell became cheaper than it. The keys of every
+     * tree were computed with the old weight, so all trees are dropped and built again on use.
+     * @param cell Cell index
+     * @return True if the weight was lowered
+     */
+    private boolean lowerHeuristicWeight(int cell) {
+        double cheapest = getCheapestEdge(cell);
+        if (cheapest >= heuristicWeight) {
+            return false;
+        }
+        heuristicWeight = Math.max(cheapest, 0);
+        trees.clear();
+        return true;
+    }
+
+    /**
+     * Gets the cheapest edge leaving a cell, whatever the type of its neighbours.
+     * @param cell Cell index
+     * @return The cheapest edge cost, or infinity for a missing cell or one without neighbours
+     */
+    private double getCheapestEdge(int cell) {
+        double cheapest = Double.POSITIVE_INFINITY;
+        if (map.getType(cell) == GridGraph.MISSING) {
+            return cheapest;
+        }
+        for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+            int neighbor = map.neighbor(cell, direction);
+            if (neighbor >= 0 && map.getType(neighbor) != GridGraph.MISSING) {
+                cheapest = Math.min(cheapest, pathFinder.getEdgeCost(cell, direction));
+            }
+        }
+        return cheapest;
+    }
+
+    /**
+     * Estimates the remaining cost between two cells.
+     * @param a One cell
+     * @param b The other cell
+     * @return The Manhattan distance times the cheapest edge cost
+     */
+    private double heuristic(int a, int b) {
+        return heuristicWeight * (Math.abs(map.getColumn(a) - map.getColumn(b)) + Math.abs(map.getRow(a) - map.getRow(b)));
+    }
+
+    /**
+     * The distance tree of one target. Each cell has a distance g to the target settled by the
+     * search and a one-step lookahead rhs from the distances of its neighbours; a cell whose two
+     * values differ is queued. Keys grow by the heuristic moved when the source moves, instead of
+     * recomputing the queue.
+     */
+    private class DistanceTree {
+        private static final int BYTES_PER_CELL = 40; // Two distances and the queue entry of every cell
+
+        private final double[] distances = new double[map.getCellCount()];  // g
+        private final double[] lookaheads = new double[map.getCellCount()]; // rhs
+        private final IndexedMinHeap queue = new IndexedMinHeap(map.getCellCount());
+        private int target;
+        private int source;      // The source the keys are computed for
+        private double keyShift; // Heuristic moved by the source so far, km
+
+        /**
+         * Starts the tree of a target from scratch.
+         * @param targetCell The destination cell
+         * @param sourceCell The starting cell searched towards
+         */
+        private void start(int targetCell, int sourceCell) {
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            Arrays.fill(lookaheads, Double.POSITIVE_INFINITY);
+            queue.clear();
+            target = targetCell;
+            source = sourceCell;
+            keyShift = 0;
+            lookaheads[target] = 0;
+            queue.update(target, heuristic(source, target), 0);
+        }
+
+        /**
+         * Moves the source the search heads for.
+         * @param sourceCell The new starting cell
+         */
+        private void moveSource(int sourceCell) {
+            if (sourceCell != source) {
+                keyShift += heuristic(source, sourceCell);
+                source = sourceCell;
+            }
+        }
+
+        /**
+         * Recomputes the lookahead of a cell from its neighbours and queues it if it is no longer
+         * consistent with its distance.
+         * @param cell Cell index
+         */
+        private void updateCell(int cell) {
+            if (cell != target) {
+                double best = Double.POSITIVE_INFINITY;
+                for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                    int neighbor = map.neighbor(cell, direction);
+                    if (neighbor >= 0 && map.getType(neighbor) != GridGraph.OBSTACLE
+                            && distances[neighbor] != Double.POSITIVE_INFINITY) {
+                        best = Math.min(best, pathFinder.getEdgeCost(cell, direction) + distances[neighbor]);
+                    }
+                }
+                lookaheads[cell] = best;
+            }
+            if (distances[cell] != lookaheads[cell]) {
+                double settled = Math.min(distances[cell], lookaheads[cell]);
+                queue.update(cell, settled + heuristic(source, cell) + keyShift, settled);
+            } else {
+                queue.remove(cell);
+            }
+        }
+
+        /**
+         * Settles cells until the distance of the source is final.
+         */
+        private void computeShortestPath() {
+            while (!queue.isEmpty()) {
+                double sourceSettled = Math.min(distances[source], lookaheads[source]);
+                double sourceKey = sourceSettled + keyShift;
+                boolean before = queue.peekKey() < sourceKey
+                        || queue.peekKey() == sourceKey && queue.peekTie() < sourceSettled;
+                if (!before && lookaheads[source] == distances[source]) {
+                    break;
+                }
+
+                int cell = queue.peek();
+                double settled = Math.min(distances[cell], lookaheads[cell]);
+                double key = settled + heuristic(source, cell) + keyShift;
+                expandedNodes++;
+                if (queue.peekKey() < key || queue.peekKey() == key && queue.peekTie() < settled) {
+                    queue.update(cell, key, settled); // Queued for an earlier source, key is outdated
+                } else if (distances[cell] > lookaheads[cell]) {
+                    // Distance fell: settle it and offer it to the neighbours that can enter it
+                    distances[cell] = lookaheads[cell];
+                    queue.remove(cell);
+                    updateNeighbors(cell);
+                } else {
+                    // Distance rose: forget it and let the cell and its neighbours find a new one
+                    distances[cell] = Double.POSITIVE_INFINITY;
+                    updateCell(cell);
+                    updateNeighbors(cell);
+                }
+            }
+        }
+
+        /**
+         * Updates the neighbours whose step into a cell may have changed. Nothing steps into an
+         * obstacle.
+         * @param cell Cell index
+         */
+        private void updateNeighbors(int cell) {
+            if (map.getType(cell) == GridGraph.OBSTACLE) {
+                return;
+            }
+            for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                int neighbor = map.neighbor(cell, direction);
+                if (neighbor >= 0) {
+                    updateCell(neighbor);
+                }
+            }
+        }
+
+        /**
+         * Follows the cheapest steps from a cell down to the target.
+         * @param sourceCell The starting cell, whose distance is final
+         * @return The cells of the path, or null if the target cannot be reached
+         */
+        private int[] getPath(int sourceCell) {
+            if (distances[sourceCell] == Double.POSITIVE_INFINITY) {
+                return null;
+            }
+            int[] cells = new int[16];
+            int length = 0;
+            cells[length++] = sourceCell;
+            int cell = sourceCell;
+            while (cell != target) {
+                int next = -1;
+                double best = Double.POSITIVE_INFINITY;
+                for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                    int neighbor = map.neighbor(cell, direction);
+                    if (neighbor >= 0 && map.getType(neighbor) != GridGraph.OBSTACLE) {
+                        double cost = pathFinder.getEdgeCost(cell, direction) + distances[neighbor];
+                        if (cost < best) {
+                            best = cost;
+                            next = neighbor;
+                        }
+                    }
+                }
+                if (next < 0 || length > map.getCellCount()) {
+                    return null; // Only cells off the settled tree lead nowhere
+                }
+                if (length == cells.length) {
+                    cells = Arrays.copyOf(cells, 2 * length);
+                }
+                cells[length++] = next;
+                cell = next;
+            }
+            return Arrays.copyOf(cells, length);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The EdgeCosts class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class stores the travel costs between adjacent tiles in primitive arrays, one slot per
+ * cell for its east edge and one for its south edge. Since every cost applies in both directions,
+ * the west and north edges of a cell are the east and south edges of its neighbours, so a cost
+ * is looked up by cell index and direction without building keys or boxing values.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+public class EdgeCosts {
+    private final GridGraph map;
+    private final double[] eastCosts;  // Cost between a cell and its east neighbour
+    private final double[] southCosts; // Cost between a cell and its south neighbour
+
+    /**
+     * Constructs an empty cost store for the given map. Edges without a cost are undefined.
+     * @param map The grid graph the costs belong to
+     */
+    public EdgeCosts(GridGraph map) {
+        this.map = map;
+        this.eastCosts = new double[map.getCellCount()];
+        this.southCosts = new double[map.getCellCount()];
+        Arrays.fill(eastCosts, Double.NaN);
+        Arrays.fill(southCosts, Double.NaN);
+    }
+
+    /**
+     * Sets the travel cost between two adjacent tiles, in both directions.
+     * @param x1 Column of the first tile
+     * @param y1 Row of the first tile
+     * @param x2 Column of the second tile
+     * @param y2 Row of the second tile
+     * @param cost Travel cost between the tiles
+     * @return True if the cost was stored, false if the tiles are not adjacent cells of the map
+     */
+    public boolean setCost(int x1, int y1, int x2, int y2, double cost) {
+        if (!map.contains(x1, y1) || !map.contains(x2, y2)) {
+            return false;
+        }
+        int direction = direction(x1, y1, x2, y2);
+        if (direction < 0) {
+            return false;
+        }
+        setCost(map.index(x1, y1), direction, cost);
+        return true;
+    }
+
+    /**
+     * Sets the travel cost of the edge leaving a cell in the given direction.
+     * @param cell Cell index
+     * @param direction One of GridGraph.WEST, EAST, NORTH or SOUTH
+     * @param cost Travel cost of the edge
+     */
+    public void setCost(int cell, int direction, double cost) {
+        switch (direction) {
+            case GridGraph.WEST:
+                eastCosts[cell - 1] = cost;
+                break;
+            case GridGraph.EAST:
+                eastCosts[cell] = cost;
+                break;
+            case GridGraph.NORTH:
+                southCosts[cell - map.getColumns()] = cost;
+                break;
+            default:
+                southCosts[cell] = cost;
+                break;
+        }
+    }
+
+    /**
+     * Gets the travel cost of the edge leaving a cell in the given direction.
+     * The neighbour in that direction must exist.
+     * @param cell Cell index
+     * @param direction One of GridGraph.WEST, EAST, NORTH or SOUTH
+     * @return Travel cost of the edge, or NaN if no cost was given for it
+     */
+    public double getCost(int cell, int direction) {
+        switch (direction) {
+            case GridGraph.WEST:
+                return eastCosts[cell - 1];
+            case GridGraph.EAST:
+                return eastCosts[cell];
+            case GridGraph.NORTH:
+                return southCosts[cell - map.getColumns()];
+            default:
+                return southCosts[cell];
+        }
+    }
+
+    /**
+     * Gets the cost of a single step of a path, as written to the output files.
+     * @param from The tile the step starts from
+     * @param to The tile the step ends on
+     * @return Travel cost of the step, or 0 if no cost was given for it
+     */
+    public double getStepCost(Tile from, Tile to) {
+        int direction = direction(from.getColumn(), from.getRow(), to.getColumn(), to.getRow());
+        if (direction < 0) {
+            return 0;
+        }
+        double cost = getCost(map.index(from), direction);
+        return Double.isNaN(cost) ? 0 : cost;
+    }
+
+    /**
+     * Gets the direction leading from one tile to an adjacent one.
+     * @param x1 Column of the first tile
+     * @param y1 Row of the first tile
+     * @param x2 Column of the second tile
+     * @param y2 Row of the second tile
+     * @return The direction, or -1 if the tiles are not adjacent
+     */
+    private static int direction(int x1, int y1, int x2, int y2) {
+        if (y1 == y2) {
+            if (x2 == x1 - 1) return GridGraph.WEST;
+            if (x2 == x1 + 1) return GridGraph.EAST;
+        } else if (x1 == x2) {
+            if (y2 == y1 - 1) return GridGraph.NORTH;
+            if (y2 == y1 + 1) return GridGraph.SOUTH;
+        }
+        return -1;
+    }
+
+    /**
+     * Copies the east and south costs of a range of cells, in cell order, into two buffers that
+     * have the same space left. Undefined costs are written as NaN.
+     * @param firstCell The first cell of the range
+     * @param eastBuffer Buffer for the east costs, filled up to its limit
+     * @param southBuffer Buffer for the south costs, filled up to its limit
+     */
+    public void writeCosts(int firstCell, DoubleBuffer eastBuffer, DoubleBuffer southBuffer) {
+        eastBuffer.put(eastCosts, firstCell, eastBuffer.remaining());
+        southBuffer.put(southCosts, firstCell, southBuffer.remaining());
+    }
+
+    /**
+     * Replaces the costs of a range of cells with the east and south costs read from two buffers
+     * that have the same number of costs left.
+     * @param firstCell The first cell of the range
+     * @param eastBuffer Buffer of east costs, read up to its limit
+     * @param southBuffer Buffer of south costs, read up to its limit
+     */
+    public void readCosts(int firstCell, DoubleBuffer eastBuffer, DoubleBuffer southBuffer) {
+        eastBuffer.get(eastCosts, firstCell, eastBuffer.remaining());
+        southBuffer.get(southCosts, firstCell, southBuffer.remaining());
+    }
+}
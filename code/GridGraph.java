@@ -0,0 +1,244 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The GridGraph class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class stores the game map as a flat terrain array indexed by {@code row * columns + column}.
+ * Adjacency between tiles is computed on the fly from the cell index, so no per-tile objects
+ * are kept in memory. Tiles are only created when a path is handed back to the caller.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class GridGraph {
+    public static final byte GRASS = 0;
+    public static final byte SAND = 1;
+    public static final byte OBSTACLE = 2;
+    public static final byte MISSING = -1; // Cell not listed in the map file
+
+    // Directions in the order the neighbours are visited
+    public static final int WEST = 0;
+    public static final int EAST = 1;
+    public static final int NORTH = 2;
+    public static final int SOUTH = 3;
+    public static final int DIRECTIONS = 4;
+
+    private final int columns;
+    private final int rows;
+    private final byte[] terrain;
+
+    /**
+     * Constructs an empty grid where every cell is missing until its type is set.
+     * @param columns Number of columns in the map
+     * @param rows Number of rows in the map
+     */
+    public GridGraph(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        this.terrain = new byte[columns * rows];
+        Arrays.fill(terrain, MISSING);
+    }
+
+    /**
+     * Gets the number of columns in the map.
+     * @return Number of columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the number of rows in the map.
+     * @return Number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the total number of cells in the map.
+     * @return Number of cells
+     */
+    public int getCellCount() {
+        return terrain.length;
+    }
+
+    /**
+     * Converts a column and row to a cell index.
+     * @param column Column number
+     * @param row Row number
+     * @return Cell index
+     */
+    public int index(int column, int row) {
+        return row * columns + column;
+    }
+
+    /**
+     * Converts a tile to its cell index.
+     * @param tile The tile
+     * @return Cell index
+     */
+    public int index(Tile tile) {
+        return index(tile.getColumn(), tile.getRow());
+    }
+
+    /**
+     * Gets the column of a cell.
+     * @param cell Cell index
+     * @return Column number
+     */
+    public int getColumn(int cell) {
+        return cell % columns;
+    }
+
+    /**
+     * Gets the row of a cell.
+     * @param cell Cell index
+     * @return Row number
+     */
+    public int getRow(int cell) {
+        return cell / columns;
+    }
+
+    /**
+     * Checks if the given coordinates are inside the map.
+     * @param column Column number
+     * @param row Row number
+     * @return True if inside the map, false otherwise
+     */
+    public boolean contains(int column, int row) {
+        return column >= 0 && column < columns && row >= 0 && row < rows;
+    }
+
+    /**
+     * Gets the type of a cell.
+     * @param cell Cell index
+     * @return Type of the cell (0: Grass, 1: Sand, 2: Obstacle, -1: Missing)
+     */
+    public int getType(int cell) {
+        return terrain[cell];
+    }
+
+    /**
+     * Gets the type of the cell at the given coordinates.
+     * @param column Column number
+     * @param row Row number
+     * @return Type of the cell (0: Grass, 1: Sand, 2: Obstacle, -1: Missing)
+     */
+    public int getType(int column, int row) {
+        return terrain[index(column, row)];
+    }
+
+    /**
+     * Sets the type of the cell at the given coordinates.
+     * @param column Column number
+     * @param row Row number
+     * @param type Type of the cell (0: Grass, 1: Sand, 2: Obstacle)
+     */
+    public void setType(int column, int row, int type) {
+        terrain[index(column, row)] = (byte) type;
+    }
+
+    /**
+     * Checks if a cell can be entered by the knight.
+     * @param cell Cell index
+     * @return True if the cell exists and is not an obstacle
+     */
+    public boolean isPassable(int cell) {
+        byte type = terrain[cell];
+        return type != OBSTACLE && type != MISSING;
+    }
+
+    /**
+     * Gets the neighbouring cell in the given direction.
+     * @param cell Cell index
+     * @param direction One of WEST, EAST, NORTH or SOUTH
+     * @return Index of the neighbour, or -1 if it is outside the map or missing
+     */
+    public int neighbor(int cell, int direction) {
+        int next;
+        switch (direction) {
+            case WEST:
+                if (cell % columns == 0) return -1;
+                next = cell - 1;
+                break;
+            case EAST:
+                if (cell % columns == columns - 1) return -1;
+                next = cell + 1;
+                break;
+            case NORTH:
+                if (cell < columns) return -1;
+                next = cell - columns;
+                break;
+            default:
+                if (cell >= terrain.length - columns) return -1;
+                next = cell + columns;
+                break;
+        }
+        return terrain[next] == MISSING ? -1 : next;
+    }
+
+    /**
+     * Gets the direction of the move between two adjacent cells.
+     * @param from The cell moved from
+     * @param to The cell moved to
+     * @return The direction, one of WEST, EAST, NORTH or SOUTH
+     */
+    public int direction(int from, int to) {
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            if (neighbor(from, direction) == to) {
+                return direction;
+            }
+        }
+        throw new IllegalArgumentException("Cells " + from + " and " + to + " are not adjacent");
+    }
+
+    /**
+     * Gets the direction opposite to the given one.
+     * @param direction One of WEST, EAST, NORTH or SOUTH
+     * @return The opposite direction
+     */
+    public static int opposite(int direction) {
+        return direction ^ 1;
+    }
+
+    /**
+     * Creates a Tile object for a cell.
+     * @param cell Cell index
+     * @return A new Tile at the cell's position
+     */
+    public Tile toTile(int cell) {
+        return new Tile(getColumn(cell), getRow(cell), terrain[cell]);
+    }
+
+    /**
+     * Creates a Tile object for the given coordinates.
+     * @param column Column number
+     * @param row Row number
+     * @return A new Tile at the given position
+     */
+    public Tile getTile(int column, int row) {
+        return new Tile(column, row, getType(column, row));
+    }
+
+    /**
+     * Copies the terrain of every cell, in cell order, into a buffer.
+     * @param buffer Buffer with at least getCellCount() bytes remaining
+     */
+    public void writeTerrain(ByteBuffer buffer) {
+        buffer.put(terrain);
+    }
+
+    /**
+     * Replaces the terrain of every cell, in cell order, with the bytes from a buffer.
+     * @param buffer Buffer with at least getCellCount() bytes remaining
+     */
+    public void readTerrain(ByteBuffer buffer) {
+        buffer.get(terrain);
+    }
+}
@@ -0,0 +1,335 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The HeldKarpSolver class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class finds the exact shortest tour that starts at the source, visits every objective
+ * once and returns to the source, using the Held-Karp dynamic program over subsets of objectives.
+ * The source is always the first node of the tour, so it is left out of the subset masks, which
+ * halves the tables. The tables are flat arrays indexed by {@code mask * n + last}, parents are
+ * stored in a byte each, and costs can optionally be stored as floats to halve them again.
+ * A mask only depends on the masks with one objective less, so the masks of each size can also
+ * be computed in parallel on a fork-join pool, giving the same tour as the sequential solve.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class HeldKarpSolver {
+    // Largest number of objectives whose tables still fit in a Java array
+    public static final int MAX_OBJECTIVES = 26;
+    // Smallest number of masks a parallel task splits further
+    private static final int MIN_TASK_MASKS = 2048;
+
+    private final double[][] costs; // costs[i][j] between nodes, node 0 is the source
+    private final int n;            // Number of objectives
+    private boolean floatCosts = false;
+
+    private double[] doubleTable; // Cheapest path cost per (mask, last), when stored as doubles
+    private float[] floatTable;   // Cheapest path cost per (mask, last), when stored as floats
+    private byte[] parents;       // Objective visited before last, -1 for the source
+
+    /**
+     * Constructs a solver for the given cost matrix.
+     * @param costs Matrix of path costs between nodes, where node 0 is the source
+     */
+    public HeldKarpSolver(double[][] costs) {
+        this.costs = costs;
+        this.n = costs.length - 1;
+        if (n > MAX_OBJECTIVES) {
+            throw new IllegalArgumentException("Too many objectives for an exact solve: " + n);
+        }
+    }
+
+    /**
+     * Sets whether the table of path costs is stored as floats instead of doubles.
+     * Floats halve the memory, but near-ties between tours may be decided differently.
+     * @param floatCosts True to store costs as floats
+     */
+    public void setFloatCosts(boolean floatCosts) {
+        this.floatCosts = floatCosts;
+    }
+
+    /**
+     * Estimates the memory the tables take for a number of objectives.
+     * @param objectives Number of objectives
+     * @param floatCosts True if costs are stored as floats
+     * @return Size of the tables in bytes
+     */
+    public static long estimateBytes(int objectives, boolean floatCosts) {
+        long states = (1L << objectives) * objectives;
+        return states * ((floatCosts ? 4 : 8) + 1);
+    }
+
+    /**
+     * Finds the shortest tour through all objectives.
+     * @return Node indices of the tour, starting with 0 and without the final return to 0,
+     *         or null if no tour exists
+     */
+    public int[] solve() {
+        return solve(null);
+    }
+
+    /**
+     * Finds the shortest tour through all objectives, computing the masks of each size in parallel.
+     * @param pool The pool to run on, or null to solve on the calling thread
+     * @return Node indices of the tour, starting with 0 and without the final return to 0,
+     *         or null if no tour exists
+     */
+    public int[] solve(ForkJoinPool pool) {
+        if (n == 0) {
+            return new int[] {0};
+        }
+
+        // Every objective must be reachable from the source and able to return, or no tour exists
+        for (int j = 1; j <= n; j++) {
+            if (costs[0][j] == Double.POSITIVE_INFINITY || costs[j][0] == Double.POSITIVE_INFINITY) {
+                return null;
+            }
+        }
+
+        int size = (1 << n) * n;
+        parents = new byte[size];
+        if (floatCosts) {
+            floatTable = new float[size];
+            Arrays.fill(floatTable, Float.POSITIVE_INFINITY);
+        } else {
+            doubleTable = new double[size];
+            Arrays.fill(doubleTable, Double.POSITIVE_INFINITY);
+        }
+
+        if (pool == null) {
+            // Masks only depend on smaller masks, so increasing order is enough
+            for (int mask = 1; mask < (1 << n); mask++) {
+                computeMask(mask);
+            }
+        } else {
+            // Each size only reads the one before it, so a size is finished before the next starts
+            long[][] binomials = binomials(n);
+            for (int objectives = 1; objectives <= n; objectives++) {
+                pool.invoke(new LayerTask(objectives, 0, binomials[n][objectives], binomials));
+            }
+        }
+
+        int[] tour = reconstruct();
+        doubleTable = null;
+        floatTable = null;
+        parents = null;
+        return tour;
+    }
+
+    /**
+     * Computes Pascal's triangle up to the given number of objectives.
+     * @param n Number of objectives
+     * @return Table where binomials[i][k] is the number of ways to pick k of i objectives
+     */
+    private static long[][] binomials(int n) {
+        long[][] binomials = new long[n + 1][n + 1];
+        for (int i = 0; i <= n; i++) {
+            binomials[i][0] = 1;
+            for (int k = 1; k <= i; k++) {
+                binomials[i][k] = binomials[i - 1][k - 1] + (k < i ? binomials[i - 1][k] : 0);
+            }
+        }
+        return binomials;
+    }
+
+    /**
+     * Finds the mask at a position in the increasing order of masks with the same size,
+     * which is the order Gosper's hack enumerates them in.
+     * @param rank Position of the mask among masks of its size
+     * @param size Number of objectives in the mask
+     * @param binomials Pascal's triangle
+     * @return The mask
+     */
+    private static int unrank(long rank, int size, long[][] binomials) {
+        int mask = 0;
+        int bit = binomials.length - 1;
+        for (int k = size; k >= 1; k--) {
+            // The highest remaining bit is the largest one with at most rank masks below it
+            while (binomials[bit][k] > rank) {
+                bit--;
+            }
+            mask |= 1 << bit;
+            rank -= binomials[bit][k];
+        }
+        return mask;
+    }
+
+    /**
+     * Gets the next larger mask with the same number of objectives (Gosper's hack).
+     * @param mask Current mask, not zero
+     * @return The next mask
+     */
+    private static int nextMask(int mask) {
+        int lowest = mask & -mask;
+        int ripple = mask + lowest;
+        return ripple | (((mask ^ ripple) >>> 2) / lowest);
+    }
+
+    /**
+     * A range of masks of one size, split in half until it is small enough to compute directly.
+     */
+    private class LayerTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int size;   // Number of objectives in every mask of the range
+        private final long from;  // Rank of the first mask
+        private final long to;    // Rank after the last mask
+        private final long[][] binomials;
+
+        /**
+         * Constructs a task for the masks of one size with ranks in [from, to).
+         * @param size Number of objectives in every mask
+         * @param from Rank of the first mask
+         * @param to Rank after the last mask
+         * @param binomials Pascal's triangle
+         */
+        LayerTask(int size, long from, long to, long[][] binomials) {
+            this.size = size;
+            this.from = from;
+            this.to = to;
+            this.binomials = binomials;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > MIN_TASK_MASKS) {
+                long middle = (from + to) >>> 1;
+                invokeAll(new LayerTask(size, from, middle, binomials),
+                        new LayerTask(size, middle, to, binomials));
+                return;
+            }
+            int mask = unrank(from, size, binomials);
+            for (long rank = from; rank < to; rank++) {
+                computeMask(mask);
+                if (rank + 1 < to) {
+                    mask = nextMask(mask);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the cheapest path from the source through every objective in a mask, for each
+     * possible last objective. Only reads masks with one objective less.
+     * @param mask Set of visited objectives, bit k for objective k + 1
+     */
+    private void computeMask(int mask) {
+        if (floatCosts) {
+            computeMaskFloat(mask);
+        } else {
+            computeMaskDouble(mask);
+        }
+    }
+
+    /**
+     * Computes one mask with costs stored as doubles.
+     * @param mask Set of visited objectives
+     */
+    private void computeMaskDouble(int mask) {
+        for (int remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            int last = Integer.numberOfTrailingZeros(remaining);
+            int previousMask = mask ^ (1 << last);
+            int index = mask * n + last;
+
+            // A single objective is reached straight from the source
+            if (previousMask == 0) {
+                doubleTable[index] = costs[0][last + 1];
+                parents[index] = -1;
+                continue;
+            }
+
+            // Taking the first cheapest previous objective keeps ties in a fixed order
+            double best = Double.POSITIVE_INFINITY;
+            int bestPrevious = -1;
+            for (int candidates = previousMask; candidates != 0; candidates &= candidates - 1) {
+                int previous = Integer.numberOfTrailingZeros(candidates);
+                double pathCost = doubleTable[previousMask * n + previous];
+                double step = costs[previous + 1][last + 1];
+                if (pathCost == Double.POSITIVE_INFINITY || step == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                if (pathCost + step < best) {
+                    best = pathCost + step;
+                    bestPrevious = previous;
+                }
+            }
+            doubleTable[index] = best;
+            parents[index] = (byte) bestPrevious;
+        }
+    }
+
+    /**
+     * Computes one mask with costs stored as floats.
+     * @param mask Set of visited objectives
+     */
+    private void computeMaskFloat(int mask) {
+        for (int remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            int last = Integer.numberOfTrailingZeros(remaining);
+            int previousMask = mask ^ (1 << last);
+            int index = mask * n + last;
+
+            if (previousMask == 0) {
+                floatTable[index] = (float) costs[0][last + 1];
+                parents[index] = -1;
+                continue;
+            }
+
+            float best = Float.POSITIVE_INFINITY;
+            int bestPrevious = -1;
+            for (int candidates = previousMask; candidates != 0; candidates &= candidates - 1) {
+                int previous = Integer.numberOfTrailingZeros(candidates);
+                float pathCost = floatTable[previousMask * n + previous];
+                double step = costs[previous + 1][last + 1];
+                if (pathCost == Float.POSITIVE_INFINITY || step == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                float total = pathCost + (float) step;
+                if (total < best) {
+                    best = total;
+                    bestPrevious = previous;
+                }
+            }
+            floatTable[index] = best;
+            parents[index] = (byte) bestPrevious;
+        }
+    }
+
+    /**
+     * Picks the cheapest way to return to the source and follows the parents back.
+     * @return Node indices of the tour, or null if no tour exists
+     */
+    private int[] reconstruct() {
+        int fullMask = (1 << n) - 1;
+        double minCost = Double.POSITIVE_INFINITY;
+        int lastObjective = -1;
+        for (int last = 0; last < n; last++) {
+            double pathCost = floatCosts ? floatTable[fullMask * n + last] : doubleTable[fullMask * n + last];
+            double tourCost = pathCost + costs[last + 1][0];
+            if (tourCost < minCost) {
+                minCost = tourCost;
+                lastObjective = last;
+            }
+        }
+        if (lastObjective == -1) {
+            return null; // No valid tour exists
+        }
+
+        int[] tour = new int[n + 1];
+        int mask = fullMask;
+        int current = lastObjective;
+        for (int position = n; position >= 1; position--) {
+            tour[position] = current + 1;
+            int previous = parents[mask * n + current];
+            mask ^= 1 << current;
+            current = previous;
+        }
+        tour[0] = 0;
+        return tour;
+    }
+}
@@ -0,0 +1,285 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The HeuristicTourSolver class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class finds a short tour through many objectives when an exact solve would take too long.
+ * It builds a tour by always walking to the nearest unvisited node, then improves it with 2-opt
+ * moves (reversing a stretch of the tour) and Or-opt moves (moving a run of up to three nodes
+ * elsewhere) until no move helps. While time is left, the best tour is perturbed with a random
+ * double-bridge move and improved again, keeping the result if it is shorter. The tour is not
+ * guaranteed to be optimal; OneTreeBound gives a lower bound to measure how far from optimal it can be.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.util.Random;
+
+public class HeuristicTourSolver {
+    // Improvements smaller than this are treated as rounding noise
+    private static final double EPSILON = 1e-9;
+    // Longest run of nodes an Or-opt move relocates
+    private static final int MAX_SEGMENT = 3;
+    // Unsuccessful kicks in a row, per node, after which the search stops early
+    private static final int KICKS_PER_NODE = 20;
+
+    private final double[][] costs; // costs[i][j] between nodes, node 0 is the source
+    private final int count;        // Number of nodes, including the source
+    private long timeBudgetMillis = 1000;
+    private long deadline;
+
+    /**
+     * Constructs a solver for the given cost matrix. Costs must be symmetric.
+     * @param costs Matrix of path costs between nodes, where node 0 is the source
+     */
+    public HeuristicTourSolver(double[][] costs) {
+        this.costs = costs;
+        this.count = costs.length;
+    }
+
+    /**
+     * Sets how long the local search may run. The first tour is always built in full, and the
+     * rest of the budget is spent looking for better tours until they stop turning up.
+     * @param timeBudgetMillis Time budget in milliseconds
+     */
+    public void setTimeBudget(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Finds a short tour through all nodes.
+     * @return Node indices of the tour, starting with 0 and without the final return to 0,
+     *         or null if some node cannot be reached from another
+     */
+    public int[] solve() {
+        return solve(null);
+    }
+
+    /**
+     * Finds a short tour through all nodes, starting the local search from a given tour, such as
+     * one that just had a node inserted, instead of the nearest neighbour tour.
+     * @param tour Node indices of the first tour, starting with 0, or null to build one
+     * @return Node indices of the tour, starting with 0 and without the final return to 0,
+     *         or null if some node cannot be reached from another
+     */
+    public int[] solve(int[] tour) {
+        deadline = System.nanoTime() + timeBudgetMillis * 1_000_000;
+
+        // With shortest path costs, a tour exists exactly when every pair is connected
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < count; j++) {
+                if (i != j && costs[i][j] == Double.POSITIVE_INFINITY) {
+                    return null;
+                }
+            }
+        }
+
+        int[] best = tour == null ? nearestNeighbourTour() : tour.clone();
+        improve(best);
+        double bestCost = tourCost(costs, best);
+
+        // Kick the best tour out of its local optimum while the budget lasts,
+        // giving up once many kicks in a row found nothing better
+        Random random = new Random(count);
+        int failedKicks = 0;
+        while (count >= 8 && failedKicks < count * KICKS_PER_NODE && !isTimeUp()) {
+            int[] kicked = doubleBridge(best, random);
+            improve(kicked);
+            double cost = tourCost(costs, kicked);
+            if (cost < bestCost - EPSILON) {
+                best = kicked;
+                bestCost = cost;
+                failedKicks = 0;
+            } else {
+                failedKicks++;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Applies 2-opt and Or-opt moves until none shortens the tour or the time is up.
+     * @param tour Node indices of the tour, changed in place
+     */
+    private void improve(int[] tour) {
+        boolean improved = true;
+        while (improved && !isTimeUp()) {
+            improved = improveTwoOpt(tour);
+            improved |= improveOrOpt(tour);
+        }
+    }
+
+    /**
+     * Cuts the tour after the source into four parts A B C D and reconnects them as A C B D.
+     * Local search cannot undo this move in a single step, so it leads to a different local optimum.
+     * @param tour Node indices of the tour
+     * @param random Random number generator picking the cut points
+     * @return The perturbed tour
+     */
+    private int[] doubleBridge(int[] tour, Random random) {
+        int first = 1 + random.nextInt(count - 3);
+        int second = first + 1 + random.nextInt(count - first - 2);
+        int third = second + 1 + random.nextInt(count - second - 1);
+        int[] result = new int[count];
+        int size = 0;
+        for (int i = 0; i < first; i++) result[size++] = tour[i];
+        for (int i = second; i < third; i++) result[size++] = tour[i];
+        for (int i = first; i < second; i++) result[size++] = tour[i];
+        for (int i = third; i < count; i++) result[size++] = tour[i];
+        return result;
+    }
+
+    /**
+     * Computes the cost of a tour, including the return to its first node.
+     * @param costs Matrix of path costs between nodes
+     * @param tour Node indices of the tour
+     * @return Total cost of the tour
+     */
+    public static double tourCost(double[][] costs, int[] tour) {
+        double total = 0;
+        for (int i = 0; i < tour.length; i++) {
+            total += costs[tour[i]][tour[(i + 1) % tour.length]];
+        }
+        return total;
+    }
+
+    /**
+     * Builds a tour from the source by always moving to the nearest unvisited node.
+     * @return Node indices of the tour
+     */
+    private int[] nearestNeighbourTour() {
+        int[] tour = new int[count];
+        boolean[] visited = new boolean[count];
+        visited[0] = true;
+        for (int position = 1; position < count; position++) {
+            int last = tour[position - 1];
+            int nearest = -1;
+            for (int node = 1; node < count; node++) {
+                if (!visited[node] && (nearest == -1 || costs[last][node] < costs[last][nearest])) {
+                    nearest = node;
+                }
+            }
+            tour[position] = nearest;
+            visited[nearest] = true;
+        }
+        return tour;
+    }
+
+    /**
+     * Applies every 2-opt move that shortens the tour in one pass. A move replaces the edges
+     * (a, b) and (c, d) with (a, c) and (b, d) by reversing the stretch from b to c.
+     * The source stays at the front, since the stretch never includes position 0.
+     * @param tour Node indices of the tour, changed in place
+     * @return True if the tour was improved
+     */
+    private boolean improveTwoOpt(int[] tour) {
+        boolean improved = false;
+        for (int i = 1; i < count - 1 && !isTimeUp(); i++) {
+            for (int j = i + 1; j < count; j++) {
+                int a = tour[i - 1];
+                int b = tour[i];
+                int c = tour[j];
+                int d = tour[(j + 1) % count];
+                double delta = costs[a][c] + costs[b][d] - costs[a][b] - costs[c][d];
+                if (delta < -EPSILON) {
+                    reverse(tour, i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Applies every Or-opt move that shortens the tour in one pass. A move takes a run of one to
+     * three nodes out of the tour and puts it, in either direction, between two other neighbours.
+     * @param tour Node indices of the tour, changed in place
+     * @return True if the tour was improved
+     */
+    private boolean improveOrOpt(int[] tour) {
+        boolean improved = false;
+        for (int length = 1; length <= MAX_SEGMENT; length++) {
+            for (int i = 1; i + length <= count && !isTimeUp(); i++) {
+                int end = i + length - 1;
+                int first = tour[i];
+                int last = tour[end];
+                int before = tour[i - 1];
+                int after = tour[(end + 1) % count];
+                double removeGain = costs[before][first] + costs[last][after] - costs[before][after];
+
+                for (int k = 0; k < count; k++) {
+                    // The new neighbours must be an edge outside the run and not the one it left
+                    if (k >= i - 1 && k <= end) {
+                        continue;
+                    }
+                    int x = tour[k];
+                    int y = tour[(k + 1) % count];
+                    double forward = costs[x][first] + costs[last][y];
+                    double backward = costs[x][last] + costs[first][y];
+                    double insertCost = Math.min(forward, backward) - costs[x][y];
+                    if (insertCost - removeGain < -EPSILON) {
+                        moveSegment(tour, i, end, k, backward < forward);
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Moves the nodes at positions [from, to] so they follow the node at position after.
+     * @param tour Node indices of the tour, changed in place
+     * @param from First position of the run
+     * @param to Last position of the run
+     * @param after Position of the node the run is placed after, outside [from - 1, to]
+     * @param reversed True to insert the run in reverse order
+     */
+    private void moveSegment(int[] tour, int from, int to, int after, boolean reversed) {
+        int length = to - from + 1;
+        int[] segment = new int[length];
+        for (int i = 0; i < length; i++) {
+            segment[i] = tour[reversed ? to - i : from + i];
+        }
+
+        int[] result = new int[count];
+        int size = 0;
+        for (int position = 0; position < count; position++) {
+            if (position >= from && position <= to) {
+                continue;
+            }
+            result[size++] = tour[position];
+            if (position == after) {
+                for (int node : segment) {
+                    result[size++] = node;
+                }
+            }
+        }
+        System.arraycopy(result, 0, tour, 0, count);
+    }
+
+    /**
+     * Reverses the nodes at positions [from, to].
+     * @param tour Node indices of the tour, changed in place
+     * @param from First position
+     * @param to Last position
+     */
+    private static void reverse(int[] tour, int from, int to) {
+        while (from < to) {
+            int node = tour[from];
+            tour[from++] = tour[to];
+            tour[to--] = node;
+        }
+    }
+
+    /**
+     * Checks if the time budget has run out.
+     * @return True if the local search must stop
+     */
+    private boolean isTimeUp() {
+        return System.nanoTime() - deadline > 0;
+    }
+}
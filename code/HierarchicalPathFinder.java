@@ -0,0 +1,792 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The HierarchicalPathFinder class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class finds paths on very large maps without searching them at full resolution
+ * (hierarchical path-finding A*, HPA*). The map is split into square chunks. Wherever a stretch
+ * of open cells crosses the border between two chunks it becomes an entrance, with a node on
+ * each side at its middle, or at both of its ends if it is long. Inside every chunk the cost
+ * between each pair of its nodes is found once by a search limited to the chunk. A query
+ * connects its ends to the nodes of their chunks, searches this abstract graph, and then
+ * refines the result into cells in one of two ways:
+ * </p>
+ * <ul>
+ * <li>near-optimal: every step of the abstract path is searched inside its own chunk and the
+ * pieces are joined, so the path costs exactly what the abstract search found;</li>
+ * <li>exact: one search runs over all chunks the abstract path passes through, which gives the
+ * cheapest path inside that corridor and removes the detours through entrance nodes.</li>
+ * </ul>
+ * <p>
+ * Both ways return a path if and only if one exists. Neither is guaranteed optimal, since the
+ * cheapest path may leave the corridor. Searches inside chunks number their cells by the slot
+ * of their chunk in a window of chunks, so a query needs memory for the chunks it touches,
+ * not for the whole map.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class HierarchicalPathFinder {
+    public static final int DEFAULT_CHUNK_SIZE = 32;
+    private static final int LONG_ENTRANCE = 6; // Entrances this long get a node at both ends
+
+    private final GridGraph map;
+    private final PathFinder pathFinder; // Gives the edge costs of the map
+    private final int chunkSize;
+    private final int chunkColumns;
+    private final int chunkRows;
+
+    // Abstract graph: the nodes of every chunk are numbered together
+    private final int[] firstNode;   // First node of every chunk, and the number of nodes at the end
+    private final int[] nodeCells;   // Cell of every node
+    private final int[] firstEdge;   // First edge of every node, and the number of edges at the end
+    private final int[] edgeTargets;
+    private final double[] edgeWeights;
+    private final int maxChunkNodes; // Most nodes of any chunk
+
+    private volatile boolean exactRefinement;
+
+    // Every thread queries with its own workspace
+    private final ThreadLocal<Workspace> workspaces;
+
+    /**
+     * Constructs a hierarchical path finder, finding the entrances of every chunk and the costs
+     * between them.
+     * @param map The grid graph of the map
+     * @param travelCosts The travel costs of the map
+     * @param chunkSize Width and height of a chunk in cells
+     */
+    public HierarchicalPathFinder(GridGraph map, EdgeCosts travelCosts, int chunkSize) {
+        if (chunkSize < 2) {
+            throw new IllegalArgumentException("Chunk size must be at least 2, got " + chunkSize);
+        }
+        this.map = map;
+        this.pathFinder = new PathFinder(map, travelCosts);
+        this.chunkSize = chunkSize;
+        this.chunkColumns = (map.getColumns() + chunkSize - 1) / chunkSize;
+        this.chunkRows = (map.getRows() + chunkSize - 1) / chunkSize;
+        int chunkCount = chunkColumns * chunkRows;
+
+        // Entrances between every chunk and its east and south neighbours
+        int[][] entrances = new int[chunkCount][];
+        int[] entranceCounts = new int[chunkCount];
+        IntList crossings = new IntList(); // Pairs of cells on both sides of an entrance
+        for (int chunkRow = 0; chunkRow < chunkRows; chunkRow++) {
+            for (int chunkColumn = 0; chunkColumn < chunkColumns; chunkColumn++) {
+                int left = chunkColumn * chunkSize;
+                int top = chunkRow * chunkSize;
+                int right = Math.min(map.getColumns(), left + chunkSize) - 1;
+                int bottom = Math.min(map.getRows(), top + chunkSize) - 1;
+                if (chunkColumn + 1 < chunkColumns) {
+                    findEntrances(map.index(right, top), map.getColumns(), bottom - top + 1, GridGraph.EAST,
+                            entrances, entranceCounts, crossings);
+                }
+                if (chunkRow + 1 < chunkRows) {
+                    findEntrances(map.index(left, bottom), 1, right - left + 1, GridGraph.SOUTH,
+                            entrances, entranceCounts, crossings);
+                }
+            }
+        }
+
+        // Number the nodes chunk by chunk
+        this.firstNode = new int[chunkCount + 1];
+        int largest = 0;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            firstNode[chunk + 1] = firstNode[chunk] + entranceCounts[chunk];
+            largest = Math.max(largest, entranceCounts[chunk]);
+        }
+        this.maxChunkNodes = largest;
+        this.nodeCells = new int[firstNode[chunkCount]];
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            if (entranceCounts[chunk] > 0) {
+                System.arraycopy(entrances[chunk], 0, nodeCells, firstNode[chunk], entranceCounts[chunk]);
+            }
+        }
+        int nodeCount = nodeCells.length;
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace(nodeCount, chunkCount, maxChunkNodes));
+
+        // Edges across entrances, then between the nodes of every chunk
+        IntList sources = new IntList();
+        IntList targets = new IntList();
+        DoubleList weights = new DoubleList();
+        for (int i = 0; i < crossings.size(); i += 2) {
+            int a = findNode(crossings.get(i));
+            int b = findNode(crossings.get(i + 1));
+            double cost = pathFinder.getEdgeCost(crossings.get(i), map.direction(crossings.get(i), crossings.get(i + 1)));
+            addEdges(sources, targets, weights, a, b, cost);
+        }
+        Workspace workspace = workspaces.get();
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            workspace.clearWindow();
+            workspace.addChunk(chunk);
+            for (int a = firstNode[chunk]; a < firstNode[chunk + 1]; a++) {
+                searchWindow(workspace, nodeCells[a], -1);
+                for (int b = a + 1; b < firstNode[chunk + 1]; b++) {
+                    double cost = workspace.getDistance(nodeCells[b]);
+                    if (cost != Double.POSITIVE_INFINITY) {
+                        addEdges(sources, targets, weights, a, b, cost);
+                    }
+                }
+            }
+        }
+        workspace.clearWindow();
+
+        // Group the edges by their source node
+        this.firstEdge = new int[nodeCount + 1];
+        for (int i = 0; i < sources.size(); i++) {
+            firstEdge[sources.get(i) + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            firstEdge[node + 1] += firstEdge[node];
+        }
+        int[] next = Arrays.copyOf(firstEdge, nodeCount);
+        this.edgeTargets = new int[sources.size()];
+        this.edgeWeights = new double[sources.size()];
+        for (int i = 0; i < sources.size(); i++) {
+            int edge = next[sources.get(i)]++;
+            edgeTargets[edge] = targets.get(i);
+            edgeWeights[edge] = weights.get(i);
+        }
+    }
+
+    /**
+     * Finds the entrances along one border of a chunk: every stretch of cells that can be entered
+     * on both sides of the border.
+     * @param firstCell The first cell of the border on the chunk's side
+     * @param stride Index difference between consecutive cells along the border
+     * @param length Number of cells along the border
+     * @param direction Direction across the border, EAST or SOUTH
+     * @param entrances Entrance cells of every chunk, grown as needed
+     * @param entranceCounts Number of entrance cells of every chunk
+     * @param crossings Receives the pairs of cells on both sides of every entrance
+     */
+    private void findEntrances(int firstCell, int stride, int length, int direction,
+                               int[][] entrances, int[] entranceCounts, IntList crossings) {
+        int start = -1; // First position of the current stretch, -1 outside one
+        for (int i = 0; i <= length; i++) {
+            boolean open = false;
+            if (i < length) {
+                int cell = firstCell + i * stride;
+                int neighbor = map.neighbor(cell, direction);
+                open = map.isPassable(cell) && neighbor >= 0 && map.isPassable(neighbor);
+            }
+            if (open && start < 0) {
+                start = i;
+            } else if (!open && start >= 0) {
+                int end = i - 1;
+                if (end - start + 1 >= LONG_ENTRANCE) {
+                    addCrossing(firstCell + start * stride, direction, entrances, entranceCounts, crossings);
+                    addCrossing(firstCell + end * stride, direction, entrances, entranceCounts, crossings);
+                } else {
+                    addCrossing(firstCell + (start + end) / 2 * stride, direction, entrances, entranceCounts, crossings);
+                }
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * Records the cells on both sides of an entrance as nodes of their chunks.
+     * @param cell The cell on the near side
+     * @param direction Direction across the border
+     * @param entrances Entrance cells of every chunk, grown as needed
+     * @param entranceCounts Number of entrance cells of every chunk
+     * @param crossings Receives the pair of cells
+     */
+    private void addCrossing(int cell, int direction, int[][] entrances, int[] entranceCounts, IntList crossings) {
+        int other = map.neighbor(cell, direction);
+        addEntrance(cell, entrances, entranceCounts);
+        addEntrance(other, entrances, entranceCounts);
+        crossings.add(cell);
+        crossings.add(other);
+    }
+
+    /**
+     * Adds a cell to the entrance cells of its chunk unless it is there already, as a corner
+     * cell can be on two borders.
+     * @param cell The cell
+     * @param entrances Entrance cells of every chunk, grown as needed
+     * @param entranceCounts Number of entrance cells of every chunk
+     */
+    private void addEntrance(int cell, int[][] entrances, int[] entranceCounts) {
+        int chunk = getChunk(cell);
+        int[] cells = entrances[chunk];
+        for (int i = 0; i < entranceCounts[chunk]; i++) {
+            if (cells[i] == cell) {
+                return;
+            }
+        }
+        if (cells == null) {
+            cells = entrances[chunk] = new int[8];
+        } else if (entranceCounts[chunk] == cells.length) {
+            cells = entrances[chunk] = Arrays.copyOf(cells, 2 * cells.length);
+        }
+        cells[entranceCounts[chunk]++] = cell;
+    }
+
+    /**
+     * Adds an edge of the abstract graph in both directions.
+     * @param sources Source nodes of the edges
+     * @param targets Target nodes of the edges
+     * @param weights Weights of the edges
+     * @param a One node
+     * @param b The other node
+     * @param cost The cost between them
+     */
+    private static void addEdges(IntList sources, IntList targets, DoubleList weights, int a, int b, double cost) {
+        sources.add(a);
+        targets.add(b);
+        weights.add(cost);
+        sources.add(b);
+        targets.add(a);
+        weights.add(cost);
+    }
+
+    /**
+     * Finds the node of an entrance cell among the nodes of its chunk.
+     * @param cell The entrance cell
+     * @return The node
+     */
+    private int findNode(int cell) {
+        int chunk = getChunk(cell);
+        for (int node = firstNode[chunk]; node < firstNode[chunk + 1]; node++) {
+            if (nodeCells[node] == cell) {
+                return node;
+            }
+        }
+        throw new IllegalStateException("Cell " + cell + " is not an entrance");
+    }
+
+    /**
+     * Chooses how abstract paths are turned into cells.
+     * @param exactRefinement True to search the whole corridor at once, false to join the
+     *                        searches of every step of the abstract path
+     */
+    public void setExactRefinement(boolean exactRefinement) {
+        this.exactRefinement = exactRefinement;
+    }
+
+    /**
+     * Checks how abstract paths are turned into cells.
+     * @return True if the whole corridor is searched at once
+     */
+    public boolean isExactRefinement() {
+        return exactRefinement;
+    }
+
+    /**
+     * Gets the width and height of a chunk.
+     * @return Chunk size in cells
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Gets the number of nodes of the abstract graph.
+     * @return Number of entrance nodes
+     */
+    public int getNodeCount() {
+        return nodeCells.length;
+    }
+
+    /**
+     * Gets the number of edges of the abstract graph, counting each direction.
+     * @return Number of edges
+     */
+    public int getEdgeCount() {
+        return edgeTargets.length;
+    }
+
+    /**
+     * Estimates the memory taken by the abstract graph and the workspaces of the threads that
+     * search on it, not counting the windows of chunks that grow with the queries.
+     * @param searchThreads Number of threads that may search
+     * @return Estimated size in bytes
+     */
+    public long estimateBytes(int searchThreads) {
+        long graph = 4L * firstNode.length + 4L * nodeCells.length + 4L * firstEdge.length + 12L * edgeTargets.length;
+        // Every thread keeps an abstract search state with the two ends and a slot for every chunk
+        long workspace = SearchState.estimateBytes(nodeCells.length + 2) + 4L * (firstNode.length - 1);
+        return graph + searchThreads * workspace;
+    }
+
+    /**
+     * Gets the number of cells the largest window of the calling thread can hold.
+     * @return Number of cells
+     */
+    public int getWindowCapacity() {
+        return workspaces.get().getWindowCapacity();
+    }
+
+    /**
+     * Gets the number of nodes and cells expanded by the last query of the calling thread.
+     * @return Number of expanded nodes and cells
+     */
+    public long getExpandedNodes() {
+        return workspaces.get().expandedNodes;
+    }
+
+    /**
+     * Finds a path between two tiles.
+     * @param source The starting tile
+     * @param target The destination tile
+     * @return ArrayList of tiles of the path, or null if no path exists
+     */
+    public ArrayList<Tile> findShortestPath(Tile source, Tile target) {
+        int[] cells = findPath(map.index(source), map.index(target));
+        if (cells == null) {
+            return null;
+        }
+        ArrayList<Tile> path = new ArrayList<>(cells.length);
+        for (int cell : cells) {
+            path.add(map.toTile(cell));
+        }
+        return path;
+    }
+
+    /**
+     * Finds the cells of a path between two cells.
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @return The cells of the path from source to target, or null if no path exists
+     */
+    public int[] findPath(int sourceCell, int targetCell) {
+        Workspace workspace = workspaces.get();
+        workspace.expandedNodes = 0;
+        if (sourceCell == targetCell) {
+            return new int[] {sourceCell};
+        }
+        // A search never enters an obstacle or a missing cell, but it may leave one
+        if (!map.isPassable(targetCell)) {
+            return null;
+        }
+        int[] chain = searchAbstract(workspace, sourceCell, targetCell);
+        if (chain == null) {
+            return null;
+        }
+        return exactRefinement ? refineExact(workspace, sourceCell, targetCell, chain)
+                : refineNearOptimal(workspace, sourceCell, targetCell, chain);
+    }
+
+    /**
+     * Connects both ends to the nodes of their chunks and runs Dijkstra's algorithm over the
+     * abstract graph.
+     * @param workspace The workspace of the calling thread
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell, which can be entered
+     * @return The nodes of the abstract path, empty if the ends are joined inside a chunk, or
+     *         null if no path exists
+     */
+    private int[] searchAbstract(Workspace workspace, int sourceCell, int targetCell) {
+        SearchState state = workspace.abstractState;
+        IndexedMinHeap queue = state.getQueue();
+        int virtualSource = nodeCells.length;
+        int virtualTarget = nodeCells.length + 1;
+        state.reset();
+        state.update(virtualSource, 0, -1);
+
+        // From the source to the nodes of its window, and to the target if it is in the window
+        openSourceWindow(workspace, sourceCell);
+        searchWindow(workspace, sourceCell, -1);
+        for (int slot = 0; slot < workspace.windowSize; slot++) {
+            int chunk = workspace.windowChunks[slot];
+            for (int node = firstNode[chunk]; node < firstNode[chunk + 1]; node++) {
+                relax(state, virtualSource, node, workspace.getDistance(nodeCells[node]));
+            }
+        }
+        if (workspace.contains(targetCell)) {
+            relax(state, virtualSource, virtualTarget, workspace.getDistance(targetCell));
+        }
+
+        // From the nodes of the target's chunk to the target, the same in both directions
+        int targetChunk = getChunk(targetCell);
+        workspace.clearWindow();
+        workspace.addChunk(targetChunk);
+        searchWindow(workspace, targetCell, -1);
+        for (int node = firstNode[targetChunk]; node < firstNode[targetChunk + 1]; node++) {
+            workspace.targetCosts[node - firstNode[targetChunk]] = workspace.getDistance(nodeCells[node]);
+        }
+        workspace.clearWindow();
+
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            if (node == virtualTarget) {
+                break;
+            }
+            state.countExpanded();
+            double distance = state.getDistance(node);
+            if (node >= firstNode[targetChunk] && node < firstNode[targetChunk + 1]) {
+                relax(state, node, virtualTarget, distance + workspace.targetCosts[node - firstNode[targetChunk]]);
+            }
+            for (int edge = firstEdge[node]; edge < firstEdge[node + 1]; edge++) {
+                relax(state, node, edgeTargets[edge], distance + edgeWeights[edge]);
+            }
+        }
+        workspace.expandedNodes += state.getExpandedNodes();
+        if (!state.isReached(virtualTarget)) {
+            return null;
+        }
+
+        int length = 0;
+        for (int node = state.getPrevious(virtualTarget); node != virtualSource; node = state.getPrevious(node)) {
+            length++;
+        }
+        int[] chain = new int[length];
+        for (int node = state.getPrevious(virtualTarget); node != virtualSource; node = state.getPrevious(node)) {
+            chain[--length] = node;
+        }
+        return chain;
+    }
+
+    /**
+     * Records a shorter path to a node of the abstract graph.
+     * @param state The abstract search state
+     * @param from The node the path comes from
+     * @param node The node reached
+     * @param newDistance Distance of the node along the path
+     */
+    private static void relax(SearchState state, int from, int node, double newDistance) {
+        if (newDistance < state.getDistance(node)) {
+            state.update(node, newDistance, from);
+            state.getQueue().insertOrDecrease(node, newDistance);
+        }
+    }
+
+    /**
+     * Searches all chunks on the abstract path at once.
+     * @param workspace The workspace of the calling thread
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @param chain The nodes of the abstract path
+     * @return The cells of the path
+     */
+    private int[] refineExact(Workspace workspace, int sourceCell, int targetCell, int[] chain) {
+        openSourceWindow(workspace, sourceCell);
+        workspace.addChunk(getChunk(targetCell));
+        for (int node : chain) {
+            workspace.addChunk(getChunk(nodeCells[node]));
+        }
+        searchWindow(workspace, sourceCell, targetCell);
+        int[] cells = workspace.getPath(targetCell);
+        workspace.clearWindow();
+        return cells;
+    }
+
+    /**
+     * Searches every step of the abstract path inside its chunk and joins the pieces. Steps
+     * across an entrance are single moves.
+     * @param workspace The workspace of the calling thread
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @param chain The nodes of the abstract path
+     * @return The cells of the path
+     */
+    private int[] refineNearOptimal(Workspace workspace, int sourceCell, int targetCell, int[] chain) {
+        IntList cells = new IntList();
+        cells.add(sourceCell);
+        int from = sourceCell;
+        for (int i = 0; i <= chain.length; i++) {
+            int to = i < chain.length ? nodeCells[chain[i]] : targetCell;
+            if (i > 0 && getChunk(from) != getChunk(to)) {
+                cells.add(to); // Across an entrance
+            } else {
+                if (i == 0) {
+                    openSourceWindow(workspace, sourceCell);
+                } else {
+                    workspace.addChunk(getChunk(from));
+                }
+                searchWindow(workspace, from, to);
+                int[] piece = workspace.getPath(to);
+                workspace.clearWindow();
+                for (int j = 1; j < piece.length; j++) {
+                    cells.add(piece[j]);
+                }
+            }
+            from = to;
+        }
+        return cells.toArray();
+    }
+
+    /**
+     * Opens the window the source is searched in: the chunk of the source, and if the source is
+     * an obstacle or missing also the chunks its first step can lead to.
+     * @param workspace The workspace of the calling thread
+     * @param sourceCell The starting cell
+     */
+    private void openSourceWindow(Workspace workspace, int sourceCell) {
+        workspace.clearWindow();
+        workspace.addChunk(getChunk(sourceCell));
+        if (!map.isPassable(sourceCell)) {
+            for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                int neighbor = map.neighbor(sourceCell, direction);
+                if (neighbor >= 0 && map.getType(neighbor) != GridGraph.OBSTACLE) {
+                    workspace.addChunk(getChunk(neighbor));
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs Dijkstra's algorithm over the cells of the open window.
+     * @param workspace The workspace of the calling thread
+     * @param sourceCell The starting cell, inside the window
+     * @param targetCell The cell to stop at, or -1 to settle every reachable cell of the window
+     */
+    private void searchWindow(Workspace workspace, int sourceCell, int targetCell) {
+        SearchState state = workspace.openWindowState();
+        IndexedMinHeap queue = state.getQueue();
+        int source = workspace.getLocal(sourceCell);
+        int target = targetCell < 0 ? -1 : workspace.getLocal(targetCell);
+        state.update(source, 0, -1);
+        queue.insertOrDecrease(source, 0);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            if (current == target) {
+                break;
+            }
+            state.countExpanded();
+            int cell = workspace.getCell(current);
+            double distance = state.getDistance(current);
+            for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                int neighbor = map.neighbor(cell, direction);
+                if (neighbor < 0 || map.getType(neighbor) == GridGraph.OBSTACLE) {
+                    continue;
+                }
+                int local = workspace.getLocal(neighbor);
+                if (local < 0) {
+                    continue; // Outside the window
+                }
+                double newDistance = distance + pathFinder.getEdgeCost(cell, direction);
+                if (newDistance < state.getDistance(local)) {
+                    state.update(local, newDistance, current);
+                    queue.insertOrDecrease(local, newDistance);
+                }
+            }
+        }
+        workspace.expandedNodes += state.getExpandedNodes();
+    }
+
+    /**
+     * Gets the chunk a cell is in.
+     * @param cell Cell index
+     * @return Chunk index, numbered row by row
+     */
+    private int getChunk(int cell) {
+        return map.getRow(cell) / chunkSize * chunkColumns + map.getColumn(cell) / chunkSize;
+    }
+
+    /**
+     * The search state of one thread: the abstract search, and the window of chunks searched at
+     * full resolution, whose cells are numbered by the slot of their chunk.
+     */
+    private class Workspace {
+        private final SearchState abstractState; // Nodes, then the source and the target
+        private final int[] slots;               // Slot of every chunk in the window, -1 if it is not in it
+        private final double[] targetCosts;      // Cost from every node of the target's chunk to the target
+        private int[] windowChunks = new int[16];
+        private int windowSize;
+        private SearchState windowState;
+        private int windowCapacity; // Number of cells the window state can hold
+        private long expandedNodes;
+
+        /**
+         * Constructs the workspace with an empty window.
+         * @param nodeCount Number of nodes of the abstract graph
+         * @param chunkCount Number of chunks
+         * @param maxChunkNodes Most nodes of any chunk
+         */
+        private Workspace(int nodeCount, int chunkCount, int maxChunkNodes) {
+            this.abstractState = new SearchState(nodeCount + 2);
+            this.slots = new int[chunkCount];
+            Arrays.fill(slots, -1);
+            this.targetCosts = new double[maxChunkNodes];
+        }
+
+        /**
+         * Empties the window.
+         */
+        private void clearWindow() {
+            for (int slot = 0; slot < windowSize; slot++) {
+                slots[windowChunks[slot]] = -1;
+            }
+            windowSize = 0;
+        }
+
+        /**
+         * Adds a chunk to the window unless it is in it already.
+         * @param chunk Chunk index
+         */
+        private void addChunk(int chunk) {
+            if (slots[chunk] >= 0) {
+                return;
+            }
+            if (windowSize == windowChunks.length) {
+                windowChunks = Arrays.copyOf(windowChunks, 2 * windowSize);
+            }
+            slots[chunk] = windowSize;
+            windowChunks[windowSize++] = chunk;
+        }
+
+        /**
+         * Prepares the search state for the cells of the window, growing it if it is too small.
+         * @return The reset search state
+         */
+        private SearchState openWindowState() {
+            int cells = windowSize * chunkSize * chunkSize;
+            if (windowCapacity < cells) {
+                windowCapacity = Math.max(cells, 2 * windowCapacity);
+                windowState = new SearchState(windowCapacity);
+            }
+            windowState.reset();
+            return windowState;
+        }
+
+        /**
+         * Gets the number of cells the window state can hold.
+         * @return Number of cells
+         */
+        private int getWindowCapacity() {
+            return windowCapacity;
+        }
+
+        /**
+         * Checks if a cell is in a chunk of the window.
+         * @param cell Cell index
+         * @return True if the cell is in the window
+         */
+        private boolean contains(int cell) {
+            return slots[getChunk(cell)] >= 0;
+        }
+
+        /**
+         * Gets the number of a cell in the window.
+         * @param cell Cell index
+         * @return Number of the cell in the window, or -1 if it is outside
+         */
+        private int getLocal(int cell) {
+            int slot = slots[getChunk(cell)];
+            if (slot < 0) {
+                return -1;
+            }
+            int row = map.getRow(cell) % chunkSize;
+            int column = map.getColumn(cell) % chunkSize;
+            return (slot * chunkSize + row) * chunkSize + column;
+        }
+
+        /**
+         * Gets the cell with a number in the window.
+         * @param local Number of the cell in the window
+         * @return Cell index
+         */
+        private int getCell(int local) {
+            int chunk = windowChunks[local / (chunkSize * chunkSize)];
+            int offset = local % (chunkSize * chunkSize);
+            return map.index(chunk % chunkColumns * chunkSize + offset % chunkSize,
+                    chunk / chunkColumns * chunkSize + offset / chunkSize);
+        }
+
+        /**
+         * Gets the distance of a cell from the source of the last window search.
+         * @param cell Cell index, inside the window
+         * @return Distance from the source, or infinity if it was not reached
+         */
+        private double getDistance(int cell) {
+            return windowState.getDistance(getLocal(cell));
+        }
+
+        /**
+         * Follows the previous cells of the last window search back from a cell.
+         * @param cell The cell the path ends at, reached by the search
+         * @return The cells of the path from the source of the search
+         */
+        private int[] getPath(int cell) {
+            int length = 0;
+            for (int local = getLocal(cell); local != -1; local = windowState.getPrevious(local)) {
+                length++;
+            }
+            int[] cells = new int[length];
+            for (int local = getLocal(cell); local != -1; local = windowState.getPrevious(local)) {
+                cells[--length] = getCell(local);
+            }
+            return cells;
+        }
+    }
+
+    /**
+     * A growable list of ints.
+     */
+    private static class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        /**
+         * Appends a value.
+         * @param value The value
+         */
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Gets a value.
+         * @param index Position of the value
+         * @return The value
+         */
+        private int get(int index) {
+            return values[index];
+        }
+
+        /**
+         * Gets the number of values.
+         * @return Number of values
+         */
+        private int size() {
+            return size;
+        }
+
+        /**
+         * Copies the values into an array of their size.
+         * @return The values
+         */
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * A growable list of doubles.
+     */
+    private static class DoubleList {
+        private double[] values = new double[16];
+        private int size;
+
+        /**
+         * Appends a value.
+         * @param value The value
+         */
+        private void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Gets a value.
+         * @param index Position of the value
+         * @return The value
+         */
+        private double get(int index) {
+            return values[index];
+        }
+    }
+}
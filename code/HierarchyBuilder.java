@@ -0,0 +1,323 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The HierarchyBuilder class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class runs the preprocessing of a ContractionHierarchy. Every cell a search can enter is
+ * contracted in turn, cheapest first: it is taken out of the graph, and for every pair of its
+ * remaining neighbours whose only shortest connection led through it a shortcut edge is added.
+ * Whether another connection exists is checked by a witness search, a Dijkstra search from one
+ * neighbour that stops after a fixed number of settled cells. A search that stops early only
+ * adds a shortcut that was not needed, never drops one that was. The cost of contracting a cell
+ * weighs the shortcuts it adds against the edges it removes, plus the number of its neighbours
+ * already contracted and its level in the hierarchy, so that contraction spreads evenly over the
+ * map and the hierarchy stays shallow. Costs are recomputed when a cell is taken from the queue
+ * and it is put back if it is no longer cheapest.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.util.Arrays;
+
+public class HierarchyBuilder {
+    private static final int PRIORITY_SETTLE_LIMIT = 20;  // Most cells a witness search settles to rank a cell
+    private static final int CONTRACT_SETTLE_LIMIT = 200; // Most cells a witness search settles to add shortcuts
+
+    private final GridGraph map;
+    private final EdgeCosts travelCosts;
+    private final int cellCount;
+
+    // Edges of every cell to its neighbours not yet contracted, including shortcuts
+    private final int[][] neighbors;
+    private final double[][] weights;
+    private final int[][] middles; // Cell a shortcut leads through, -1 for an edge of the map
+    private final int[] degrees;
+
+    private final int[] ranks;               // Contraction order of every cell, -1 for obstacles and missing cells
+    private final int[] contractedNeighbors; // Neighbours of every cell contracted so far
+    private final int[] levels;              // Longest chain of contracted cells below every cell
+    private final SearchState witness;
+    private long shortcuts;
+
+    // Upward edges, appended in contraction order
+    private int[] upwardSources = new int[16];
+    private int[] upwardTargets = new int[16];
+    private double[] upwardWeights = new double[16];
+    private int[] upwardMiddles = new int[16];
+    private int upwardCount;
+
+    /**
+     * Constructs a builder with the edges of the map a search can travel.
+     * @param map The grid graph of the map
+     * @param travelCosts The travel costs of the map
+     */
+    public HierarchyBuilder(GridGraph map, EdgeCosts travelCosts) {
+        this.map = map;
+        this.travelCosts = travelCosts;
+        this.cellCount = map.getCellCount();
+        this.neighbors = new int[cellCount][];
+        this.weights = new double[cellCount][];
+        this.middles = new int[cellCount][];
+        this.degrees = new int[cellCount];
+        this.ranks = new int[cellCount];
+        this.contractedNeighbors = new int[cellCount];
+        this.levels = new int[cellCount];
+        this.witness = new SearchState(cellCount);
+
+        // Searches enter every listed cell that is not an obstacle, at the same costs as PathFinder
+        PathFinder pathFinder = new PathFinder(map, travelCosts);
+        Arrays.fill(ranks, -1);
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (!map.isPassable(cell)) {
+                continue;
+            }
+            neighbors[cell] = new int[GridGraph.DIRECTIONS];
+            weights[cell] = new double[GridGraph.DIRECTIONS];
+            middles[cell] = new int[GridGraph.DIRECTIONS];
+            for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                int neighbor = map.neighbor(cell, direction);
+                if (neighbor >= 0 && map.getType(neighbor) != GridGraph.OBSTACLE) {
+                    neighbors[cell][degrees[cell]] = neighbor;
+                    weights[cell][degrees[cell]] = pathFinder.getEdgeCost(cell, direction);
+                    middles[cell][degrees[cell]] = -1;
+                    degrees[cell]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Contracts every cell and collects the hierarchy.
+     * @return The contraction hierarchy of the map
+     */
+    public ContractionHierarchy build() {
+        IndexedMinHeap order = new IndexedMinHeap(cellCount);
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (neighbors[cell] != null) {
+                order.insertOrDecrease(cell, getPriority(cell));
+            }
+        }
+
+        int rank = 0;
+        while (!order.isEmpty()) {
+            int cell = order.poll();
+
+            // The cost may have grown since the cell was queued, put it back if it is no longer cheapest
+            double priority = getPriority(cell);
+            if (!order.isEmpty() && priority > order.peekKey()) {
+                order.insertOrDecrease(cell, priority);
+                continue;
+            }
+            ranks[cell] = rank++;
+            contract(cell);
+        }
+        return collect();
+    }
+
+    /**
+     * Gets the number of shortcuts added by the contraction.
+     * @return Number of shortcuts
+     */
+    public long getShortcuts() {
+        return shortcuts;
+    }
+
+    /**
+     * Computes the cost of contracting a cell now. Shortcuts count twice, since each one adds an
+     * edge to both of its ends.
+     * @param cell Cell index
+     * @return Twice the shortcuts needed minus the edges removed, plus the neighbours already
+     *         contracted and the level of the cell
+     */
+    private double getPriority(int cell) {
+        return 2 * findShortcuts(cell, false) - degrees[cell] + contractedNeighbors[cell] + levels[cell];
+    }
+
+    /**
+     * Takes a cell out of the graph: records its edges as upward edges, adds the shortcuts its
+     * neighbours need and removes it from their edges.
+     * @param cell Cell index
+     */
+    private void contract(int cell) {
+        for (int i = 0; i < degrees[cell]; i++) {
+            addUpwardEdge(cell, neighbors[cell][i], weights[cell][i], middles[cell][i]);
+        }
+        findShortcuts(cell, true);
+        for (int i = 0; i < degrees[cell]; i++) {
+            int neighbor = neighbors[cell][i];
+            removeEdge(neighbor, cell);
+            contractedNeighbors[neighbor]++;
+            levels[neighbor] = Math.max(levels[neighbor], levels[cell] + 1);
+        }
+        degrees[cell] = 0;
+        neighbors[cell] = null;
+        weights[cell] = null;
+        middles[cell] = null;
+    }
+
+    /**
+     * Finds the pairs of neighbours of a cell whose shortest connection leads through it.
+     * @param cell Cell index
+     * @param add True to add the shortcuts, false to only count them
+     * @return Number of shortcuts needed
+     */
+    private int findShortcuts(int cell, boolean add) {
+        int degree = degrees[cell];
+        int[] cellNeighbors = neighbors[cell];
+        double[] cellWeights = weights[cell];
+        double longest = 0;
+        for (int i = 0; i < degree; i++) {
+            longest = Math.max(longest, cellWeights[i]);
+        }
+
+        int count = 0;
+        for (int i = 0; i < degree - 1; i++) {
+            int from = cellNeighbors[i];
+            double viaLimit = cellWeights[i] + longest;
+            searchWitnesses(from, cell, viaLimit, add ? CONTRACT_SETTLE_LIMIT : PRIORITY_SETTLE_LIMIT);
+            for (int j = i + 1; j < degree; j++) {
+                int to = cellNeighbors[j];
+                double via = cellWeights[i] + cellWeights[j];
+                if (witness.getDistance(to) > via) {
+                    count++;
+                    if (add) {
+                        addEdge(from, to, via, cell);
+                        addEdge(to, from, via, cell);
+                        shortcuts++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from a cell over the cells not yet contracted, avoiding the cell
+     * being contracted, until it settles every cell within a distance or the settle limit.
+     * @param source The starting cell
+     * @param avoided The cell being contracted
+     * @param limit Distance beyond which no witness is needed
+     * @param settleLimit Most cells to settle
+     */
+    private void searchWitnesses(int source, int avoided, double limit, int settleLimit) {
+        witness.reset();
+        IndexedMinHeap queue = witness.getQueue();
+        witness.update(source, 0, -1);
+        queue.insertOrDecrease(source, 0);
+        int settled = 0;
+        while (!queue.isEmpty() && settled < settleLimit) {
+            if (queue.peekKey() > limit) {
+                break;
+            }
+            int current = queue.poll();
+            settled++;
+            double currentDistance = witness.getDistance(current);
+            for (int i = 0; i < degrees[current]; i++) {
+                int neighbor = neighbors[current][i];
+                if (neighbor == avoided) {
+                    continue;
+                }
+                double newDistance = currentDistance + weights[current][i];
+                if (newDistance < witness.getDistance(neighbor)) {
+                    witness.update(neighbor, newDistance, current);
+                    queue.insertOrDecrease(neighbor, newDistance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds an edge to a cell, or lowers the weight of its existing edge to the same cell.
+     * @param cell Cell index
+     * @param neighbor The other end of the edge
+     * @param weight The weight of the edge
+     * @param middle The cell the edge leads through
+     */
+    private void addEdge(int cell, int neighbor, double weight, int middle) {
+        for (int i = 0; i < degrees[cell]; i++) {
+            if (neighbors[cell][i] == neighbor) {
+                if (weight < weights[cell][i]) {
+                    weights[cell][i] = weight;
+                    middles[cell][i] = middle;
+                }
+                return;
+            }
+        }
+        if (degrees[cell] == neighbors[cell].length) {
+            int capacity = 2 * degrees[cell];
+            neighbors[cell] = Arrays.copyOf(neighbors[cell], capacity);
+            weights[cell] = Arrays.copyOf(weights[cell], capacity);
+            middles[cell] = Arrays.copyOf(middles[cell], capacity);
+        }
+        neighbors[cell][degrees[cell]] = neighbor;
+        weights[cell][degrees[cell]] = weight;
+        middles[cell][degrees[cell]] = middle;
+        degrees[cell]++;
+    }
+
+    /**
+     * Removes the edge from a cell to a neighbour by moving its last edge into its place.
+     * @param cell Cell index
+     * @param neighbor The other end of the edge
+     */
+    private void removeEdge(int cell, int neighbor) {
+        for (int i = 0; i < degrees[cell]; i++) {
+            if (neighbors[cell][i] == neighbor) {
+                int last = --degrees[cell];
+                neighbors[cell][i] = neighbors[cell][last];
+                weights[cell][i] = weights[cell][last];
+                middles[cell][i] = middles[cell][last];
+                return;
+            }
+        }
+    }
+
+    /**
+     * Records an edge from a contracted cell to a cell contracted later.
+     * @param source The contracted cell
+     * @param target The other end of the edge
+     * @param weight The weight of the edge
+     * @param middle The cell the edge leads through, -1 for an edge of the map
+     */
+    private void addUpwardEdge(int source, int target, double weight, int middle) {
+        if (upwardCount == upwardSources.length) {
+            int capacity = 2 * upwardCount;
+            upwardSources = Arrays.copyOf(upwardSources, capacity);
+            upwardTargets = Arrays.copyOf(upwardTargets, capacity);
+            upwardWeights = Arrays.copyOf(upwardWeights, capacity);
+            upwardMiddles = Arrays.copyOf(upwardMiddles, capacity);
+        }
+        upwardSources[upwardCount] = source;
+        upwardTargets[upwardCount] = target;
+        upwardWeights[upwardCount] = weight;
+        upwardMiddles[upwardCount] = middle;
+        upwardCount++;
+    }
+
+    /**
+     * Sorts the upward edges by their lower cell into the arrays of the hierarchy.
+     * @return The contraction hierarchy
+     */
+    private ContractionHierarchy collect() {
+        int[] firstEdge = new int[cellCount + 1];
+        for (int i = 0; i < upwardCount; i++) {
+            firstEdge[upwardSources[i] + 1]++;
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            firstEdge[cell + 1] += firstEdge[cell];
+        }
+        int[] next = Arrays.copyOf(firstEdge, cellCount);
+        int[] targets = new int[upwardCount];
+        double[] edgeWeights = new double[upwardCount];
+        int[] edgeMiddles = new int[upwardCount];
+        for (int i = 0; i < upwardCount; i++) {
+            int edge = next[upwardSources[i]]++;
+            targets[edge] = upwardTargets[i];
+            edgeWeights[edge] = upwardWeights[i];
+            edgeMiddles[edge] = upwardMiddles[i];
+        }
+        return new ContractionHierarchy(map, travelCosts, ranks, firstEdge, targets, edgeWeights, edgeMiddles);
+    }
+}
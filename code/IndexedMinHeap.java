@@ -0,0 +1,245 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The IndexedMinHeap class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class is a binary min-heap over cell indices with a position table, so every cell is
+ * stored at most once and its key can be decreased in place. Cells with equal keys are
+ * ordered by an optional secondary key. All arrays are allocated once for the whole map,
+ * which lets a single heap be reused for any number of searches.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.util.Arrays;
+
+public class IndexedMinHeap {
+    private final int[] cells;     // Cells in heap order
+    private final double[] keys;   // Keys in heap order
+    private final double[] ties;   // Secondary keys in heap order
+    private final int[] positions; // Heap position of each cell, -1 if not in the heap
+    private int size;
+
+    /**
+     * Constructs an empty heap for cells in the range [0, capacity).
+     * @param capacity Number of cells that can be stored
+     */
+    public IndexedMinHeap(int capacity) {
+        this.cells = new int[capacity];
+        this.keys = new double[capacity];
+        this.ties = new double[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Checks if the heap is empty.
+     * @return True if there are no cells in the heap
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of cells in the heap.
+     * @return Number of cells
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if a cell is in the heap.
+     * @param cell Cell index
+     * @return True if the cell is in the heap
+     */
+    public boolean contains(int cell) {
+        return positions[cell] >= 0;
+    }
+
+    /**
+     * Gets the smallest key in the heap. The heap must not be empty.
+     * @return The smallest key
+     */
+    public double peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Gets the secondary key of the cell with the smallest key. The heap must not be empty.
+     * @return The secondary key of the first cell
+     */
+    public double peekTie() {
+        return ties[0];
+    }
+
+    /**
+     * Gets the cell with the smallest key without removing it. The heap must not be empty.
+     * @return The cell with the smallest key
+     */
+    public int peek() {
+        return cells[0];
+    }
+
+    /**
+     * Inserts a cell, or lowers its key if it is already in the heap with a larger key.
+     * @param cell Cell index
+     * @param key New key of the cell
+     */
+    public void insertOrDecrease(int cell, double key) {
+        insertOrDecrease(cell, key, 0);
+    }
+
+    /**
+     * Inserts a cell, or lowers its keys if it is already in the heap with larger keys.
+     * @param cell Cell index
+     * @param key New key of the cell
+     * @param tie New secondary key of the cell, compared when keys are equal
+     */
+    public void insertOrDecrease(int cell, double key, double tie) {
+        int position = positions[cell];
+        if (position < 0) {
+            position = size++;
+        } else if (!less(key, tie, keys[position], ties[position])) {
+            return;
+        }
+        siftUp(position, cell, key, tie);
+    }
+
+    /**
+     * Inserts a cell, or moves it to new keys whether they are smaller or larger.
+     * @param cell Cell index
+     * @param key New key of the cell
+     * @param tie New secondary key of the cell, compared when keys are equal
+     */
+    public void update(int cell, double key, double tie) {
+        int position = positions[cell];
+        if (position < 0) {
+            siftUp(size++, cell, key, tie);
+        } else if (less(key, tie, keys[position], ties[position])) {
+            siftUp(position, cell, key, tie);
+        } else {
+            siftDown(position, cell, key, tie);
+        }
+    }
+
+    /**
+     * Removes a cell if it is in the heap.
+     * @param cell Cell index
+     */
+    public void remove(int cell) {
+        int position = positions[cell];
+        if (position < 0) {
+            return;
+        }
+        positions[cell] = -1;
+        size--;
+        if (position == size) {
+            return;
+        }
+        // Put the last entry in the freed place and move it whichever way its keys need
+        int last = cells[size];
+        double key = keys[size];
+        double tie = ties[size];
+        if (position > 0 && less(key, tie, keys[(position - 1) >>> 1], ties[(position - 1) >>> 1])) {
+            siftUp(position, last, key, tie);
+        } else {
+            siftDown(position, last, key, tie);
+        }
+    }
+
+    /**
+     * Removes the cell with the smallest key. The heap must not be empty.
+     * @return The removed cell
+     */
+    public int poll() {
+        int top = cells[0];
+        positions[top] = -1;
+        size--;
+        if (size > 0) {
+            siftDown(0, cells[size], keys[size], ties[size]);
+        }
+        return top;
+    }
+
+    /**
+     * Removes all cells from the heap. Takes time proportional to the number of cells left.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[cells[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves a cell up from the given position until its parent's key is not larger.
+     * @param position Starting position
+     * @param cell Cell to place
+     * @param key Key of the cell
+     * @param tie Secondary key of the cell
+     */
+    private void siftUp(int position, int cell, double key, double tie) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!less(key, tie, keys[parent], ties[parent])) {
+                break;
+            }
+            place(position, cells[parent], keys[parent], ties[parent]);
+            position = parent;
+        }
+        place(position, cell, key, tie);
+    }
+
+    /**
+     * Moves a cell down from the given position until its children's keys are not smaller.
+     * @param position Starting position
+     * @param cell Cell to place
+     * @param key Key of the cell
+     * @param tie Secondary key of the cell
+     */
+    private void siftDown(int position, int cell, double key, double tie) {
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && less(keys[right], ties[right], keys[child], ties[child])) {
+                child = right;
+            }
+            if (!less(keys[child], ties[child], key, tie)) {
+                break;
+            }
+            place(position, cells[child], keys[child], ties[child]);
+            position = child;
+        }
+        place(position, cell, key, tie);
+    }
+
+    /**
+     * Compares two entries by key, then by secondary key.
+     * @param key First key
+     * @param tie First secondary key
+     * @param otherKey Second key
+     * @param otherTie Second secondary key
+     * @return True if the first entry comes strictly before the second
+     */
+    private static boolean less(double key, double tie, double otherKey, double otherTie) {
+        return key < otherKey || (key == otherKey && tie < otherTie);
+    }
+
+    /**
+     * Stores a cell and its key at a heap position.
+     * @param position Heap position
+     * @param cell Cell index
+     * @param key Key of the cell
+     * @param tie Secondary key of the cell
+     */
+    private void place(int position, int cell, double key, double tie) {
+        cells[position] = cell;
+        keys[position] = key;
+        ties[position] = tie;
+        positions[cell] = position;
+    }
+}
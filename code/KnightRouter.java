@@ -0,0 +1,324 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The KnightRouter class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class is the routing library behind Main and Bonus. It owns a loaded map and its travel
+ * costs, which are never changed after loading, and answers any number of routing requests on it.
+ * {@code route} visits objectives in the given order like Main, and {@code tour} visits them in
+ * the shortest order and returns to the start like Bonus. Both may be called from many threads
+ * at once: every thread searches in its own PathFinder workspace, and tours share one pool of
+ * worker threads for their distance sweeps.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class KnightRouter {
+    public static final int PATH_CACHE_CAPACITY = 4096; // Pairs of cells kept besides those of running tours
+
+    private final GridGraph map;
+    private final EdgeCosts travelCosts;
+    private final PathFinder pathFinder;
+    private final ConnectedComponents components; // Labelled at load, so unreachable legs need no search
+    private volatile HierarchicalPathFinder hierarchicalPathFinder; // Finds legs on chunks if enabled
+    private final ForkJoinPool pool; // Workers shared by the tours of every caller
+    private volatile long timeBudgetMillis = 1000;
+    private volatile int exactLimit = ShortestRoute.DEFAULT_EXACT_LIMIT; // Most objectives of a tour solved exactly
+    private volatile int branchAndBoundLimit = 0;
+
+    /**
+     * Constructs a router for a loaded map. The map and costs must not be changed afterwards.
+     * @param map The grid graph of the map
+     * @param travelCosts The travel costs of the map
+     */
+    public KnightRouter(GridGraph map, EdgeCosts travelCosts) {
+        this(map, travelCosts, new ForkJoinPool(Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Constructs a router for a loaded map whose tours run on the given pool, so that many
+     * routers can share one set of worker threads. The map and costs must not be changed afterwards.
+     * @param map The grid graph of the map
+     * @param travelCosts The travel costs of the map
+     * @param pool The pool for the distance sweeps of tours
+     */
+    public KnightRouter(GridGraph map, EdgeCosts travelCosts, ForkJoinPool pool) {
+        this.map = map;
+        this.travelCosts = travelCosts;
+        this.pathFinder = new PathFinder(map, travelCosts);
+        this.pathFinder.setPathCache(new PathCache(map, PATH_CACHE_CAPACITY));
+        this.components = new ConnectedComponents(map);
+        this.pathFinder.setComponents(components);
+        this.pool = pool;
+    }
+
+    /**
+     * Loads a router from a map data file and a travel costs file.
+     * @param mapFile The name of the map data file
+     * @param costFile The name of the travel costs file
+     * @return The router
+     * @throws IOException If a file cannot be read or is malformed
+     */
+    public static KnightRouter load(String mapFile, String costFile) throws IOException {
+        GridGraph map = MapLoader.loadMap(mapFile);
+        return new KnightRouter(map, MapLoader.loadTravelCosts(costFile, map));
+    }
+
+    /**
+     * Loads a router from a compiled map file.
+     * @param filename The name of the compiled map file
+     * @return The router
+     * @throws IOException If the file cannot be read or is not a compiled map
+     */
+    public static KnightRouter loadCompiled(String filename) throws IOException {
+        CompiledMap compiledMap = CompiledMap.load(filename);
+        return new KnightRouter(compiledMap.getMap(), compiledMap.getTravelCosts());
+    }
+
+    /**
+     * Gets the grid graph of the map.
+     * @return The grid graph
+     */
+    public GridGraph getMap() {
+        return map;
+    }
+
+    /**
+     * Estimates the memory taken by the router: the map, its travel costs and components, the
+     * search workspaces of every thread that searches on it, a full path cache with the room
+     * reserved by running tours, a full tree cache, the rectangles of uniform cost if they were
+     * found and the abstract graph of the chunks if they are enabled. It grows while tours run and
+     * when rectangles or chunks are added, so it is worth asking again.
+     * @param searchThreads Number of threads that may search on the router
+     * @return Estimated size in bytes
+     */
+    public long estimateBytes(int searchThreads) {
+        long cells = map.getCellCount();
+        SearchStrategy strategy = pathFinder.getStrategy();
+        // Bidirectional searches keep a second workspace for the search from the target
+        int states = strategy == SearchStrategy.BIDIRECTIONAL_DIJKSTRA
+                || strategy == SearchStrategy.BIDIRECTIONAL_ASTAR ? 2 : 1;
+        TreeCache treeCache = pathFinder.getTreeCache();
+        long trees = treeCache == null ? 0 : treeCache.getCapacity() * TreeCache.estimateTreeBytes(map.getCellCount());
+        long paths = pathFinder.getPathCache().estimateBytes();
+        long regions = pathFinder.getUniformRegions() == null ? 0 : UniformRegions.estimateBytes(map.getCellCount());
+        HierarchicalPathFinder hierarchical = hierarchicalPathFinder;
+        long chunks = hierarchical == null ? 0 : hierarchical.estimateBytes(searchThreads);
+        // One terrain byte, the east and south costs and the component label per cell
+        return cells * (1 + 8 + 8 + 4) + (long) searchThreads * states * SearchState.estimateBytes(map.getCellCount())
+                + paths + trees + regions + chunks;
+    }
+
+    /**
+     * Gets the tile at a position of the map.
+     * @param column Column number
+     * @param row Row number
+     * @return The tile
+     */
+    public Tile getTile(int column, int row) {
+        return map.getTile(column, row);
+    }
+
+    /**
+     * Sets the search strategy used by every later request.
+     * @param strategy The search strategy
+     */
+    public void setStrategy(SearchStrategy strategy) {
+        pathFinder.setStrategy(strategy);
+    }
+
+    /**
+     * Sets how long a tour of many objectives may spend improving its order.
+     * @param timeBudgetMillis Time budget in milliseconds
+     */
+    public void setTimeBudget(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Sets the largest number of objectives whose tour is solved exactly. By default it is
+     * ShortestRoute.DEFAULT_EXACT_LIMIT, whatever the heap, so that concurrent tours do not
+     * each take tables sized for all of it.
+     * @param exactLimit Most objectives for the exact solver, at most HeldKarpSolver.MAX_OBJECTIVES
+     */
+    public void setExactLimit(int exactLimit) {
+        if (exactLimit < 0 || exactLimit > HeldKarpSolver.MAX_OBJECTIVES) {
+            throw new IllegalArgumentException("Exact limit must be between 0 and "
+                    + HeldKarpSolver.MAX_OBJECTIVES + ": " + exactLimit);
+        }
+        this.exactLimit = exactLimit;
+    }
+
+    /**
+     * Sets the largest number of objectives whose tour is proven optimal by branch and bound
+     * when there are too many for the exact solver.
+     * @param branchAndBoundLimit Most objectives for branch and bound, 0 to never use it
+     */
+    public void setBranchAndBoundLimit(int branchAndBoundLimit) {
+        this.branchAndBoundLimit = branchAndBoundLimit;
+    }
+
+    /**
+     * Gets the number of cells expanded by every search of this router so far.
+     * @return Number of expanded cells
+     */
+    public long getTotalExpandedNodes() {
+        return pathFinder.getTotalExpandedNodes();
+    }
+
+    /**
+     * Gets the cache of the paths found by this router. The sweeps of a tour fill it with the
+     * paths between all its objectives, so following the tour afterwards needs no search.
+     * @return The path cache
+     */
+    public PathCache getPathCache() {
+        return pathFinder.getPathCache();
+    }
+
+    /**
+     * Keeps complete shortest path trees of the cells that requests keep starting from or going
+     * to, such as a depot, so that later legs from or to them need no search.
+     * @param capacity Most trees to keep, each taking 8 bytes per cell of the map
+     */
+    public void enableTreeCache(int capacity) {
+        pathFinder.setTreeCache(new TreeCache(map, capacity, TreeCache.DEFAULT_THRESHOLD));
+    }
+
+    /**
+     * Finds the legs of routes and tours on an abstract graph of chunks instead of searching the
+     * whole map, which is much faster on large maps but may give slightly longer paths. The order
+     * of a tour is still chosen from exact costs.
+     * @param chunkSize Width and height of a chunk in cells
+     * @param exactRefinement True to search all chunks of the abstract path at once, false to
+     *                        search every chunk on its own
+     */
+    public void enableChunks(int chunkSize, boolean exactRefinement) {
+        HierarchicalPathFinder hierarchical = new HierarchicalPathFinder(map, travelCosts, chunkSize);
+        hierarchical.setExactRefinement(exactRefinement);
+        hierarchicalPathFinder = hierarchical;
+    }
+
+    /**
+     * Gets the cache of complete shortest path trees.
+     * @return The tree cache, or null if it is not enabled
+     */
+    public TreeCache getTreeCache() {
+        return pathFinder.getTreeCache();
+    }
+
+    /**
+     * Routes the knight from the source through the targets in the given order. An unreachable
+     * target is skipped and the knight goes on to the next one from where it is.
+     * @param source The starting tile
+     * @param targets The objectives in visiting order
+     * @return The route, with one leg per target
+     */
+    public Route route(Tile source, List<Tile> targets) {
+        List<RouteLeg> legs = new ArrayList<>();
+        Tile current = source;
+        for (int i = 0; i < targets.size(); i++) {
+            Tile target = targets.get(i);
+            RouteLeg leg = findLeg(i + 1, current, target);
+            legs.add(leg);
+            if (leg.isReached()) {
+                current = target;
+            }
+        }
+        return new Route(source, legs);
+    }
+
+    /**
+     * Routes the knight from the source through all targets in the shortest order and back.
+     * @param source The starting tile
+     * @param targets The objectives, numbered by their position in the list
+     * @return The tour, with one leg per visited target and a final return leg
+     */
+    public Tour tour(Tile source, List<Tile> targets) {
+        // The sweeps cache a path for every pair of the source and the objectives, and the legs
+        // of the tour must still be there when it is followed, so the cache makes room for all
+        // pairs until the tour is done
+        long pairs = (long) (targets.size() + 1) * targets.size() / 2;
+        PathCache pathCache = pathFinder.getPathCache();
+        pathCache.reserve(pairs);
+        try {
+            return findTour(source, targets);
+        } finally {
+            pathCache.release(pairs);
+        }
+    }
+
+    /**
+     * Solves and follows a tour while the path cache holds room for its pairs.
+     * @param source The starting tile
+     * @param targets The objectives, numbered by their position in the list
+     * @return The tour, with one leg per visited target and a final return leg
+     */
+    private Tour findTour(Tile source, List<Tile> targets) {
+        ShortestRoute shortestRoute = new ShortestRoute(map, pathFinder);
+        shortestRoute.setPool(pool);
+        shortestRoute.setTimeBudget(timeBudgetMillis);
+        shortestRoute.setExactLimit(exactLimit);
+        shortestRoute.setBranchAndBoundLimit(branchAndBoundLimit);
+        ArrayList<Tile> order = shortestRoute.findShortestRoute(source, new ArrayList<>(targets));
+
+        // A tile listed more than once keeps the number of its last listing
+        HashMap<Tile, Integer> objectiveNumbers = new HashMap<>();
+        for (int i = 0; i < targets.size(); i++) {
+            objectiveNumbers.put(targets.get(i), i + 1);
+        }
+
+        // Follow the order, excluding the final return to the start
+        List<RouteLeg> legs = new ArrayList<>();
+        Tile current = source;
+        for (int i = 1; i < order.size() - 1; i++) {
+            Tile target = order.get(i);
+            RouteLeg leg = findLeg(objectiveNumbers.getOrDefault(target, -1), current, target);
+            legs.add(leg);
+            if (leg.isReached()) {
+                current = target;
+            }
+        }
+        legs.add(findLeg(RouteLeg.RETURN_LEG, current, source));
+
+        return new Tour(source, legs, shortestRoute.getRouteCost(), shortestRoute.getLowerBound(),
+                shortestRoute.isRouteOptimal());
+    }
+
+    /**
+     * Opens a tour from a source whose objectives are added and removed one at a time. Its sweeps
+     * fill the path cache of this router like those of a tour.
+     * @param source The starting tile
+     * @return The tour service, with no objectives yet
+     */
+    public TourService openTourService(Tile source) {
+        return new TourService(map, pathFinder, source);
+    }
+
+    /**
+     * Finds the path of one leg on the calling thread.
+     * @param objectiveNumber Number of the objective the leg leads to, or RouteLeg.RETURN_LEG
+     * @param from The tile the leg starts from
+     * @param to The tile the leg leads to
+     * @return The leg
+     */
+    private RouteLeg findLeg(int objectiveNumber, Tile from, Tile to) {
+        if (!components.isConnected(map.index(from), map.index(to))) {
+            return new RouteLeg(objectiveNumber, to, null, travelCosts, 0);
+        }
+        HierarchicalPathFinder hierarchical = hierarchicalPathFinder;
+        if (hierarchical != null) {
+            ArrayList<Tile> path = hierarchical.findShortestPath(from, to);
+            return new RouteLeg(objectiveNumber, to, path, travelCosts, hierarchical.getExpandedNodes());
+        }
+        ArrayList<Tile> path = pathFinder.findShortestPath(from, to);
+        return new RouteLeg(objectiveNumber, to, path, travelCosts, pathFinder.getExpandedNodes());
+    }
+}
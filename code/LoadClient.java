@@ -0,0 +1,161 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The LoadClient class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class measures a RoutingServer by sending it the same request from several connections
+ * at once. Each connection sends its requests one after another and times each one until the END
+ * line of its response. The first request is reported on its own, since on a fresh server it
+ * includes loading the map, and the others give the throughput and latency percentiles.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class LoadClient {
+    /**
+     * Main method to run the load generator.
+     * @param args Command-line arguments
+     * @throws Exception If the server cannot be reached or a worker fails
+     */
+    public static void main(String[] args) throws Exception {
+        int port = RoutingServer.DEFAULT_PORT;
+        int connections = 4;
+        int requests = 1000;
+
+        // Process flags, the rest of the arguments is the request
+        int flagCount = 0;
+        while (flagCount + 1 < args.length && args[flagCount].startsWith("-")) {
+            int value = Integer.parseInt(args[flagCount + 1]);
+            switch (args[flagCount]) {
+                case "-port":
+                    port = value;
+                    break;
+                case "-connections":
+                    connections = value;
+                    break;
+                case "-requests":
+                    requests = value;
+                    break;
+                default:
+                    System.out.println("Unknown option: " + args[flagCount]);
+                    return;
+            }
+            flagCount += 2;
+        }
+        if (flagCount >= args.length || requests < 1) {
+            System.out.println("Usage: java LoadClient [-port n] [-connections n] [-requests n] ROUTE|TOUR files...");
+            return;
+        }
+        String request = String.join(" ", Arrays.copyOfRange(args, flagCount, args.length));
+
+        // The first request loads the map on a fresh server
+        String expected;
+        long firstNanos;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader input = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter output = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+            long start = System.nanoTime();
+            expected = send(input, output, request);
+            firstNanos = System.nanoTime() - start;
+            output.println("QUIT");
+        }
+        if (expected.startsWith("ERROR")) {
+            System.out.print(expected);
+            return;
+        }
+        System.out.printf("First request: %.2f ms%n", firstNanos / 1e6);
+
+        // Split the requests over the connections
+        long[] latencies = new long[requests];
+        int[] errors = new int[connections];
+        Thread[] threads = new Thread[connections];
+        final int finalPort = port;
+        for (int c = 0; c < connections; c++) {
+            final int connection = c;
+            final int from = (int) ((long) requests * c / connections);
+            final int to = (int) ((long) requests * (c + 1) / connections);
+            threads[c] = new Thread(() -> {
+                try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), finalPort)) {
+                    socket.setTcpNoDelay(true);
+                    BufferedReader input = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    PrintWriter output = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+                    for (int i = from; i < to; i++) {
+                        long start = System.nanoTime();
+                        String answer = send(input, output, request);
+                        latencies[i] = System.nanoTime() - start;
+                        if (!answer.equals(expected)) {
+                            errors[connection]++; // A different answer than the first request
+                        }
+                    }
+                    output.println("QUIT");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int errorCount = 0;
+        for (int count : errors) {
+            errorCount += count;
+        }
+        Arrays.sort(latencies);
+        double total = 0;
+        for (long latency : latencies) {
+            total += latency;
+        }
+        System.out.printf("%d requests on %d connections in %.2f s: %.1f requests/s, %d differing answers%n",
+                requests, connections, seconds, requests / seconds, errorCount);
+        System.out.printf("Latency ms: mean %.2f, p50 %.2f, p90 %.2f, p99 %.2f, max %.2f%n",
+                total / requests / 1e6, percentile(latencies, 50), percentile(latencies, 90),
+                percentile(latencies, 99), latencies[requests - 1] / 1e6);
+    }
+
+    /**
+     * Sends a request and reads its response.
+     * @param input The reader of the connection
+     * @param output The writer of the connection
+     * @param request The request line
+     * @return The response without its END line
+     * @throws IOException If the connection fails or closes before the END line
+     */
+    private static String send(BufferedReader input, PrintWriter output, String request) throws IOException {
+        output.println(request);
+        StringBuilder response = new StringBuilder();
+        String line;
+        while ((line = input.readLine()) != null) {
+            if (line.equals(RoutingServer.END)) {
+                return response.toString();
+            }
+            response.append(line).append('\n');
+        }
+        throw new EOFException("Connection closed before the end of the response");
+    }
+
+    /**
+     * Gets a percentile of sorted latencies by the nearest-rank method.
+     * @param sorted Latencies in nanoseconds, sorted in increasing order
+     * @param percent The percentile, between 0 and 100
+     * @return The latency in milliseconds
+     */
+    private static double percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+}
@@ -16,15 +16,19 @@ import java.io.*;
 import java.util.*;
 
 public class Main {
-    private static Tile[][] map;
+    private static KnightRouter router;
+    private static GridGraph map;
     private static int columns;
     private static int rows;
-    private static HashMap<String, Double> travelCosts;
     private static ArrayList<int[]> objectives;
     private static int[] startingPosition;
     private static boolean drawEnabled = false;
-    private static double totalCost = 0;
-    private static int totalSteps = 0;
+    private static boolean statsEnabled = false;
+    private static boolean aStarEnabled = false;
+    private static boolean bidirectionalEnabled = false;
+    private static boolean rectanglesEnabled = false;
+    private static int chunkSize = 0; // Route on chunks of this size, 0 to search the whole map
+    private static boolean exactRefinement = false;
     private static final ArrayList<Tile> visitedTiles = new ArrayList<>();
 
     /**
@@ -33,24 +37,62 @@ public class Main {
      * @throws IOException If an I/O error occurs
      */
     public static void main(String[] args) throws IOException {
-        // Process draw flag if present
-        if (args.length > 0 && args[0].equals("-draw")) {
-            drawEnabled = true;
-            String[] newArgs = new String[args.length - 1];
-            System.arraycopy(args, 1, newArgs, 0, args.length - 1);
-            args = newArgs;
+        // Process flags if present
+        int flagCount = 0;
+        while (flagCount < args.length && args[flagCount].startsWith("-")) {
+            switch (args[flagCount]) {
+                case "-draw":
+                    drawEnabled = true;
+                    break;
+                case "-astar":
+                    aStarEnabled = true;
+                    break;
+                case "-bidirectional":
+                    bidirectionalEnabled = true;
+                    break;
+                case "-rectangles":
+                    rectanglesEnabled = true;
+                    break;
+                case "-stats":
+                    statsEnabled = true;
+                    break;
+                case "-exact":
+                    exactRefinement = true;
+                    break;
+                case "-chunks":
+                    if (flagCount + 1 >= args.length) {
+                        System.out.println("Missing value for -chunks");
+                        return;
+                    }
+                    chunkSize = Integer.parseInt(args[++flagCount]);
+                    break;
+                default:
+                    System.out.println("Unknown option: " + args[flagCount]);
+                    return;
+            }
+            flagCount++;
         }
+        args = Arrays.copyOfRange(args, flagCount, args.length);
 
-        // Check arguments
-        if (args.length < 3) {
-            System.out.println("Usage: java Main [-draw] mapData.txt travelCosts.txt objectives.txt");
+        // Check arguments: the three text files, or a compiled map and the objectives
+        boolean compiled = args.length == 2 && CompiledMap.isCompiledMap(args[0]);
+        if (args.length < 3 && !compiled) {
+            System.out.println("Usage: java Main [-draw] [-astar] [-bidirectional] [-rectangles] [-chunks n [-exact]] [-stats] mapData.txt travelCosts.txt objectives.txt");
+            System.out.println("   or: java Main [-draw] [-astar] [-bidirectional] [-rectangles] [-chunks n [-exact]] [-stats] map.bin objectives.txt");
             return;
         }
 
         // Read all input files
-        readMapData(args[0]);
-        readTravelCosts(args[1]);
-        readObjectives(args[2]);
+        if (compiled) {
+            router = KnightRouter.loadCompiled(args[0]);
+            readObjectives(args[1]);
+        } else {
+            router = KnightRouter.load(args[0], args[1]);
+            readObjectives(args[2]);
+        }
+        map = router.getMap();
+        columns = map.getColumns();
+        rows = map.getRows();
 
         // Create output directory if needed
         File outputDir = new File("out");
@@ -73,163 +115,77 @@ public class Main {
      * @throws IOException If an I/O error occurs
      */
     private static void processObjectives() throws IOException {
-        PrintWriter output = new PrintWriter(new FileWriter("out/output.txt"));
-
-        // Create the PathFinder
-        PathFinder pathFinder = new PathFinder(map, columns, rows, travelCosts);
-
-        // Start from the initial position
-        int[] currentPos = startingPosition;
-        Tile currentTile = map[currentPos[0]][currentPos[1]];
-
-        // Process each objective
-        for (int i = 0; i < objectives.size(); i++) {
-            int[] objective = objectives.get(i);
-            Tile targetTile = map[objective[0]][objective[1]];
-
-            // Find the shortest path to the current objective
-            ArrayList<Tile> path = pathFinder.findShortestPath(currentTile, targetTile);
-
-            // If a path exists, follow it
-            if (path != null && path.size() > 1) {
-                output.println("Starting position: " + currentTile);
-                double pathCost = 0;
-                visitedTiles.clear();
-
-                // Follow the path
-                for (int j = 1; j < path.size(); j++) {
-                    Tile from = path.get(j - 1);
-                    Tile to = path.get(j);
-                    visitedTiles.add(from);
-
-                    // Calculate cost for this step
-                    String key = from.getColumn() + " " + from.getRow() + " " + to.getColumn() + " " + to.getRow();
-                    String reverseKey = to.getColumn() + " " + to.getRow() + " " + from.getColumn() + " " + from.getRow();
-
-                    double stepCost = 0;
-                    if (travelCosts.containsKey(key)) {
-                        stepCost = travelCosts.get(key);
-                    } else if (travelCosts.containsKey(reverseKey)) {
-                        stepCost = travelCosts.get(reverseKey);
-                    }
-
-                    pathCost += stepCost;
-                    totalCost += stepCost;
-                    totalSteps++;
-
-                    // Write step to output file
-                    output.printf("Step Count: %d, move to %s. Total Cost: %.2f.%n", j, to, pathCost);
-
-                    // Visualize step if drawing is enabled
-                    if (drawEnabled && j != path.size() - 1) {
-                        StdDraw.clear();
-                        drawStep(to);
-                        StdDraw.pause(150);
-                    }
-                }
+        router.setStrategy(getStrategy());
+        if (chunkSize > 0) {
+            router.enableChunks(chunkSize, exactRefinement);
+        }
 
-                output.println("Objective " + (i + 1) + " reached!");
+        // Route the knight through the objectives in the given order
+        Tile source = router.getTile(startingPosition[0], startingPosition[1]);
+        ArrayList<Tile> targets = new ArrayList<>();
+        for (int[] objective : objectives) {
+            targets.add(router.getTile(objective[0], objective[1]));
+        }
+        Route route = router.route(source, targets);
 
-                // Update current position to the reached objective
-                currentPos = objective;
-                currentTile = targetTile;
+        PrintWriter output = new PrintWriter(new FileWriter("out/output.txt"));
+        route.writeOutput(output);
+        output.close();
 
-                // Visualize reaching the objective
-                if (drawEnabled) {
-                    objectives.set(i, null);
-                    drawObjectiveReached(targetTile);
-                    StdDraw.pause(700);
-                }
-            } else {
-                // Path doesn't exist
-                output.println("Objective " + (i + 1) + " cannot be reached!");
+        if (statsEnabled) {
+            for (RouteLeg leg : route.getLegs()) {
+                System.out.printf("Objective %d: %d nodes expanded%n", leg.getObjectiveNumber(), leg.getExpandedNodes());
             }
+            System.out.printf("Total nodes expanded: %d%n", router.getTotalExpandedNodes());
+            PathCache pathCache = router.getPathCache();
+            System.out.printf("Path cache: %d hits, %d misses, %d evictions%n",
+                    pathCache.getHits(), pathCache.getMisses(), pathCache.getEvictions());
         }
 
-        // Write total statistics
-        output.printf("Total Step: %d, Total Cost: %.2f%n", totalSteps, totalCost);
-        output.close();
+        if (drawEnabled) {
+            drawRoute(route);
+        }
     }
 
     /**
-     * Reads the map data file and initializes the map.
-     * @param filename The name of the map data file
-     * @throws IOException If an I/O error occurs
+     * Animates the knight following each reachable leg of the route.
+     * @param route The route to draw
      */
-    private static void readMapData(String filename) throws IOException {
-        Scanner scanner = new Scanner(new File(filename));
-
-        // Read map dimensions
-        String[] dimensions = scanner.nextLine().split(" ");
-        columns = Integer.parseInt(dimensions[0]);
-        rows = Integer.parseInt(dimensions[1]);
-
-        // Initialize map
-        map = new Tile[columns][rows];
-
-        // Read tile data
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            if (line.trim().isEmpty()) continue;
-
-            String[] parts = line.split(" ");
-            int x = Integer.parseInt(parts[0]);
-            int y = Integer.parseInt(parts[1]);
-            int type = Integer.parseInt(parts[2]);
-
-            map[x][y] = new Tile(x, y, type);
-        }
-
-        scanner.close();
-
-        // Set up adjacent tiles
-        for (int x = 0; x < columns; x++) {
-            for (int y = 0; y < rows; y++) {
-                if (map[x][y] != null) {
-                    // Add adjacent tiles in four directions (up, down, left, right)
-                    if (x > 0 && map[x-1][y] != null) {
-                        map[x][y].addAdjacentTile(map[x-1][y]);
-                    }
-                    if (x < columns-1 && map[x+1][y] != null) {
-                        map[x][y].addAdjacentTile(map[x+1][y]);
-                    }
-                    if (y > 0 && map[x][y-1] != null) {
-                        map[x][y].addAdjacentTile(map[x][y-1]);
-                    }
-                    if (y < rows-1 && map[x][y+1] != null) {
-                        map[x][y].addAdjacentTile(map[x][y+1]);
-                    }
+    private static void drawRoute(Route route) {
+        for (RouteLeg leg : route.getLegs()) {
+            if (!leg.isReached()) {
+                continue;
+            }
+            List<Tile> path = leg.getPath();
+            visitedTiles.clear();
+            for (int j = 1; j < path.size(); j++) {
+                visitedTiles.add(path.get(j - 1));
+                if (j != path.size() - 1) {
+                    StdDraw.clear();
+                    drawStep(path.get(j));
+                    StdDraw.pause(150);
                 }
             }
+
+            // Visualize reaching the objective
+            objectives.set(leg.getObjectiveNumber() - 1, null);
+            drawObjectiveReached(leg.getTarget());
+            StdDraw.pause(700);
         }
     }
 
     /**
-     * Reads the travel costs file and initializes the travel costs map.
-     * @param filename The name of the travel costs file
-     * @throws IOException If an I/O error occurs
+     * Gets the search strategy selected by the command-line flags.
+     * @return The search strategy
      */
-    private static void readTravelCosts(String filename) throws IOException {
-        Scanner scanner = new Scanner(new File(filename));
-        travelCosts = new HashMap<>();
-
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            if (line.trim().isEmpty()) continue;
-
-            String[] parts = line.split(" ");
-            int x1 = Integer.parseInt(parts[0]);
-            int y1 = Integer.parseInt(parts[1]);
-            int x2 = Integer.parseInt(parts[2]);
-            int y2 = Integer.parseInt(parts[3]);
-            double cost = Double.parseDouble(parts[4]);
-
-            // Store the cost in both directions
-            travelCosts.put(x1 + " " + y1 + " " + x2 + " " + y2, cost);
-            travelCosts.put(x2 + " " + y2 + " " + x1 + " " + y1, cost);
+    private static SearchStrategy getStrategy() {
+        if (rectanglesEnabled) {
+            return SearchStrategy.RECTANGLE_SYMMETRY;
         }
-
-        scanner.close();
+        if (bidirectionalEnabled) {
+            return aStarEnabled ? SearchStrategy.BIDIRECTIONAL_ASTAR : SearchStrategy.BIDIRECTIONAL_DIJKSTRA;
+        }
+        return aStarEnabled ? SearchStrategy.ASTAR : SearchStrategy.DIJKSTRA;
     }
 
     /**
@@ -238,26 +194,10 @@ public class Main {
      * @throws IOException If an I/O error occurs
      */
     private static void readObjectives(String filename) throws IOException {
-        Scanner scanner = new Scanner(new File(filename));
-        objectives = new ArrayList<>();
-
-        // Read starting position
-        String[] startPos = scanner.nextLine().split(" ");
-        startingPosition = new int[] {Integer.parseInt(startPos[0]), Integer.parseInt(startPos[1])};
-
-        // Read objectives
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            if (line.trim().isEmpty()) continue;
-
-            String[] parts = line.split(" ");
-            int x = Integer.parseInt(parts[0]);
-            int y = Integer.parseInt(parts[1]);
-
-            objectives.add(new int[] {x, y});
-        }
+        objectives = MapLoader.loadObjectives(filename);
 
-        scanner.close();
+        // The first position is the starting position
+        startingPosition = objectives.remove(0);
     }
 
     /**
@@ -287,11 +227,11 @@ public class Main {
     private static void drawMap() {
         for (int x = 0; x < columns; x++) {
             for (int y = 0; y < rows; y++) {
-                if (map[x][y] != null) {
+                if (map.getType(x, y) != GridGraph.MISSING) {
                     // Set texture based on tile type
-                    if (map[x][y].getType() == 0) {
+                    if (map.getType(x, y) == 0) {
                         StdDraw.picture(x, rows-1-y, "./misc/grassTile.jpeg", 1.0, 1.0); // Grass
-                    } else if (map[x][y].getType() == 1) {
+                    } else if (map.getType(x, y) == 1) {
                         StdDraw.picture(x, rows-1-y, "./misc/sandTile.png", 1.0, 1.0); // Sand
                     } else {
                         StdDraw.picture(x, rows-1-y, "./misc/impassableTile.jpeg", 1.0, 1.0); // Obstacle
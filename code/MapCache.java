@@ -0,0 +1,319 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The MapCache class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class keeps the routers of recently used maps loaded, so that a long-running process
+ * parses each map only once. Maps are keyed by the SHA-256 hash of their files, so a file that
+ * is changed on disk is loaded again and the same map under two names is loaded once. When the
+ * estimated memory of all loaded maps exceeds the cap, the least recently used maps are dropped.
+ * A map's estimate is taken again whenever it is asked for, since its caches grow with use.
+ * Requests already holding a dropped router finish on it normally.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+
+public class MapCache {
+    private static final int HASH_BUFFER_SIZE = 1 << 16;
+
+    private final long capacityBytes;
+    private final int searchThreads; // Threads that may search on every loaded map
+    private final ForkJoinPool pool; // Shared by the tours of every loaded map
+    private volatile SearchStrategy strategy = SearchStrategy.DIJKSTRA;
+    private volatile long timeBudgetMillis = 1000;
+    private volatile int treeCapacity = 0; // Most shortest path trees kept per map, 0 for none
+    // Loaded routers by content key, in order of last use
+    private final LinkedHashMap<String, CachedRouter> routers = new LinkedHashMap<>(16, 0.75f, true);
+    // Loads in progress by content key, so that concurrent requests for a map load it once
+    private final HashMap<String, FutureTask<CachedRouter>> loading = new HashMap<>();
+    // Hashes of files by path, reused while the file's size and modification time are unchanged
+    private final ConcurrentHashMap<String, FileHash> fileHashes = new ConcurrentHashMap<>();
+    private long usedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructs an empty cache.
+     * @param capacityBytes Most estimated bytes of loaded maps to keep
+     * @param searchThreads Number of threads that may search on a map at once
+     * @param pool The pool shared by the tours of every loaded map
+     */
+    public MapCache(long capacityBytes, int searchThreads, ForkJoinPool pool) {
+        this.capacityBytes = capacityBytes;
+        this.searchThreads = searchThreads;
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the search strategy of every map loaded from now on.
+     * @param strategy The search strategy
+     */
+    public void setStrategy(SearchStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Sets the tour time budget of every map loaded from now on.
+     * @param timeBudgetMillis Time budget in milliseconds
+     */
+    public void setTimeBudget(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Sets how many shortest path trees every map loaded from now on keeps.
+     * @param treeCapacity Most trees per map, 0 for none
+     */
+    public void setTreeCapacity(int treeCapacity) {
+        this.treeCapacity = treeCapacity;
+    }
+
+    /**
+     * Gets the router of a map, loading it if it is not in the cache.
+     * @param mapFile A compiled map file, or a map data file
+     * @param costFile The travel costs file of a map data file, or null for a compiled map
+     * @return The router of the map
+     * @throws IOException If a file cannot be read or is malformed
+     */
+    public KnightRouter get(String mapFile, String costFile) throws IOException {
+        String key = costFile == null ? hash(mapFile) : hash(mapFile) + "+" + hash(costFile);
+        FutureTask<CachedRouter> task;
+        boolean owner = false;
+        synchronized (this) {
+            CachedRouter cached = routers.get(key);
+            if (cached != null) {
+                hits++;
+                long bytes = cached.router.estimateBytes(searchThreads);
+                usedBytes += bytes - cached.bytes;
+                cached.bytes = bytes;
+                evict(key);
+                return cached.router;
+            }
+            misses++;
+            task = loading.get(key);
+            if (task == null) {
+                task = new FutureTask<>(() -> load(mapFile, costFile));
+                loading.put(key, task);
+                owner = true;
+            }
+        }
+
+        // Load outside the lock, other maps stay available meanwhile
+        if (owner) {
+            task.run();
+        }
+        CachedRouter loaded;
+        try {
+            loaded = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + mapFile, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } finally {
+            if (owner) {
+                synchronized (this) {
+                    loading.remove(key);
+                }
+            }
+        }
+        if (owner) {
+            synchronized (this) {
+                routers.put(key, loaded);
+                usedBytes += loaded.bytes;
+                evict(key);
+            }
+        }
+        return loaded.router;
+    }
+
+    /**
+     * Loads the router of a map.
+     * @param mapFile A compiled map file, or a map data file
+     * @param costFile The travel costs file of a map data file, or null for a compiled map
+     * @return The loaded router with its estimated size
+     * @throws IOException If a file cannot be read or is malformed
+     */
+    private CachedRouter load(String mapFile, String costFile) throws IOException {
+        GridGraph map;
+        EdgeCosts travelCosts;
+        if (costFile == null) {
+            CompiledMap compiledMap = CompiledMap.load(mapFile);
+            map = compiledMap.getMap();
+            travelCosts = compiledMap.getTravelCosts();
+        } else {
+            map = MapLoader.loadMap(mapFile);
+            travelCosts = MapLoader.loadTravelCosts(costFile, map);
+        }
+        KnightRouter router = new KnightRouter(map, travelCosts, pool);
+        router.setStrategy(strategy);
+        router.setTimeBudget(timeBudgetMillis);
+        if (treeCapacity > 0) {
+            router.enableTreeCache(treeCapacity);
+        }
+        return new CachedRouter(router, router.estimateBytes(searchThreads));
+    }
+
+    /**
+     * Drops the least recently used maps until the cache fits its capacity. The map that was
+     * just added or asked for is kept even if it alone exceeds the capacity.
+     * @param keep Key of the map that was just added or asked for
+     */
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, CachedRouter>> iterator = routers.entrySet().iterator();
+        while (usedBytes > capacityBytes && iterator.hasNext()) {
+            Map.Entry<String, CachedRouter> entry = iterator.next();
+            if (!entry.getKey().equals(keep)) {
+                usedBytes -= entry.getValue().bytes;
+                iterator.remove();
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * Gets the hash of a file's contents, hashing the file again only if its size or
+     * modification time has changed since the last call.
+     * @param filename The name of the file
+     * @return The hash as a hexadecimal string
+     * @throws IOException If the file cannot be read
+     */
+    private String hash(String filename) throws IOException {
+        Path path = Paths.get(filename).toAbsolutePath().normalize();
+        long size = Files.size(path);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        FileHash known = fileHashes.get(path.toString());
+        if (known != null && known.size == size && known.modified == modified) {
+            return known.hash;
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every Java platform must support SHA-256
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        StringBuilder hash = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hash.append(String.format("%02x", b));
+        }
+        fileHashes.put(path.toString(), new FileHash(size, modified, hash.toString()));
+        return hash.toString();
+    }
+
+    /**
+     * Gets the number of maps in the cache.
+     * @return Number of loaded maps
+     */
+    public synchronized int size() {
+        return routers.size();
+    }
+
+    /**
+     * Gets the estimated memory of all maps in the cache.
+     * @return Estimated size in bytes
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Gets the most estimated memory the cache keeps.
+     * @return Capacity in bytes
+     */
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    /**
+     * Gets the number of requests answered with a map that was already loaded.
+     * @return Number of cache hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of requests that had to wait for a map to be loaded.
+     * @return Number of cache misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of maps dropped to stay within the capacity.
+     * @return Number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * A loaded router with its estimated size.
+     */
+    private static class CachedRouter {
+        private final KnightRouter router;
+        private long bytes; // Taken again on every hit, while holding the lock of the cache
+
+        /**
+         * Constructs a cache entry.
+         * @param router The loaded router
+         * @param bytes Estimated size of the router in bytes
+         */
+        private CachedRouter(KnightRouter router, long bytes) {
+            this.router = router;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * The hash of a file's contents with the size and modification time it was computed for.
+     */
+    private static class FileHash {
+        private final long size;
+        private final long modified;
+        private final String hash;
+
+        /**
+         * Constructs a file hash record.
+         * @param size Size of the file in bytes
+         * @param modified Modification time of the file in milliseconds
+         * @param hash Hash of the file's contents
+         */
+        private FileHash(long size, long modified, String hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The MapLoader class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class reads the map, travel cost and objective files. The files are read through a
+ * FileChannel into a reused byte buffer, and numbers are parsed straight from the bytes into the
+ * GridGraph and EdgeCosts arrays, so no String is created per line. Decimal costs are parsed to
+ * exactly the same double as Double.parseDouble. Malformed input is reported with the file name
+ * and line number.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+public class MapLoader implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 20;
+    // Longest token kept for the slow decimal path
+    private static final int MAX_TOKEN = 64;
+    // Powers of ten that are exact doubles
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final String filename;
+    private final FileChannel channel;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteBuffer wrapper = ByteBuffer.wrap(buffer);
+    private int position; // Next byte to read in the buffer
+    private int limit;    // End of the valid bytes in the buffer
+    private int line = 1; // Line of the next byte to read
+    private int mark = -1; // Start of the token being parsed, kept across refills, -1 if none
+
+    /**
+     * Opens a file for parsing.
+     * @param filename The name of the file
+     * @throws IOException If the file cannot be opened
+     */
+    private MapLoader(String filename) throws IOException {
+        this.filename = filename;
+        this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+    }
+
+    /**
+     * Reads a map data file: a line with the number of columns and rows, then one
+     * "column row type" line per tile.
+     * @param filename The name of the map data file
+     * @return The grid graph of the map
+     * @throws IOException If the file cannot be read or is malformed
+     */
+    public static GridGraph loadMap(String filename) throws IOException {
+        try (MapLoader parser = new MapLoader(filename)) {
+            if (!parser.nextRecord()) {
+                throw parser.error("missing map dimensions");
+            }
+            int columns = parser.nextInt();
+            int rows = parser.nextInt();
+            if (columns <= 0 || rows <= 0) {
+                throw parser.error("map dimensions must be positive");
+            }
+            parser.skipLine();
+
+            GridGraph map = new GridGraph(columns, rows);
+            while (parser.nextRecord()) {
+                int x = parser.nextInt();
+                int y = parser.nextInt();
+                int type = parser.nextInt();
+                if (!map.contains(x, y)) {
+                    throw parser.error("tile (" + x + ", " + y + ") is outside the map");
+                }
+                map.setType(x, y, type);
+                parser.skipLine();
+            }
+            return map;
+        }
+    }
+
+    /**
+     * Reads a travel costs file of "x1 y1 x2 y2 cost" lines. Each cost applies in both directions.
+     * @param filename The name of the travel costs file
+     * @param map The grid graph the costs belong to
+     * @return The travel costs
+     * @throws IOException If the file cannot be read or is malformed
+     */
+    public static EdgeCosts loadTravelCosts(String filename, GridGraph map) throws IOException {
+        EdgeCosts travelCosts = new EdgeCosts(map);
+        try (MapLoader parser = new MapLoader(filename)) {
+            while (parser.nextRecord()) {
+                int x1 = parser.nextInt();
+                int y1 = parser.nextInt();
+                int x2 = parser.nextInt();
+                int y2 = parser.nextInt();
+                double cost = parser.nextDouble();
+
+                // Costs between tiles that are not adjacent cells of the map are never used
+                travelCosts.setCost(x1, y1, x2, y2, cost);
+                parser.skipLine();
+            }
+        }
+        return travelCosts;
+    }
+
+    /**
+     * Reads an objectives file: the starting position, then one "column row" line per objective.
+     * @param filename The name of the objectives file
+     * @return The starting position followed by the objectives, each as {column, row}
+     * @throws IOException If the file cannot be read or is malformed
+     */
+    public static ArrayList<int[]> loadObjectives(String filename) throws IOException {
+        ArrayList<int[]> positions = new ArrayList<>();
+        try (MapLoader parser = new MapLoader(filename)) {
+            if (!parser.nextRecord()) {
+                throw parser.error("missing starting position");
+            }
+            do {
+                int x = parser.nextInt();
+                int y = parser.nextInt();
+                positions.add(new int[] {x, y});
+                parser.skipLine();
+            } while (parser.nextRecord());
+        }
+        return positions;
+    }
+
+    /**
+     * Closes the file.
+     * @throws IOException If an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Moves to the first token of the next line that is not blank.
+     * @return True if there is such a line, false at the end of the file
+     * @throws IOException If an I/O error occurs
+     */
+    private boolean nextRecord() throws IOException {
+        while (true) {
+            int b = peek();
+            if (b == -1) {
+                return false;
+            }
+            if (b == '\n') {
+                line++;
+            } else if (b != ' ' && b != '\t' && b != '\r') {
+                return true;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Skips the rest of the current line, including its line break.
+     * @throws IOException If an I/O error occurs
+     */
+    private void skipLine() throws IOException {
+        while (true) {
+            int b = peek();
+            if (b == -1) {
+                return;
+            }
+            position++;
+            if (b == '\n') {
+                line++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Parses the next integer on the current line.
+     * @return The integer
+     * @throws IOException If there is no valid integer or an I/O error occurs
+     */
+    private int nextInt() throws IOException {
+        skipSpaces();
+        boolean negative = false;
+        int b = peek();
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            position++;
+            b = peek();
+        }
+        if (b < '0' || b > '9') {
+            throw error("expected an integer");
+        }
+        long value = 0;
+        while (b >= '0' && b <= '9') {
+            value = value * 10 + (b - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw error("integer out of range");
+            }
+            position++;
+            b = peek();
+        }
+        expectSeparator(b, "integer");
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw error("integer out of range");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses the next decimal number on the current line. Numbers with at most 15 significant
+     * digits and 22 decimals are computed directly, which rounds exactly like Double.parseDouble;
+     * anything longer is handed to Double.parseDouble.
+     * @return The number
+     * @throws IOException If there is no valid number or an I/O error occurs
+     */
+    private double nextDouble() throws IOException {
+        skipSpaces();
+        int b = peek();
+        mark = position;
+        boolean negative = false;
+        long mantissa = 0;
+        int digits = 0;   // Significant digits in the mantissa
+        int decimals = 0; // Digits after the decimal point
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            b = advance();
+        }
+        while (true) {
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                if (mantissa != 0 || b != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (seenPoint) {
+                    decimals++;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+            b = advance();
+            if (digits > 15) {
+                break;
+            }
+        }
+
+        boolean separator = b == -1 || b == ' ' || b == '\t' || b == '\r' || b == '\n';
+        if (separator && seenDigit && digits <= 15 && decimals < POWERS_OF_TEN.length) {
+            // Both numbers are exact doubles, so one division rounds correctly
+            mark = -1;
+            double value = mantissa / POWERS_OF_TEN[decimals];
+            return negative ? -value : value;
+        }
+
+        // Rare forms (long mantissas, exponents, NaN, Infinity) use the library parser
+        while (b != -1 && b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+            b = advance();
+        }
+        String text = new String(buffer, mark, position - mark, StandardCharsets.US_ASCII);
+        mark = -1;
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw error("expected a number but found \"" + text + "\"");
+        }
+    }
+
+    /**
+     * Consumes the current byte of a marked token and gets the next one.
+     * @return The next byte, or -1 at the end of the file
+     * @throws IOException If the token is too long or an I/O error occurs
+     */
+    private int advance() throws IOException {
+        position++;
+        if (position - mark > MAX_TOKEN) {
+            throw error("number too long");
+        }
+        return peek();
+    }
+
+    /**
+     * Checks that a number is followed by a space, a line break or the end of the file.
+     * @param b The byte after the number, or -1 at the end of the file
+     * @param kind What was parsed, for the error message
+     * @throws IOException If the number is followed by anything else
+     */
+    private void expectSeparator(int b, String kind) throws IOException {
+        if (b != -1 && b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+            throw error("unexpected character '" + (char) b + "' in " + kind);
+        }
+    }
+
+    /**
+     * Skips spaces and tabs on the current line.
+     * @throws IOException If an I/O error occurs
+     */
+    private void skipSpaces() throws IOException {
+        int b = peek();
+        while (b == ' ' || b == '\t') {
+            position++;
+            b = peek();
+        }
+    }
+
+    /**
+     * Gets the next byte without consuming it, refilling the buffer when it runs out.
+     * The bytes of a marked token are kept by moving them to the front of the buffer.
+     * @return The next byte, or -1 at the end of the file
+     * @throws IOException If an I/O error occurs
+     */
+    private int peek() throws IOException {
+        if (position < limit) {
+            return buffer[position];
+        }
+        int kept = 0;
+        if (mark >= 0) {
+            kept = limit - mark;
+            System.arraycopy(buffer, mark, buffer, 0, kept);
+            mark = 0;
+        }
+        position = kept;
+        limit = kept;
+        wrapper.clear();
+        wrapper.position(kept);
+        int read;
+        do {
+            read = channel.read(wrapper);
+        } while (read == 0);
+        if (read < 0) {
+            return -1;
+        }
+        limit = kept + read;
+        return buffer[position];
+    }
+
+    /**
+     * Creates an exception for malformed input at the current line.
+     * @param message Description of the problem
+     * @return The exception
+     */
+    private IOException error(String message) {
+        return new IOException(filename + ":" + line + ": " + message);
+    }
+}
@@ -0,0 +1,166 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The OneTreeBound class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class computes a lower bound on the cost of any tour through a set of nodes, using the
+ * Held-Karp 1-tree bound. A 1-tree is a minimum spanning tree over every node except the source,
+ * plus the two cheapest edges of the source. Every tour is a 1-tree, so the cheapest 1-tree
+ * costs no more than the best tour. Adding a penalty to each node's edges does not change which
+ * tour is best, so the penalties are tuned by subgradient steps to push the bound up: nodes with
+ * too many tree edges are made more expensive and leaves are made cheaper.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+public class OneTreeBound {
+    private final double[][] costs; // costs[i][j] between nodes, node 0 is the source
+    private final int count;        // Number of nodes, including the source
+    private final double[] penalties;
+    private final double[] bestPenalties; // Penalties that gave the best bound so far
+    private final int[] degrees;
+    private final int[] treeParent;  // Tree edge of each node, -1 for the tree's root
+    private final double[] minEdge;  // Working array of Prim's algorithm
+    private final boolean[] inTree;  // Working array of Prim's algorithm
+
+    /**
+     * Constructs a bound for the given cost matrix. Costs must be symmetric and finite.
+     * @param costs Matrix of path costs between nodes, where node 0 is the source
+     */
+    public OneTreeBound(double[][] costs) {
+        this.costs = costs;
+        this.count = costs.length;
+        this.penalties = new double[count];
+        this.bestPenalties = new double[count];
+        this.degrees = new int[count];
+        this.treeParent = new int[count];
+        this.minEdge = new double[count];
+        this.inTree = new boolean[count];
+    }
+
+    /**
+     * Computes the lower bound, tuning the penalties with subgradient steps.
+     * @param iterations Largest number of subgradient steps
+     * @param upperBound Cost of a known tour, used to size the steps
+     * @return A lower bound on the cost of every tour
+     */
+    public double compute(int iterations, double upperBound) {
+        if (count <= 3) {
+            // With at most three nodes every tour has the same cost as the only 1-tree
+            return count == 1 ? 0 : count == 2 ? 2 * costs[0][1] : costs[0][1] + costs[1][2] + costs[2][0];
+        }
+
+        double best = Double.NEGATIVE_INFINITY;
+        double stepScale = 2;
+        int stepsWithoutGain = 0;
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            double bound = oneTree();
+            if (bound > best) {
+                best = bound;
+                System.arraycopy(penalties, 0, bestPenalties, 0, count);
+                stepsWithoutGain = 0;
+            } else if (++stepsWithoutGain >= 10) {
+                // Halve the steps when the bound stops rising
+                stepScale /= 2;
+                stepsWithoutGain = 0;
+            }
+
+            // If every node has degree 2 the 1-tree is a tour, so the bound is exact
+            double squaredNorm = 0;
+            for (int node = 0; node < count; node++) {
+                int gradient = degrees[node] - 2;
+                squaredNorm += gradient * gradient;
+            }
+            if (squaredNorm == 0 || best >= upperBound - 1e-9 || stepScale < 1e-6) {
+                break;
+            }
+
+            double step = stepScale * (upperBound - bound) / squaredNorm;
+            for (int node = 1; node < count; node++) {
+                penalties[node] += step * (degrees[node] - 2);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the node penalties that gave the best bound of the last computation. They can be added
+     * to the edge costs of any search over tours without changing which tour is best.
+     * @return Penalty of each node, 0 for the source
+     */
+    public double[] getPenalties() {
+        return bestPenalties.clone();
+    }
+
+    /**
+     * Builds the cheapest 1-tree under the current penalties and records every node's degree.
+     * @return Cost of the 1-tree minus twice the sum of the penalties
+     */
+    private double oneTree() {
+        for (int node = 0; node < count; node++) {
+            degrees[node] = 0;
+            inTree[node] = false;
+            minEdge[node] = Double.POSITIVE_INFINITY;
+            treeParent[node] = -1;
+        }
+
+        // Prim's algorithm over every node except the source, rooted at node 1
+        double total = 0;
+        minEdge[1] = 0;
+        for (int added = 1; added < count; added++) {
+            int next = -1;
+            for (int node = 1; node < count; node++) {
+                if (!inTree[node] && (next == -1 || minEdge[node] < minEdge[next])) {
+                    next = node;
+                }
+            }
+            inTree[next] = true;
+            total += minEdge[next];
+            if (treeParent[next] != -1) {
+                degrees[next]++;
+                degrees[treeParent[next]]++;
+            }
+            for (int node = 1; node < count; node++) {
+                double weight = weight(next, node);
+                if (!inTree[node] && weight < minEdge[node]) {
+                    minEdge[node] = weight;
+                    treeParent[node] = next;
+                }
+            }
+        }
+
+        // The source joins the tree with its two cheapest edges
+        int first = -1;
+        int second = -1;
+        for (int node = 1; node < count; node++) {
+            if (first == -1 || weight(0, node) < weight(0, first)) {
+                second = first;
+                first = node;
+            } else if (second == -1 || weight(0, node) < weight(0, second)) {
+                second = node;
+            }
+        }
+        total += weight(0, first) + weight(0, second);
+        degrees[0] = 2;
+        degrees[first]++;
+        degrees[second]++;
+
+        double penaltySum = 0;
+        for (int node = 0; node < count; node++) {
+            penaltySum += penalties[node];
+        }
+        return total - 2 * penaltySum;
+    }
+
+    /**
+     * Gets the cost of an edge with both ends' penalties added.
+     * @param i First node
+     * @param j Second node
+     * @return Penalised cost of the edge
+     */
+    private double weight(int i, int j) {
+        return costs[i][j] + penalties[i] + penalties[j];
+    }
+}
@@ -0,0 +1,309 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The PathCache class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class remembers the shortest paths found between pairs of cells, so that a pair asked
+ * for again is answered without a search. Travel costs are the same in both directions, so a
+ * path is stored once per unordered pair and a query in the other direction gets it reversed.
+ * A path is kept as its first cell and two bits per step for the direction of the move, and a
+ * pair with no path is kept too. When the cache is full the least recently used pair is dropped.
+ * A tour reserves room for its pairs while it runs, and the cache shrinks back afterwards.
+ * All methods may be called from several threads at once.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PathCache {
+    private final GridGraph map;
+    private final int capacity; // Most pairs kept besides the reserved ones
+    private long reserved;      // Pairs reserved by the tours running now
+    // Paths by pair of cells, in order of last use
+    private final LinkedHashMap<Long, CachedPath> paths;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructs an empty cache.
+     * @param map The grid graph the paths are on
+     * @param capacity Most pairs of cells to keep
+     */
+    public PathCache(GridGraph map, int capacity) {
+        this.map = map;
+        this.capacity = capacity;
+        this.paths = new LinkedHashMap<Long, CachedPath>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedPath> eldest) {
+                if (size() > PathCache.this.capacity + reserved) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Estimates the memory the cache takes when it is full, with a path as long as the width
+     * and height of the map together for every pair.
+     * @return Estimated size in bytes
+     */
+    public synchronized long estimateBytes() {
+        // The map entry and its table slot, the boxed key, the path and its array of moves
+        long pathBytes = 48 + 16 + 40 + 16 + (map.getColumns() + map.getRows() + 3) / 4;
+        return (capacity + reserved) * pathBytes;
+    }
+
+    /**
+     * Makes room for more pairs until they are released, so that a tour's pairs are not
+     * dropped before it is followed.
+     * @param pairs Number of pairs to make room for
+     */
+    public synchronized void reserve(long pairs) {
+        reserved += pairs;
+    }
+
+    /**
+     * Gives back the room made by reserve, dropping the least recently used pairs until the
+     * cache fits again.
+     * @param pairs Number of pairs that were reserved
+     */
+    public synchronized void release(long pairs) {
+        reserved -= pairs;
+        Iterator<CachedPath> iterator = paths.values().iterator();
+        while (paths.size() > capacity + reserved && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Checks if the path between two cells can be stored for both directions. A path may start
+     * on an obstacle but never enter one, so it can only be reversed if both ends are passable.
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @return True if the pair can be cached
+     */
+    public boolean isCacheable(int sourceCell, int targetCell) {
+        return map.isPassable(sourceCell) && map.isPassable(targetCell);
+    }
+
+    /**
+     * Looks up the path between two cells.
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @return The stored path, or null if the pair is not in the cache
+     */
+    public synchronized CachedPath get(int sourceCell, int targetCell) {
+        CachedPath path = paths.get(key(sourceCell, targetCell));
+        if (path == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return path;
+    }
+
+    /**
+     * Checks if the pair of two cells is in the cache, without counting a hit or a miss. A pair
+     * that is there counts as just used.
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @return True if the pair is stored
+     */
+    public synchronized boolean contains(int sourceCell, int targetCell) {
+        return paths.get(key(sourceCell, targetCell)) != null;
+    }
+
+    /**
+     * Stores the path between two cells.
+     * @param cells The cells of the path from its source to its target
+     * @param cost The cost of the path
+     */
+    public void put(int[] cells, double cost) {
+        int sourceCell = cells[0];
+        int targetCell = cells[cells.length - 1];
+        if (isCacheable(sourceCell, targetCell)) {
+            store(sourceCell, targetCell, new CachedPath(sourceCell, encode(cells, cells.length), cells.length, cost, sourceCell));
+        }
+    }
+
+    /**
+     * Stores the path between two cells, given from the target back to the source as it is
+     * read from a search's previous cells. The path is stored from the target, which serves
+     * both directions just as well, and its cost was added up from the source.
+     * @param reversedCells The cells of the path from the target back to the source
+     * @param length Number of cells of the path
+     * @param cost The cost of the path
+     */
+    public void putReversed(int[] reversedCells, int length, double cost) {
+        int targetCell = reversedCells[0];
+        int sourceCell = reversedCells[length - 1];
+        if (isCacheable(sourceCell, targetCell)) {
+            store(sourceCell, targetCell, new CachedPath(targetCell, encode(reversedCells, length), length, cost, sourceCell));
+        }
+    }
+
+    /**
+     * Stores that there is no path between two cells.
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     */
+    public void putUnreachable(int sourceCell, int targetCell) {
+        if (isCacheable(sourceCell, targetCell)) {
+            store(sourceCell, targetCell, new CachedPath(sourceCell, null, 0, Double.POSITIVE_INFINITY, sourceCell));
+        }
+    }
+
+    /**
+     * Stores a path under its pair of cells.
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @param path The path
+     */
+    private synchronized void store(int sourceCell, int targetCell, CachedPath path) {
+        paths.put(key(sourceCell, targetCell), path);
+    }
+
+    /**
+     * Packs the moves of a path into two bits each.
+     * @param cells The cells of the path
+     * @param length Number of cells of the path
+     * @return The directions of the moves, four per byte
+     */
+    private byte[] encode(int[] cells, int length) {
+        byte[] moves = new byte[(length - 1 + 3) / 4];
+        for (int i = 1; i < length; i++) {
+            int direction = map.direction(cells[i - 1], cells[i]);
+            moves[(i - 1) >> 2] |= (byte) (direction << (((i - 1) & 3) << 1));
+        }
+        return moves;
+    }
+
+    /**
+     * Gets the key of an unordered pair of cells.
+     * @param a One cell
+     * @param b The other cell
+     * @return The key, the same for both orders
+     */
+    private static long key(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     * @return Number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups of pairs not in the cache.
+     * @return Number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of pairs dropped because the cache was full.
+     * @return Number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the number of pairs in the cache.
+     * @return Number of cached pairs
+     */
+    public synchronized int size() {
+        return paths.size();
+    }
+
+    /**
+     * A path stored as its first cell and the directions of its moves.
+     */
+    public static class CachedPath {
+        private final int firstCell;
+        private final byte[] moves; // Two bits per move, or null if there is no path
+        private final int length;   // Number of cells of the path
+        private final double cost;
+        private final int costCell; // The end the cost was added up from
+
+        /**
+         * Constructs a stored path.
+         * @param firstCell The cell the moves start from
+         * @param moves The packed directions of the moves, or null if there is no path
+         * @param length Number of cells of the path
+         * @param cost The cost of the path, infinity if there is none
+         * @param costCell The end of the path the cost was added up from
+         */
+        private CachedPath(int firstCell, byte[] moves, int length, double cost, int costCell) {
+            this.firstCell = firstCell;
+            this.moves = moves;
+            this.length = length;
+            this.cost = cost;
+            this.costCell = costCell;
+        }
+
+        /**
+         * Checks if there is a path between the two cells.
+         * @return True if a path was stored
+         */
+        public boolean exists() {
+            return moves != null;
+        }
+
+        /**
+         * Gets the cost of the path.
+         * @return The path cost, infinity if there is no path
+         */
+        public double getCost() {
+            return cost;
+        }
+
+        /**
+         * Checks if the cost was added up from the given end. Added up from the other end, the
+         * same steps can round to a different last bit.
+         * @param sourceCell The cell a query starts from, either end of the path
+         * @return True if the cost is the one a search from the cell finds
+         */
+        public boolean isCostFrom(int sourceCell) {
+            return moves == null || sourceCell == costCell;
+        }
+
+        /**
+         * Unpacks the cells of the path in the direction of a query.
+         * @param map The grid graph the path is on
+         * @param sourceCell The cell the query starts from, either end of the path
+         * @return The cells of the path from the source, or null if there is no path
+         */
+        public int[] getCells(GridGraph map, int sourceCell) {
+            if (moves == null) {
+                return null;
+            }
+            boolean reversed = sourceCell != firstCell;
+            int[] cells = new int[length];
+            int cell = firstCell;
+            cells[reversed ? length - 1 : 0] = cell;
+            for (int i = 1; i < length; i++) {
+                int direction = (moves[(i - 1) >> 2] >> (((i - 1) & 3) << 1)) & 3;
+                cell = map.neighbor(cell, direction);
+                cells[reversed ? length - 1 - i : i] = cell;
+            }
+            return cells;
+        }
+    }
+}
@@ -13,151 +13,869 @@
  * @since 2025-05-08
  */
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.PriorityQueue;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 public class PathFinder {
-    private Tile[][] map;
-    private int columns;
-    private int rows;
-    private HashMap<String, Double> travelCosts;
+    private final GridGraph map;
+    private final EdgeCosts travelCosts;
+
+    // Every thread searches in its own workspace, created on its first search and reused afterwards
+    private final ThreadLocal<SearchState> forwardStates;
+    private final ThreadLocal<SearchState> backwardStates; // Searches from the target
+
+    private volatile SearchStrategy strategy = SearchStrategy.DIJKSTRA;
+    private volatile double heuristicWeight = -1; // Cheapest edge cost, computed on first use by A*
+    private volatile PathCache pathCache; // Paths already found, or null to search every time
+    private volatile TreeCache treeCache; // Complete trees of often used cells, or null to build none
+    private volatile UniformRegions uniformRegions; // Rectangles of uniform cost, found when first selected
+    private volatile ConnectedComponents components; // Labels that reject unreachable pairs, or null
+    private final LongAdder totalExpandedNodes = new LongAdder(); // Cells expanded by all searches
 
     /**
      * Constructs a PathFinder for finding the shortest paths on the given map.
-     * @param map The 2D array of tiles representing the map
-     * @param columns Number of columns in the map
-     * @param rows Number of rows in the map
-     * @param travelCosts HashMap containing travel costs between tiles
+     * Searches may run on several threads at once, each one reads the results of its own last search.
+     * @param map The grid graph representing the map
+     * @param travelCosts Travel costs between adjacent tiles
      */
-    public PathFinder(Tile[][] map, int columns, int rows, HashMap<String, Double> travelCosts) {
+    public PathFinder(GridGraph map, EdgeCosts travelCosts) {
         this.map = map;
-        this.columns = columns;
-        this.rows = rows;
         this.travelCosts = travelCosts;
+        this.forwardStates = ThreadLocal.withInitial(() -> new SearchState(map.getCellCount()));
+        this.backwardStates = ThreadLocal.withInitial(() -> new SearchState(map.getCellCount()));
+    }
+
+    /**
+     * Sets the algorithm used for point-to-point searches. Selecting RECTANGLE_SYMMETRY the
+     * first time finds the rectangles of uniform cost of the map.
+     * @param strategy The search strategy
+     */
+    public void setStrategy(SearchStrategy strategy) {
+        if (strategy == SearchStrategy.RECTANGLE_SYMMETRY && uniformRegions == null) {
+            uniformRegions = new UniformRegions(map, this);
+        }
+        this.strategy = strategy;
+    }
+
+    /**
+     * Gets the algorithm used for point-to-point searches.
+     * @return The search strategy
+     */
+    public SearchStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Gets the rectangles of uniform cost used by the RECTANGLE_SYMMETRY strategy.
+     * @return The rectangles, or null if the strategy was never selected
+     */
+    public UniformRegions getUniformRegions() {
+        return uniformRegions;
+    }
+
+    /**
+     * Sets the connected components of the map. Queries between cells of different components
+     * are then answered without a search, and distance sweeps do not wait for such targets.
+     * @param components The components of the map, or null to find out by searching
+     */
+    public void setComponents(ConnectedComponents components) {
+        this.components = components;
+    }
+
+    /**
+     * Gets the connected components of the map.
+     * @return The components, or null if there are none
+     */
+    public ConnectedComponents getComponents() {
+        return components;
+    }
+
+    /**
+     * Sets the cache that answers repeated queries without a search. Point-to-point searches
+     * and distance sweeps store the paths they find in it.
+     * @param pathCache The path cache, or null to search every time
+     */
+    public void setPathCache(PathCache pathCache) {
+        this.pathCache = pathCache;
+    }
+
+    /**
+     * Gets the cache that answers repeated queries.
+     * @return The path cache, or null if there is none
+     */
+    public PathCache getPathCache() {
+        return pathCache;
+    }
+
+    /**
+     * Sets the cache of complete shortest path trees. Queries from or to a cell with a tree are
+     * answered from the tree, and a cell that queries keep using gets its tree built.
+     * @param treeCache The tree cache, or null to never build trees
+     */
+    public void setTreeCache(TreeCache treeCache) {
+        this.treeCache = treeCache;
     }
 
     /**
-     * Finds the shortest path from source to target using Dijkstra's algorithm.
+     * Gets the cache of complete shortest path trees.
+     * @return The tree cache, or null if there is none
+     */
+    public TreeCache getTreeCache() {
+        return treeCache;
+    }
+
+    /**
+     * Gets the number of cells expanded by the last search of the calling thread.
+     * @return Number of expanded cells
+     */
+    public long getExpandedNodes() {
+        return forwardStates.get().getExpandedNodes();
+    }
+
+    /**
+     * Gets the number of cells expanded by all searches so far, on all threads.
+     * @return Number of expanded cells
+     */
+    public long getTotalExpandedNodes() {
+        return totalExpandedNodes.sum();
+    }
+
+    /**
+     * Finds the shortest path from source to target using the selected search strategy.
      * @param source The starting tile
      * @param target The destination tile
      * @return ArrayList of tiles representing the shortest path, or null if no path exists
      */
     public ArrayList<Tile> findShortestPath(Tile source, Tile target) {
-        // Reset all tiles' pathfinding properties
-        for (int i = 0; i < columns; i++) {
-            for (int j = 0; j < rows; j++) {
-                if (map[i][j] != null) {
-                    map[i][j].setDistance(Double.POSITIVE_INFINITY);
-                    map[i][j].setPrevious(null);
-                    map[i][j].setVisited(false);
+        int sourceCell = map.index(source);
+        int targetCell = map.index(target);
+        SearchState state = forwardStates.get();
+        SearchStrategy strategy = this.strategy;
+
+        // Ends in different components are told apart by their labels
+        ConnectedComponents components = this.components;
+        if (components != null && !components.isConnected(sourceCell, targetCell)) {
+            state.reset();
+            state.setResult(targetCell, Double.POSITIVE_INFINITY);
+            return null;
+        }
+
+        // Answer from the cache without a search, leaving the state as if the path was just found.
+        // A cost added up from the other end is added up again, as a search from the source would
+        PathCache pathCache = this.pathCache;
+        boolean cacheable = pathCache != null && pathCache.isCacheable(sourceCell, targetCell);
+        if (cacheable) {
+            PathCache.CachedPath cached = pathCache.get(sourceCell, targetCell);
+            if (cached != null) {
+                int[] cells = cached.getCells(map, sourceCell);
+                state.reset();
+                state.setResult(targetCell, cached.isCostFrom(sourceCell) ? cached.getCost() : getPathCost(cells));
+                return cells == null ? null : toTiles(cells);
+            }
+        }
+
+        // Answer from a complete tree of either end, building it if the end is used often
+        TreeCache treeCache = this.treeCache;
+        if (treeCache != null) {
+            TreeCache.ShortestPathTree tree = findTree(treeCache, state, sourceCell, targetCell);
+            if (tree != null) {
+                int[] cells = tree.getPath(sourceCell, targetCell);
+                state.reset();
+                state.setResult(targetCell, cells == null ? Double.POSITIVE_INFINITY : getPathCost(cells));
+                return cells == null ? null : toTiles(cells);
+            }
+        }
+
+        ArrayList<Tile> path;
+        if (strategy == SearchStrategy.BIDIRECTIONAL_DIJKSTRA || strategy == SearchStrategy.BIDIRECTIONAL_ASTAR) {
+            SearchState backwardState = backwardStates.get();
+            int meetingCell = searchBidirectional(state, backwardState, sourceCell, targetCell, strategy);
+            path = meetingCell < 0 ? null : buildPath(state, backwardState, meetingCell, targetCell);
+        } else if (strategy == SearchStrategy.RECTANGLE_SYMMETRY && uniformRegions.getCount() > 0) {
+            searchRegions(state, sourceCell, targetCell);
+            path = state.getPathCost() == Double.POSITIVE_INFINITY ? null : buildJumpPath(state, targetCell);
+        } else {
+            // A map without rectangles of uniform cost gets plain Dijkstra
+            search(state, sourceCell, targetCell, strategy);
+
+            // Check if target is reachable
+            path = state.getPathCost() == Double.POSITIVE_INFINITY ? null : buildPath(state, null, targetCell, targetCell);
+        }
+
+        if (cacheable) {
+            if (path == null) {
+                pathCache.putUnreachable(sourceCell, targetCell);
+            } else {
+                int[] cells = new int[path.size()];
+                for (int i = 0; i < cells.length; i++) {
+                    cells[i] = map.index(path.get(i));
                 }
+                pathCache.put(cells, state.getPathCost());
             }
         }
+        return path; // Null if no path exists
+    }
 
-        // Initialize source
-        source.setDistance(0);
+    /**
+     * Gets the distance of a tile from the source of the last search of the calling thread.
+     * After a bidirectional search only the distance of the target is known.
+     * @param tile The tile
+     * @return Distance from the last source, or infinity if it was not reached
+     */
+    public double getDistance(Tile tile) {
+        SearchState state = forwardStates.get();
+        int cell = map.index(tile);
+        if (cell == state.getTargetCell()) {
+            return state.getPathCost();
+        }
+        return state.getDistance(cell);
+    }
+
+    /**
+     * Finds the shortest distances from one source to several targets with a single
+     * Dijkstra sweep, which stops as soon as every reachable target is settled.
+     * @param source The starting tile
+     * @param targets The destination tiles
+     * @return Distance to each target in the same order, infinity for unreachable targets
+     */
+    public double[] findDistances(Tile source, List<Tile> targets) {
+        int sourceCell = map.index(source);
+
+        // Targets that cannot be entered or reached are never settled, so the sweep does not wait for them
+        ConnectedComponents components = this.components;
+        int[] targetCells = new int[targets.size()];
+        int count = 0;
+        for (Tile target : targets) {
+            int cell = map.index(target);
+            if (cell == sourceCell || map.isPassable(cell)
+                    && (components == null || components.isConnected(sourceCell, cell))) {
+                targetCells[count++] = cell;
+            }
+        }
+        Arrays.sort(targetCells, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || targetCells[i] != targetCells[unique - 1]) {
+                targetCells[unique++] = targetCells[i];
+            }
+        }
+
+        // Skip the sweep if the cache knows every distance
+        double[] distances = new double[targets.size()];
+        PathCache pathCache = this.pathCache;
+        if (pathCache != null && findCachedDistances(pathCache, sourceCell, targets, distances)) {
+            return distances;
+        }
+
+        // A complete tree of the source has every distance, added up in the order of a sweep
+        TreeCache treeCache = this.treeCache;
+        if (treeCache != null) {
+            TreeCache.ShortestPathTree tree = treeCache.find(sourceCell, sourceCell);
+            if (tree != null) {
+                for (int i = 0; i < distances.length; i++) {
+                    int[] cells = tree.getPath(sourceCell, map.index(targets.get(i)));
+                    distances[i] = cells == null ? Double.POSITIVE_INFINITY : getPathCost(cells);
+                }
+                return distances;
+            }
+        }
+
+        SearchState state = forwardStates.get();
+        sweep(state, sourceCell, targetCells, unique);
+        if (pathCache != null) {
+            cacheSweep(pathCache, state, sourceCell, targetCells, unique);
+        }
+
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = state.getDistance(map.index(targets.get(i)));
+        }
+        return distances;
+    }
+
+    /**
+     * Finds the tree that answers a query, counting the query at both of its ends. When an end
+     * has been used often enough its tree is built first, the source's if both qualify.
+     * @param treeCache The tree cache
+     * @param state The workspace to build a tree in
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @return The tree, or null if the query needs a search
+     */
+    private TreeCache.ShortestPathTree findTree(TreeCache treeCache, SearchState state, int sourceCell, int targetCell) {
+        TreeCache.ShortestPathTree tree = treeCache.find(sourceCell, targetCell);
+        if (tree != null) {
+            return tree;
+        }
+        boolean sourceDue = treeCache.recordUse(sourceCell);
+        boolean targetDue = targetCell != sourceCell && treeCache.recordUse(targetCell);
+        if (sourceDue) {
+            tree = buildTree(state, sourceCell);
+        } else if (targetDue && map.isPassable(sourceCell) && map.isPassable(targetCell)) {
+            tree = buildTree(state, targetCell);
+        } else {
+            return null;
+        }
+        treeCache.put(tree);
+        return tree;
+    }
+
+    /**
+     * Runs a sweep that settles every cell reachable from a root and copies out its tree.
+     * @param state The workspace to sweep in
+     * @param rootCell The root cell
+     * @return The shortest path tree of the root
+     */
+    private TreeCache.ShortestPathTree buildTree(SearchState state, int rootCell) {
+        sweep(state, rootCell, null, 0);
+        int cellCount = map.getCellCount();
+        int[] previous = new int[cellCount];
+        float[] distance = new float[cellCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            previous[cell] = state.getPrevious(cell);
+            distance[cell] = (float) state.getDistance(cell);
+        }
+        return new TreeCache.ShortestPathTree(rootCell, previous, distance);
+    }
+
+    /**
+     * Adds up the travel costs along a path from its first cell, in the same order as a
+     * search from that cell adds them up.
+     * @param cells The cells of the path
+     * @return The cost of the path
+     */
+    public double getPathCost(int[] cells) {
+        double cost = 0;
+        for (int i = 1; i < cells.length; i++) {
+            cost += getCost(cells[i - 1], map.direction(cells[i - 1], cells[i]), cells[i]);
+        }
+        return cost;
+    }
+
+    /**
+     * Looks up the distances from one source to several targets in the path cache.
+     * @param pathCache The path cache
+     * @param sourceCell The starting cell
+     * @param targets The destination tiles
+     * @param distances Filled with the distance to each target in the same order
+     * @return True if every distance was found, false if a sweep is needed
+     */
+    private boolean findCachedDistances(PathCache pathCache, int sourceCell, List<Tile> targets, double[] distances) {
+        for (int i = 0; i < distances.length; i++) {
+            int targetCell = map.index(targets.get(i));
+            if (targetCell == sourceCell) {
+                distances[i] = 0;
+                continue;
+            }
+            if (!pathCache.isCacheable(sourceCell, targetCell)) {
+                return false;
+            }
+            PathCache.CachedPath cached = pathCache.get(sourceCell, targetCell);
+            if (cached == null) {
+                return false;
+            }
+            distances[i] = cached.isCostFrom(sourceCell) ? cached.getCost() : getPathCost(cached.getCells(map, sourceCell));
+        }
+        return true;
+    }
+
+    /**
+     * Stores the paths of a finished sweep to its targets in the path cache. A target the sweep
+     * did not reach cannot be reached at all, since the sweep only stops early once every
+     * target is settled. A pair already in the cache keeps its path, so that sweeps from both
+     * ends of a pair do not replace one path of equal cost with another.
+     * @param pathCache The path cache
+     * @param state The workspace of the sweep
+     * @param sourceCell The starting cell
+     * @param targetCells Sorted, distinct target cells in the first targetCount slots
+     * @param targetCount Number of target cells
+     */
+    private void cacheSweep(PathCache pathCache, SearchState state, int sourceCell, int[] targetCells, int targetCount) {
+        int[] cells = new int[16];
+        for (int t = 0; t < targetCount; t++) {
+            int targetCell = targetCells[t];
+            if (targetCell == sourceCell || !pathCache.isCacheable(sourceCell, targetCell)
+                    || pathCache.contains(sourceCell, targetCell)) {
+                continue;
+            }
+            if (!state.isReached(targetCell)) {
+                pathCache.putUnreachable(sourceCell, targetCell);
+                continue;
+            }
 
-        // Create priority queue for Dijkstra's algorithm
-        PriorityQueue<Tile> queue = new PriorityQueue<>(new Comparator<Tile>() {
-            @Override
-            public int compare(Tile t1, Tile t2) {
-                if (t1.getDistance() < t2.getDistance())
-                    return -1;
-                if (t1.getDistance() > t2.getDistance())
-                    return 1;
-                return 0;
+            // Follow the previous cells from the target back to the source
+            int length = 0;
+            for (int cell = targetCell; cell != -1; cell = state.getPrevious(cell)) {
+                if (length == cells.length) {
+                    cells = Arrays.copyOf(cells, 2 * length);
+                }
+                cells[length++] = cell;
             }
-        });
+            pathCache.putReversed(cells, length, state.getDistance(targetCell));
+        }
+    }
 
-        queue.add(source);
+    /**
+     * Runs Dijkstra's algorithm from a source cell until all given target cells are settled,
+     * or until every reachable cell is settled.
+     * @param state The workspace to search in
+     * @param sourceCell The starting cell
+     * @param targetCells Sorted, distinct target cells in the first targetCount slots,
+     *                    or null to settle every reachable cell
+     * @param targetCount Number of target cells
+     */
+    private void sweep(SearchState state, int sourceCell, int[] targetCells, int targetCount) {
+        state.reset();
+        IndexedMinHeap queue = state.getQueue();
+        state.update(sourceCell, 0, -1);
+        queue.insertOrDecrease(sourceCell, 0);
+
+        int remaining = targetCells == null ? -1 : targetCount; // Never reaches 0 without targets
+        while (!queue.isEmpty() && remaining != 0) {
+            int current = queue.poll();
+            if (targetCells != null && Arrays.binarySearch(targetCells, 0, targetCount, current) >= 0) {
+                remaining--;
+                if (remaining == 0) {
+                    break;
+                }
+            }
+
+            double currentDistance = state.getDistance(current);
+            state.countExpanded();
+
+            for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                int neighbor = map.neighbor(current, direction);
+                if (neighbor < 0 || map.getType(neighbor) == GridGraph.OBSTACLE) {
+                    continue;
+                }
+
+                double newDistance = currentDistance + getCost(current, direction, neighbor);
+                double oldDistance = state.getDistance(neighbor);
+                if (newDistance < oldDistance) {
+                    state.update(neighbor, newDistance, current);
+                    queue.insertOrDecrease(neighbor, newDistance, newDistance);
+                } else if (newDistance == oldDistance && current < state.getPrevious(neighbor)
+                        && queue.contains(neighbor)) {
+                    state.update(neighbor, newDistance, current);
+                }
+            }
+        }
+        totalExpandedNodes.add(state.getExpandedNodes());
+    }
+
+    /**
+     * Runs Dijkstra's algorithm, or A* if selected, from a source cell until the target cell is settled.
+     * When several paths have the same cost, each cell keeps the lowest numbered previous cell,
+     * so both strategies return the same path.
+     * @param state The workspace to search in
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @param strategy DIJKSTRA or ASTAR, any other strategy searches like DIJKSTRA
+     */
+    private void search(SearchState state, int sourceCell, int targetCell, SearchStrategy strategy) {
+        state.reset();
+        IndexedMinHeap queue = state.getQueue();
+
+        // A* adds a lower bound of the remaining cost to the queue key, Dijkstra uses zero
+        double weight = strategy == SearchStrategy.ASTAR ? getHeuristicWeight() : 0;
+        int targetColumn = map.getColumn(targetCell);
+        int targetRow = map.getRow(targetCell);
+
+        // Initialize source
+        state.update(sourceCell, 0, -1);
+        queue.insertOrDecrease(sourceCell, 0);
 
         // Process the queue
         while (!queue.isEmpty()) {
-            Tile current = queue.poll();
+            int current = queue.poll();
 
             // If we've reached the target, we're done
-            if (current.equals(target)) {
+            if (current == targetCell) {
                 break;
             }
 
-            // Skip if already visited
-            if (current.isVisited()) {
-                continue;
+            double currentDistance = state.getDistance(current);
+            state.countExpanded();
+
+            // Process each adjacent cell
+            for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                int neighbor = map.neighbor(current, direction);
+
+                // Skip cells outside the map and obstacles (type 2)
+                if (neighbor < 0 || map.getType(neighbor) == GridGraph.OBSTACLE) {
+                    continue;
+                }
+
+                double newDistance = currentDistance + getCost(current, direction, neighbor);
+                double oldDistance = state.getDistance(neighbor);
+
+                // Update distance if we've found a shorter path
+                if (newDistance < oldDistance) {
+                    state.update(neighbor, newDistance, current);
+                    double estimate = 0;
+                    if (weight > 0) {
+                        estimate = weight * (Math.abs(map.getColumn(neighbor) - targetColumn)
+                                + Math.abs(map.getRow(neighbor) - targetRow));
+                    }
+                    // Equal keys are broken by distance, so a cell is settled after the cells leading to it
+                    queue.insertOrDecrease(neighbor, newDistance + estimate, newDistance);
+                } else if (newDistance == oldDistance && current < state.getPrevious(neighbor)
+                        && queue.contains(neighbor)) {
+                    state.update(neighbor, newDistance, current);
+                }
             }
+        }
+        state.setResult(targetCell, state.getDistance(targetCell));
+        totalExpandedNodes.add(state.getExpandedNodes());
+    }
 
-            current.setVisited(true);
+    /**
+     * Runs Dijkstra's algorithm over the borders of the rectangles of uniform cost and the cells
+     * outside them. A border cell does not step into its rectangle but jumps straight across it
+     * to the opposite side. A source inside a rectangle leaves it straight towards each side, and
+     * a target inside a rectangle is entered straight from the border cells in line with it.
+     * Only the cost of the target is known afterwards.
+     * @param state The workspace to search in
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     */
+    private void searchRegions(SearchState state, int sourceCell, int targetCell) {
+        state.reset();
+        IndexedMinHeap queue = state.getQueue();
+        UniformRegions regions = uniformRegions;
+        int targetRegion = regions.getRegion(targetCell);
+        if (targetRegion >= 0 && !regions.isInside(targetRegion, targetCell)) {
+            targetRegion = -1; // A target on a border is reached like any other cell
+        }
+        int targetColumn = map.getColumn(targetCell);
+        int targetRow = map.getRow(targetCell);
 
-            // Process each adjacent tile
-            ArrayList<Tile> neighbors = current.getAdjacentTiles();
-            for (int i = 0; i < neighbors.size(); i++) {
-                Tile neighbor = neighbors.get(i);
+        state.update(sourceCell, 0, -1);
+        queue.insertOrDecrease(sourceCell, 0);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            if (current == targetCell) {
+                break;
+            }
+            double currentDistance = state.getDistance(current);
+            state.countExpanded();
+            int region = regions.getRegion(current);
+            int column = map.getColumn(current);
+            int row = map.getRow(current);
 
-                // Skip obstacles (type 2)
-                if (neighbor.getType() == 2) {
+            // Only the source can be inside a rectangle: leave it towards every side
+            if (region >= 0 && regions.isInside(region, current)) {
+                double cost = regions.getCost(region);
+                for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                    int border = regions.getBorderCell(region, current, direction);
+                    relax(state, current, border, currentDistance + cost * distance(current, border));
+                }
+                if (region == targetRegion) {
+                    relax(state, current, targetCell, currentDistance + cost * distance(current, targetCell));
+                }
+                continue;
+            }
+
+            for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                int neighbor = map.neighbor(current, direction);
+                if (neighbor < 0 || map.getType(neighbor) == GridGraph.OBSTACLE) {
+                    continue;
+                }
+                if (region >= 0 && regions.getRegion(neighbor) == region && regions.isInside(region, neighbor)) {
+                    // Cross the rectangle instead of stepping into it
+                    int border = regions.getBorderCell(region, current, direction);
+                    relax(state, current, border, currentDistance + regions.getCost(region) * distance(current, border));
                     continue;
                 }
+                relax(state, current, neighbor, currentDistance + getCost(current, direction, neighbor));
+            }
+
+            // Enter a rectangle holding the target from the border cells in line with it
+            if (region >= 0 && region == targetRegion && (column == targetColumn || row == targetRow)) {
+                relax(state, current, targetCell, currentDistance + regions.getCost(region) * distance(current, targetCell));
+            }
+        }
+        state.setResult(targetCell, state.getDistance(targetCell));
+        totalExpandedNodes.add(state.getExpandedNodes());
+    }
 
-                // Get the travel cost between current and neighbor
-                double cost = getCost(current, neighbor);
-                double newDistance = current.getDistance() + cost;
+    /**
+     * Records a path to a cell if it is shorter than the one known.
+     * @param state The workspace of the search
+     * @param current The cell the path comes from
+     * @param cell The cell reached
+     * @param newDistance Distance of the cell along the path
+     */
+    private void relax(SearchState state, int current, int cell, double newDistance) {
+        if (newDistance < state.getDistance(cell)) {
+            state.update(cell, newDistance, current);
+            state.getQueue().insertOrDecrease(cell, newDistance, newDistance);
+        }
+    }
 
-                // Update distance if we've found a shorter path
-                if (newDistance < neighbor.getDistance()) {
-                    neighbor.setDistance(newDistance);
-                    neighbor.setPrevious(current);
+    /**
+     * Gets the Manhattan distance between two cells.
+     * @param a One cell
+     * @param b The other cell
+     * @return Number of steps between the cells
+     */
+    private int distance(int a, int b) {
+        return Math.abs(map.getColumn(a) - map.getColumn(b)) + Math.abs(map.getRow(a) - map.getRow(b));
+    }
+
+    /**
+     * Runs Dijkstra's algorithm, or A* if selected, from both the source and the target at once,
+     * always expanding the side with fewer queued cells. The search stops as soon as the smallest
+     * keys of both queues add up to at least the cheapest path seen where the two searches meet.
+     * For A* each side uses half the difference of the two A* heuristics, which keeps the keys
+     * of both searches consistent with each other.
+     * @param state The workspace of the search from the source
+     * @param backwardState The workspace of the search from the target
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @param strategy BIDIRECTIONAL_DIJKSTRA or BIDIRECTIONAL_ASTAR
+     * @return The cell where the shortest path joins the two searches, or -1 if no path exists
+     */
+    private int searchBidirectional(SearchState state, SearchState backwardState, int sourceCell, int targetCell,
+                                    SearchStrategy strategy) {
+        state.reset();
+        backwardState.reset();
+        IndexedMinHeap forwardQueue = state.getQueue();
+        IndexedMinHeap backwardQueue = backwardState.getQueue();
 
-                    // Add to queue for processing
-                    queue.add(neighbor);
+        double weight = strategy == SearchStrategy.BIDIRECTIONAL_ASTAR ? getHeuristicWeight() : 0;
+        double bestCost = Double.POSITIVE_INFINITY;
+        int meetingCell = -1;
+
+        // Initialize both ends, the target can only be entered if it is passable
+        state.update(sourceCell, 0, -1);
+        if (sourceCell == targetCell) {
+            state.setResult(targetCell, 0);
+            return sourceCell;
+        }
+        forwardQueue.insertOrDecrease(sourceCell, potential(sourceCell, sourceCell, targetCell, weight));
+        if (map.isPassable(targetCell)) {
+            backwardState.update(targetCell, 0, -1);
+            backwardQueue.insertOrDecrease(targetCell, -potential(targetCell, sourceCell, targetCell, weight));
+        }
+
+        while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+            if (forwardQueue.peekKey() + backwardQueue.peekKey() >= bestCost) {
+                break;
+            }
+
+            boolean forward = forwardQueue.size() <= backwardQueue.size();
+            SearchState own = forward ? state : backwardState;
+            SearchState other = forward ? backwardState : state;
+            int current = own.getQueue().poll();
+            double currentDistance = own.getDistance(current);
+            state.countExpanded();
+
+            // The source may be an obstacle, but no path can lead back into it
+            if (!forward && !map.isPassable(current)) {
+                continue;
+            }
+
+            for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                int neighbor = map.neighbor(current, direction);
+                if (neighbor < 0 || (!map.isPassable(neighbor) && (forward || neighbor != sourceCell))) {
+                    continue;
+                }
+
+                // Travel costs are the same in both directions
+                double newDistance = currentDistance + getCost(current, direction, neighbor);
+                double oldDistance = own.getDistance(neighbor);
+                if (newDistance < oldDistance) {
+                    own.update(neighbor, newDistance, current);
+                    double key = potential(neighbor, sourceCell, targetCell, weight);
+                    own.getQueue().insertOrDecrease(neighbor, forward ? newDistance + key : newDistance - key, newDistance);
+
+                    // Check if this connects to a cell reached from the other end
+                    double total = newDistance + other.getDistance(neighbor);
+                    if (total < bestCost) {
+                        bestCost = total;
+                        meetingCell = neighbor;
+                    }
+                } else if (newDistance == oldDistance && current < own.getPrevious(neighbor)
+                        && own.getQueue().contains(neighbor)) {
+                    own.update(neighbor, newDistance, current);
                 }
             }
         }
+        state.setResult(targetCell, bestCost);
+        totalExpandedNodes.add(state.getExpandedNodes());
+        return meetingCell;
+    }
+
+    /**
+     * Gets the forward search key offset of a cell for bidirectional A*. The backward search uses
+     * the negated value.
+     * @param cell Cell index
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @param weight Cheapest edge cost, or 0 for bidirectional Dijkstra
+     * @return Half of the A* estimate to the target minus the A* estimate to the source
+     */
+    private double potential(int cell, int sourceCell, int targetCell, double weight) {
+        if (weight == 0) {
+            return 0;
+        }
+        int column = map.getColumn(cell);
+        int row = map.getRow(cell);
+        int toTarget = Math.abs(column - map.getColumn(targetCell)) + Math.abs(row - map.getRow(targetCell));
+        int toSource = Math.abs(column - map.getColumn(sourceCell)) + Math.abs(row - map.getRow(sourceCell));
+        return weight * (toTarget - toSource) / 2;
+    }
 
-        // Check if target is reachable
-        if (target.getDistance() == Double.POSITIVE_INFINITY) {
-            return null; // No path exists
+    /**
+     * Gets the cost of the cheapest edge that can be travelled, which multiplied by the
+     * Manhattan distance never overestimates the remaining cost to the target.
+     * @return The cheapest edge cost, or 0 if the map has no usable edges
+     */
+    private double getHeuristicWeight() {
+        // Threads racing here compute the same value, so no locking is needed
+        if (heuristicWeight < 0) {
+            double cheapest = Double.POSITIVE_INFINITY;
+            for (int cell = 0; cell < map.getCellCount(); cell++) {
+                if (map.getType(cell) == GridGraph.MISSING) {
+                    continue;
+                }
+                for (int direction = 0; direction < GridGraph.DIRECTIONS; direction++) {
+                    int neighbor = map.neighbor(cell, direction);
+                    if (neighbor >= 0 && map.getType(neighbor) != GridGraph.OBSTACLE) {
+                        cheapest = Math.min(cheapest, getCost(cell, direction, neighbor));
+                    }
+                }
+            }
+            heuristicWeight = cheapest == Double.POSITIVE_INFINITY ? 0 : Math.max(cheapest, 0);
         }
+        return heuristicWeight;
+    }
 
-        // Reconstruct path
-        ArrayList<Tile> path = new ArrayList<>();
-        Tile current = target;
+    /**
+     * Reconstructs the path through a reached cell, creating tiles only for the cells on it.
+     * The part up to the cell follows the forward search, the rest follows the backward search.
+     * The two searches add up their halves in another order than one search from the source,
+     * which can round differently, so a path joined from both records its cost as added up
+     * along its cells.
+     * @param state The workspace of the search from the source
+     * @param backwardState The workspace of the search from the target, or null if there was none
+     * @param meetingCell The last cell reached by the forward search
+     * @param targetCell The destination cell
+     * @return ArrayList of tiles from the source to the target
+     */
+    private ArrayList<Tile> buildPath(SearchState state, SearchState backwardState, int meetingCell, int targetCell) {
+        int length = 0;
+        for (int cell = meetingCell; cell != -1; cell = state.getPrevious(cell)) {
+            length++;
+        }
+        if (meetingCell != targetCell) {
+            for (int cell = backwardState.getPrevious(meetingCell); cell != -1; cell = backwardState.getPrevious(cell)) {
+                length++;
+            }
+        }
 
-        while (current != null) {
-            path.add(current);
-            current = current.getPrevious();
+        ArrayList<Tile> path = new ArrayList<>(length);
+        for (int cell = meetingCell; cell != -1; cell = state.getPrevious(cell)) {
+            path.add(map.toTile(cell));
         }
 
         // Reverse the path to get source to target order
-        ArrayList<Tile> reversedPath = new ArrayList<>();
-        for (int i = path.size() - 1; i >= 0; i--) {
-            reversedPath.add(path.get(i));
+        Collections.reverse(path);
+
+        if (meetingCell != targetCell) {
+            for (int cell = backwardState.getPrevious(meetingCell); cell != -1; cell = backwardState.getPrevious(cell)) {
+                path.add(map.toTile(cell));
+            }
+            double cost = 0;
+            for (int i = 1; i < path.size(); i++) {
+                int from = map.index(path.get(i - 1));
+                int to = map.index(path.get(i));
+                cost += getCost(from, map.direction(from, to), to);
+            }
+            state.setResult(targetCell, cost);
         }
+        return path;
+    }
 
-        return reversedPath;
+    /**
+     * Reconstructs the path of a search with jumps, filling in the cells between the ends of
+     * every jump, and records its cost as added up along those cells.
+     * @param state The workspace of the search from the source
+     * @param targetCell The destination cell
+     * @return ArrayList of tiles from the source to the target
+     */
+    private ArrayList<Tile> buildJumpPath(SearchState state, int targetCell) {
+        int length = 1;
+        for (int cell = targetCell; state.getPrevious(cell) != -1; cell = state.getPrevious(cell)) {
+            length += distance(cell, state.getPrevious(cell));
+        }
+
+        // Walk back from the target, along the row first and then the column of every jump
+        int[] cells = new int[length];
+        int i = length - 1;
+        cells[i] = targetCell;
+        for (int cell = targetCell; state.getPrevious(cell) != -1; cell = state.getPrevious(cell)) {
+            int previous = state.getPrevious(cell);
+            int column = map.getColumn(cell);
+            int row = map.getRow(cell);
+            while (column != map.getColumn(previous)) {
+                column += Integer.signum(map.getColumn(previous) - column);
+                cells[--i] = map.index(column, row);
+            }
+            while (row != map.getRow(previous)) {
+                row += Integer.signum(map.getRow(previous) - row);
+                cells[--i] = map.index(column, row);
+            }
+        }
+        state.setResult(targetCell, getPathCost(cells));
+        return toTiles(cells);
+    }
+
+    /**
+     * Creates the tiles of a path given by its cells.
+     * @param cells The cells of the path
+     * @return ArrayList of tiles in the same order
+     */
+    private ArrayList<Tile> toTiles(int[] cells) {
+        ArrayList<Tile> path = new ArrayList<>(cells.length);
+        for (int cell : cells) {
+            path.add(map.toTile(cell));
+        }
+        return path;
     }
 
     /**
-     * Gets the travel cost between two tiles.
-     * @param from The starting tile
-     * @param to The destination tile
-     * @return The travel cost between the two tiles
+     * Gets the cost a search pays for an edge, using the terrain defaults where no cost was given.
+     * The neighbour in the given direction must exist and must not be an obstacle.
+     * @param cell Cell index
+     * @param direction Direction of the edge from the cell
+     * @return The travel cost of the edge
      */
-    private double getCost(Tile from, Tile to) {
-        String key = from.getColumn() + " " + from.getRow() + " " + to.getColumn() + " " + to.getRow();
-        String reverseKey = to.getColumn() + " " + to.getRow() + " " + from.getColumn() + " " + from.getRow();
+    public double getEdgeCost(int cell, int direction) {
+        return getCost(cell, direction, map.neighbor(cell, direction));
+    }
 
-        // Check if we have a direct cost in the travelCosts map
-        if (travelCosts.containsKey(key)) {
-            return travelCosts.get(key);
-        } else if (travelCosts.containsKey(reverseKey)) {
-            return travelCosts.get(reverseKey);
+    /**
+     * Gets the travel cost between two adjacent cells.
+     * @param fromCell The starting cell
+     * @param direction Direction from the starting cell to the destination cell
+     * @param toCell The destination cell
+     * @return The travel cost between the two cells
+     */
+    private double getCost(int fromCell, int direction, int toCell) {
+        double cost = travelCosts.getCost(fromCell, direction);
+        if (!Double.isNaN(cost)) {
+            return cost;
         }
 
         // If no specific cost is defined, use default based on terrain types
         // This shouldn't happen if all costs are provided in the input file
-        if (from.getType() == 0 && to.getType() == 0) { // Grass to Grass
+        int fromType = map.getType(fromCell), toType = map.getType(toCell);
+        if (fromType == 0 && toType == 0) { // Grass to Grass
             return 3.0; // Default mid-range of 1-5
-        } else if (from.getType() == 1 && to.getType() == 1) { // Sand to Sand
+        } else if (fromType == 1 && toType == 1) { // Sand to Sand
             return 9.0; // Default mid-range of 8-10
         } else { // Mixed terrain
             return 8.0; // Default lower range of mixed cost
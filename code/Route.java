@@ -0,0 +1,102 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The Route class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class holds the result of routing the knight through a list of objectives: one leg per
+ * objective in the order they are visited, with the total steps and cost of the legs that can
+ * be followed. A route is never changed after it is built, and it can write itself in the
+ * format of output.txt.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.List;
+
+public class Route {
+    private final Tile source;
+    private final List<RouteLeg> legs;
+    private final int totalSteps;
+    private final double totalCost;
+
+    /**
+     * Constructs a route from its legs.
+     * @param source The starting tile
+     * @param legs The legs in the order they are followed
+     */
+    public Route(Tile source, List<RouteLeg> legs) {
+        this.source = source;
+        this.legs = Collections.unmodifiableList(legs);
+
+        // Add the steps up in order, as they are written to the output files
+        int steps = 0;
+        double cost = 0;
+        for (RouteLeg leg : legs) {
+            for (int i = 0; i < leg.getSteps(); i++) {
+                cost += leg.getStepCost(i);
+                steps++;
+            }
+        }
+        this.totalSteps = steps;
+        this.totalCost = cost;
+    }
+
+    /**
+     * Gets the starting tile of the route.
+     * @return The starting tile
+     */
+    public Tile getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the legs of the route.
+     * @return The legs in the order they are followed
+     */
+    public List<RouteLeg> getLegs() {
+        return legs;
+    }
+
+    /**
+     * Gets the number of steps over all reachable legs.
+     * @return Total number of steps
+     */
+    public int getTotalSteps() {
+        return totalSteps;
+    }
+
+    /**
+     * Gets the cost of all reachable legs.
+     * @return Total travel cost
+     */
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Writes the route in the format of output.txt, where every leg counts its steps and cost
+     * from its own starting position.
+     * @param output The writer to write to
+     */
+    public void writeOutput(PrintWriter output) {
+        for (RouteLeg leg : legs) {
+            if (!leg.isReached()) {
+                output.println("Objective " + leg.getObjectiveNumber() + " cannot be reached!");
+                continue;
+            }
+            List<Tile> path = leg.getPath();
+            output.println("Starting position: " + path.get(0));
+            double pathCost = 0;
+            for (int j = 1; j < path.size(); j++) {
+                pathCost += leg.getStepCost(j - 1);
+                output.printf("Step Count: %d, move to %s. Total Cost: %.2f.%n", j, path.get(j), pathCost);
+            }
+            output.println("Objective " + leg.getObjectiveNumber() + " reached!");
+        }
+        output.printf("Total Step: %d, Total Cost: %.2f%n", totalSteps, totalCost);
+    }
+}
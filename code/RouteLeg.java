@@ -0,0 +1,112 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The RouteLeg class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class holds one leg of a knight's route: the path from the knight's position to the next
+ * objective, or back to the starting point at the end of a tour, with the cost of every step.
+ * A leg whose path is missing or has no steps is reported as unreachable, as in the output files.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class RouteLeg {
+    public static final int RETURN_LEG = 0; // Objective number of the leg back to the start
+
+    private final int objectiveNumber;
+    private final Tile target;
+    private final List<Tile> path;   // Tiles from the leg's start to its target, or null if unreachable
+    private final double[] stepCosts; // Cost of each step of the path
+    private final long expandedNodes; // Cells expanded by the search for this leg
+
+    /**
+     * Constructs a leg from a search result.
+     * @param objectiveNumber 1-based number of the objective in the objectives file, or RETURN_LEG
+     * @param target The tile the leg leads to
+     * @param path The path found, or null if there is none
+     * @param travelCosts The travel costs used to price each step
+     * @param expandedNodes Cells expanded by the search
+     */
+    public RouteLeg(int objectiveNumber, Tile target, ArrayList<Tile> path, EdgeCosts travelCosts, long expandedNodes) {
+        this.objectiveNumber = objectiveNumber;
+        this.target = target;
+        this.path = path == null ? null : Collections.unmodifiableList(path);
+        this.expandedNodes = expandedNodes;
+        int steps = path == null ? 0 : Math.max(0, path.size() - 1);
+        this.stepCosts = new double[steps];
+        for (int i = 0; i < steps; i++) {
+            stepCosts[i] = travelCosts.getStepCost(path.get(i), path.get(i + 1));
+        }
+    }
+
+    /**
+     * Gets the number of the objective the leg leads to.
+     * @return 1-based objective number, or RETURN_LEG for the way back to the start
+     */
+    public int getObjectiveNumber() {
+        return objectiveNumber;
+    }
+
+    /**
+     * Checks if this is the leg back to the starting point at the end of a tour.
+     * @return True for the return leg
+     */
+    public boolean isReturn() {
+        return objectiveNumber == RETURN_LEG;
+    }
+
+    /**
+     * Gets the tile the leg leads to.
+     * @return The target tile
+     */
+    public Tile getTarget() {
+        return target;
+    }
+
+    /**
+     * Checks if the knight can follow this leg.
+     * @return True if a path with at least one step was found
+     */
+    public boolean isReached() {
+        return stepCosts.length > 0;
+    }
+
+    /**
+     * Gets the path of the leg.
+     * @return The tiles from the leg's start to its target, or null if there is no path
+     */
+    public List<Tile> getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the number of steps of the leg.
+     * @return Number of steps, 0 if unreachable
+     */
+    public int getSteps() {
+        return stepCosts.length;
+    }
+
+    /**
+     * Gets the cost of one step, as written to the output files.
+     * @param step 0-based step index
+     * @return Travel cost of the step
+     */
+    public double getStepCost(int step) {
+        return stepCosts[step];
+    }
+
+    /**
+     * Gets the number of cells expanded by the search for this leg.
+     * @return Number of expanded cells
+     */
+    public long getExpandedNodes() {
+        return expandedNodes;
+    }
+}
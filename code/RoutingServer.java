@@ -0,0 +1,296 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The RoutingServer class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class answers routing requests over a line protocol on a local socket, so that the JVM
+ * start and the map loading are paid once instead of on every run. Each request names the map
+ * files and an objectives file on the server's disk, and the response is the contents Main or
+ * Bonus would write for them. Maps stay loaded in a MapCache between requests.
+ * </p>
+ * <p>
+ * Requests, one per line, each answered by zero or more lines and a line with END:
+ * <pre>
+ * ROUTE mapData.txt travelCosts.txt objectives.txt   the output.txt of Main
+ * ROUTE map.bin objectives.txt                       the same with a compiled map
+ * TOUR mapData.txt travelCosts.txt objectives.txt    the bonus.txt of Bonus
+ * TOUR map.bin objectives.txt                        the same with a compiled map
+ * STATS                                              the map cache counters
+ * QUIT                                               closes the connection
+ * SHUTDOWN                                           stops the server
+ * </pre>
+ * A request that fails is answered by a single ERROR line before the END line.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+public class RoutingServer {
+    public static final int DEFAULT_PORT = 7070;
+    public static final String END = "END"; // Last line of every response
+
+    private final MapCache cache;
+    private final ExecutorService connections; // Reads the requests of every open connection
+    private final ExecutorService workers;     // Answers the requests, each with its own search workspaces
+    private ServerSocket serverSocket;
+    private volatile boolean running = true;
+
+    /**
+     * Constructs a server that has not started listening yet.
+     * @param threads Number of requests answered at once
+     * @param cacheBytes Most estimated bytes of loaded maps to keep
+     */
+    public RoutingServer(int threads, long cacheBytes) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        // Request workers and tour workers all search with their own workspaces
+        this.cache = new MapCache(cacheBytes, threads + processors, new ForkJoinPool(processors));
+        this.connections = Executors.newCachedThreadPool();
+        this.workers = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Main method to run the server.
+     * @param args Command-line arguments
+     * @throws IOException If the server socket cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long cacheBytes = Runtime.getRuntime().maxMemory() / 2;
+        boolean aStarEnabled = false;
+        boolean bidirectionalEnabled = false;
+        boolean rectanglesEnabled = false;
+        long timeBudgetMillis = 1000;
+        int treeCapacity = 0;
+
+        // Process flags
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-astar":
+                    aStarEnabled = true;
+                    break;
+                case "-bidirectional":
+                    bidirectionalEnabled = true;
+                    break;
+                case "-rectangles":
+                    rectanglesEnabled = true;
+                    break;
+                case "-port":
+                case "-threads":
+                case "-cache":
+                case "-budget":
+                case "-trees":
+                    if (i + 1 >= args.length) {
+                        System.out.println("Missing value for " + args[i]);
+                        return;
+                    }
+                    long value = Long.parseLong(args[i + 1]);
+                    if (args[i].equals("-port")) {
+                        port = (int) value;
+                    } else if (args[i].equals("-threads")) {
+                        threads = (int) value;
+                    } else if (args[i].equals("-cache")) {
+                        cacheBytes = value << 20; // Given in megabytes
+                    } else if (args[i].equals("-trees")) {
+                        treeCapacity = (int) value;
+                    } else {
+                        timeBudgetMillis = value;
+                    }
+                    i++;
+                    break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+                    System.out.println("Usage: java RoutingServer [-port n] [-threads n] [-cache megabytes] [-budget ms] [-trees n] [-astar] [-bidirectional] [-rectangles]");
+                    return;
+            }
+        }
+
+        RoutingServer server = new RoutingServer(threads, cacheBytes);
+        if (rectanglesEnabled) {
+            server.cache.setStrategy(SearchStrategy.RECTANGLE_SYMMETRY);
+        } else if (bidirectionalEnabled) {
+            server.cache.setStrategy(aStarEnabled ? SearchStrategy.BIDIRECTIONAL_ASTAR : SearchStrategy.BIDIRECTIONAL_DIJKSTRA);
+        } else if (aStarEnabled) {
+            server.cache.setStrategy(SearchStrategy.ASTAR);
+        }
+        server.cache.setTimeBudget(timeBudgetMillis);
+        server.cache.setTreeCapacity(treeCapacity);
+        server.start(port);
+        System.out.printf("Routing server on port %d with %d workers and a %d MB map cache%n",
+                server.serverSocket.getLocalPort(), threads, cacheBytes >> 20);
+        server.serve();
+    }
+
+    /**
+     * Opens the server socket on the loopback address only.
+     * @param port Port to listen on, 0 for any free port
+     * @throws IOException If the socket cannot be opened
+     */
+    public void start(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Gets the port the server listens on.
+     * @return The port number
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the map cache of the server.
+     * @return The map cache
+     */
+    public MapCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Accepts connections until the server is shut down. Any number of connections may be open,
+     * their requests wait for a free worker.
+     */
+    public void serve() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true); // Responses are flushed whole, do not hold back their last packet
+                connections.execute(() -> handle(socket));
+            } catch (IOException e) {
+                if (running) {
+                    System.out.println("Accept failed: " + e.getMessage());
+                }
+            }
+        }
+        connections.shutdown();
+        workers.shutdown();
+    }
+
+    /**
+     * Stops accepting connections. Requests in progress are finished.
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // The socket is closed either way
+        }
+    }
+
+    /**
+     * Answers the requests of one connection until the client leaves.
+     * @param socket The connection
+     */
+    private void handle(Socket socket) {
+        try (Socket connection = socket;
+             BufferedReader input = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter output = new PrintWriter(new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8)))) {
+            String line;
+            while ((line = input.readLine()) != null) {
+                String[] request = line.trim().split("\\s+");
+                String command = request[0].toUpperCase(Locale.ROOT);
+                if (command.equals("QUIT")) {
+                    break;
+                }
+                if (command.equals("SHUTDOWN")) {
+                    output.println(END);
+                    output.flush();
+                    shutdown();
+                    break;
+                }
+                String[] arguments = Arrays.copyOfRange(request, 1, request.length);
+                try {
+                    output.print(workers.submit(() -> answer(command, arguments)).get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof NoSuchFileException) {
+                        output.println("ERROR File not found: " + cause.getMessage());
+                    } else {
+                        output.println("ERROR " + cause.getMessage());
+                    }
+                } catch (RejectedExecutionException e) {
+                    output.println("ERROR The server is shutting down");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                output.println(END);
+                output.flush();
+            }
+        } catch (IOException e) {
+            // The client closed the connection
+        }
+    }
+
+    /**
+     * Answers one request on the calling worker.
+     * @param command The request name
+     * @param arguments The words after the request name
+     * @return The response without its END line
+     * @throws IOException If a file of the request cannot be read or is malformed
+     */
+    private String answer(String command, String[] arguments) throws IOException {
+        StringWriter response = new StringWriter();
+        PrintWriter output = new PrintWriter(response);
+        switch (command) {
+            case "ROUTE":
+            case "TOUR":
+                break;
+            case "STATS":
+                output.printf("maps %d, %d of %d MB, hits %d, misses %d, evictions %d%n", cache.size(),
+                        cache.getUsedBytes() >> 20, cache.getCapacityBytes() >> 20,
+                        cache.getHits(), cache.getMisses(), cache.getEvictions());
+                return response.toString();
+            default:
+                throw new IllegalArgumentException("Unknown request: " + command);
+        }
+        if (arguments.length != 2 && arguments.length != 3) {
+            throw new IllegalArgumentException("Usage: " + command + " mapData.txt travelCosts.txt objectives.txt | " + command + " map.bin objectives.txt");
+        }
+
+        // Two files are a compiled map and the objectives
+        KnightRouter router = arguments.length == 2
+                ? cache.get(arguments[0], null) : cache.get(arguments[0], arguments[1]);
+        ArrayList<int[]> objectives = MapLoader.loadObjectives(arguments[arguments.length - 1]);
+        Tile source = getTile(router, objectives.get(0));
+        ArrayList<Tile> targets = new ArrayList<>();
+        for (int i = 1; i < objectives.size(); i++) {
+            targets.add(getTile(router, objectives.get(i)));
+        }
+
+        if (command.equals("ROUTE")) {
+            router.route(source, targets).writeOutput(output);
+        } else {
+            router.tour(source, targets).writeBonus(output);
+        }
+        return response.toString();
+    }
+
+    /**
+     * Gets the tile of an objective, checking it lies on the map.
+     * @param router The router of the map
+     * @param position Column and row of the objective
+     * @return The tile
+     */
+    private static Tile getTile(KnightRouter router, int[] position) {
+        if (!router.getMap().contains(position[0], position[1])) {
+            throw new IllegalArgumentException("Position " + position[0] + "-" + position[1] + " is outside the map");
+        }
+        return router.getTile(position[0], position[1]);
+    }
+}
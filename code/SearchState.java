@@ -0,0 +1,165 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The SearchState class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class holds the working memory of one shortest path search: the distance and
+ * previous cell of every cell, and the priority queue of cells still to be settled.
+ * Everything is allocated once for the size of the map and reused between searches.
+ * Each cell carries the generation of the search that last wrote it, so starting a new
+ * search only increments the generation and cells left over from older searches are
+ * treated as unreached when they are read.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+public class SearchState {
+    private final double[] distance; // Distance from source
+    private final int[] previous;    // Previous cell in the shortest path
+    private final int[] generations; // Search that last wrote each cell
+    private final IndexedMinHeap queue;
+    private int generation;
+    private long expandedNodes;  // Cells expanded by the current search
+    private int targetCell = -1; // Target of the current search, -1 if it has none
+    private double pathCost;     // Cost of the path found to the target
+
+    /**
+     * Constructs the search state for a map with the given number of cells.
+     * @param cellCount Number of cells in the map
+     */
+    public SearchState(int cellCount) {
+        this.distance = new double[cellCount];
+        this.previous = new int[cellCount];
+        this.generations = new int[cellCount];
+        this.queue = new IndexedMinHeap(cellCount);
+        this.generation = 1;
+    }
+
+    /**
+     * Estimates the memory taken by the search state of a map.
+     * @param cellCount Number of cells in the map
+     * @return Estimated size in bytes
+     */
+    public static long estimateBytes(int cellCount) {
+        // distance, previous and generations, then the heap's cells, keys, ties and positions
+        return (long) cellCount * (8 + 4 + 4 + 4 + 8 + 8 + 4);
+    }
+
+    /**
+     * Prepares the state for a new search. Only the queue left by the previous search
+     * is cleared, every other cell is invalidated by moving to the next generation.
+     */
+    public void reset() {
+        expandedNodes = 0;
+        targetCell = -1;
+        pathCost = Double.POSITIVE_INFINITY;
+        queue.clear();
+        if (generation == Integer.MAX_VALUE) {
+            clear();
+        } else {
+            generation++;
+        }
+    }
+
+    /**
+     * Wipes the state of every cell and restarts the generation counter.
+     * Takes time proportional to the size of the map.
+     */
+    public void clear() {
+        for (int i = 0; i < generations.length; i++) {
+            generations[i] = 0;
+        }
+        queue.clear();
+        generation = 1;
+    }
+
+    /**
+     * Checks if a cell has been reached by the current search.
+     * @param cell Cell index
+     * @return True if the cell has a distance from the current source
+     */
+    public boolean isReached(int cell) {
+        return generations[cell] == generation;
+    }
+
+    /**
+     * Gets the distance of a cell from the source.
+     * @param cell Cell index
+     * @return Distance from source, or infinity if not reached
+     */
+    public double getDistance(int cell) {
+        return generations[cell] == generation ? distance[cell] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Gets the previous cell on the shortest path to a cell.
+     * @param cell Cell index
+     * @return Previous cell, or -1 if there is none
+     */
+    public int getPrevious(int cell) {
+        return generations[cell] == generation ? previous[cell] : -1;
+    }
+
+    /**
+     * Records a shorter path to a cell.
+     * @param cell Cell index
+     * @param newDistance New distance from source
+     * @param previousCell Previous cell on the new path, or -1 for the source
+     */
+    public void update(int cell, double newDistance, int previousCell) {
+        distance[cell] = newDistance;
+        previous[cell] = previousCell;
+        generations[cell] = generation;
+    }
+
+    /**
+     * Gets the priority queue of cells still to be settled.
+     * @return The queue
+     */
+    public IndexedMinHeap getQueue() {
+        return queue;
+    }
+
+    /**
+     * Counts one more cell expanded by the current search.
+     */
+    public void countExpanded() {
+        expandedNodes++;
+    }
+
+    /**
+     * Gets the number of cells expanded by the current search.
+     * @return Number of expanded cells
+     */
+    public long getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * Records the result of a point-to-point search.
+     * @param targetCell The destination cell
+     * @param pathCost Cost of the path found, or infinity if there is none
+     */
+    public void setResult(int targetCell, double pathCost) {
+        this.targetCell = targetCell;
+        this.pathCost = pathCost;
+    }
+
+    /**
+     * Gets the destination cell of the current search.
+     * @return The destination cell, or -1 if the search had no single target
+     */
+    public int getTargetCell() {
+        return targetCell;
+    }
+
+    /**
+     * Gets the cost of the path found by the current search.
+     * @return Cost of the path, or infinity if there is none
+     */
+    public double getPathCost() {
+        return pathCost;
+    }
+}
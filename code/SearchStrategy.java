@@ -0,0 +1,20 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The SearchStrategy enum for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This enum lists the algorithms the PathFinder can use to answer a point-to-point query.
+ * All strategies return paths of the same, optimal cost.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+public enum SearchStrategy {
+    DIJKSTRA,               // Plain Dijkstra's algorithm, stopping at the target
+    ASTAR,                  // A* guided by the Manhattan distance times the cheapest edge cost
+    BIDIRECTIONAL_DIJKSTRA, // Dijkstra from both ends, stopping when the frontiers meet
+    BIDIRECTIONAL_ASTAR,    // Bidirectional A* with the average of both A* heuristics
+    RECTANGLE_SYMMETRY      // Dijkstra that crosses rectangles of uniform cost in straight jumps
+}
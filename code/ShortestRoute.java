@@ -5,7 +5,12 @@
  * <p>
  * This class compute the shortest route for the knight, starting from
  * a source tile, visiting all gold coin objectives, and returning to the source.
- * It integrates with the PathFinder class to calculate distances between tile pairs.
+ * It integrates with the PathFinder class to calculate distances between tile pairs,
+ * using one single-source sweep per node instead of one search per pair. The sweeps run
+ * in parallel, each worker thread searching in its own PathFinder workspace. The order of
+ * the objectives is then solved exactly by the HeldKarpSolver, on the same worker pool, or for
+ * many objectives by the HeuristicTourSolver within a time budget. When proven optimal routes
+ * are needed beyond the exact solver's limit, the BranchAndBoundSolver can take over.
  * </p>
  *
  * @author Devin Isler
@@ -13,30 +18,148 @@
  * @since 2025-05-08
  */
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class ShortestRoute {
-    private Tile[][] map;
-    private int columns;
-    private int rows;
-    private HashMap<String, Double> travelCosts;
+    // Most objectives solved exactly unless set otherwise, whose tables take 180 MB as doubles
+    public static final int DEFAULT_EXACT_LIMIT = 20;
+    // Subgradient steps spent on the lower bound of a heuristic route
+    private static final int BOUND_ITERATIONS = 200;
+
+    private GridGraph map;
     private PathFinder pathFinder;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool pool; // Kept between routes so the workers keep their search workspaces
+    private boolean sharedPool = false; // Whether the pool was given by the caller, who shuts it down
+    private boolean floatCosts = false;
+    private int exactLimit = DEFAULT_EXACT_LIMIT; // Most objectives solved exactly
+    private long timeBudgetMillis = 1000;   // Time the heuristic solver may spend improving a route
+    private int branchAndBoundLimit = 0;    // Most objectives proven optimal by branch and bound
+    private long branchAndBoundTimeLimitMillis = 60000;
+    private boolean routeOptimal = false;   // Whether the last route is proven to be the shortest
+    private double routeCost = Double.POSITIVE_INFINITY; // Cost of the last route found
+    private double lowerBound = Double.POSITIVE_INFINITY; // Lower bound for the last route found
 
     /**
      * Constructs a ShortestRoute object.
-     * @param map The 2D array of tiles representing the map
-     * @param columns Number of columns in the map
-     * @param rows Number of rows in the map
-     * @param travelCosts HashMap containing travel costs between tiles
+     * @param map The grid graph representing the map
      * @param pathFinder The PathFinder instance for finding shortest paths
      */
-    public ShortestRoute(Tile[][] map, int columns, int rows, HashMap<String, Double> travelCosts, PathFinder pathFinder) {
+    public ShortestRoute(GridGraph map, PathFinder pathFinder) {
         this.map = map;
-        this.columns = columns;
-        this.rows = rows;
-        this.travelCosts = travelCosts;
         this.pathFinder = pathFinder;
     }
 
+    /**
+     * Sets the number of threads used to compute the distances between objectives and to solve the route.
+     * Every thread holds its own search workspace, which takes memory proportional to the map size.
+     * @param parallelism Number of threads, 1 to compute on the calling thread
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        if (parallelism != this.parallelism && pool != null) {
+            if (!sharedPool) {
+                pool.shutdown();
+            }
+            pool = null;
+            sharedPool = false;
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs the distance sweeps and the route solver on a pool owned by the caller, so that many
+     * ShortestRoute objects can share one set of worker threads and their search workspaces.
+     * @param pool The pool to run on; its parallelism becomes the number of threads used
+     */
+    public void setPool(ForkJoinPool pool) {
+        if (this.pool != null && !sharedPool) {
+            this.pool.shutdown();
+        }
+        this.pool = pool;
+        this.parallelism = pool.getParallelism();
+        this.sharedPool = true;
+    }
+
+    /**
+     * Sets whether the route solver stores its path costs as floats, which halves its largest table.
+     * Routes whose costs differ by less than float precision may then be ordered differently.
+     * @param floatCosts True to store the solver's path costs as floats
+     */
+    public void setFloatCosts(boolean floatCosts) {
+        this.floatCosts = floatCosts;
+    }
+
+    /**
+     * Sets the largest number of objectives whose route is solved exactly. Larger sets of objectives
+     * are routed by the HeuristicTourSolver, which is fast but not guaranteed to be optimal.
+     * By default it is DEFAULT_EXACT_LIMIT.
+     * @param exactLimit Most objectives for the exact solver, at most HeldKarpSolver.MAX_OBJECTIVES
+     */
+    public void setExactLimit(int exactLimit) {
+        if (exactLimit < 0 || exactLimit > HeldKarpSolver.MAX_OBJECTIVES) {
+            throw new IllegalArgumentException("Exact limit must be between 0 and "
+                    + HeldKarpSolver.MAX_OBJECTIVES + ": " + exactLimit);
+        }
+        this.exactLimit = exactLimit;
+    }
+
+    /**
+     * Sets how long the heuristic solver may spend improving a route.
+     * @param timeBudgetMillis Time budget in milliseconds
+     */
+    public void setTimeBudget(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Sets the largest number of objectives whose route is proven optimal by the
+     * BranchAndBoundSolver when there are too many for the exact solver's tables.
+     * Routes with more objectives still use the heuristic solver.
+     * @param branchAndBoundLimit Most objectives for branch and bound, 0 to never use it
+     */
+    public void setBranchAndBoundLimit(int branchAndBoundLimit) {
+        this.branchAndBoundLimit = branchAndBoundLimit;
+    }
+
+    /**
+     * Sets how long branch and bound may search before it settles for the best route found.
+     * @param timeLimitMillis Time limit in milliseconds
+     */
+    public void setBranchAndBoundTimeLimit(long timeLimitMillis) {
+        this.branchAndBoundTimeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Checks if the last route found is proven to be the shortest.
+     * @return True if an exact solver finished, false for heuristic routes and timed out searches
+     */
+    public boolean isRouteOptimal() {
+        return routeOptimal;
+    }
+
+    /**
+     * Gets the cost of the last route found, including the return to the source.
+     * @return Cost of the route, or infinity if no route exists
+     */
+    public double getRouteCost() {
+        return routeCost;
+    }
+
+    /**
+     * Gets a lower bound on the cost of the best route for the last objectives. It equals the
+     * route cost when the route was solved exactly.
+     * @return Lower bound on the route cost, or infinity if no route exists
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
     /**
      * Finds the shortest route starting from source, visiting all objectives, and returning to source.
      * @param source The starting tile
@@ -45,7 +168,13 @@ public class ShortestRoute {
      */
     public ArrayList<Tile> findShortestRoute(Tile source, ArrayList<Tile> objectives) {
         int n = objectives.size();
+        routeCost = Double.POSITIVE_INFINITY;
+        lowerBound = Double.POSITIVE_INFINITY;
+        routeOptimal = false;
         if (n == 0) {
+            routeCost = 0;
+            lowerBound = 0;
+            routeOptimal = true;
             ArrayList<Tile> route = new ArrayList<>();
             route.add(source);
             route.add(source); // Return to start
@@ -59,86 +188,140 @@ public class ShortestRoute {
             nodes[i + 1] = objectives.get(i);
         }
 
-        double[][] costs = new double[n + 1][n + 1];
-        for (int i = 0; i <= n; i++) {
-            for (int j = 0; j <= n; j++) {
-                if (i == j) {
-                    costs[i][j] = 0;
-                } else {
-                    ArrayList<Tile> path = pathFinder.findShortestPath(nodes[i], nodes[j]);
-                    costs[i][j] = path != null ? nodes[j].getDistance() : Double.POSITIVE_INFINITY;
-                }
-            }
+        double[][] costs = computeCosts(nodes);
+
+        int[] tour = solveTour(costs);
+
+        // Reconstruct the route
+        ArrayList<Tile> route = new ArrayList<>();
+        if (tour == null) {
+            // No valid tour exists
+            route.add(source);
+            return route;
+        }
+
+        for (int node : tour) {
+            route.add(nodes[node]);
         }
+        route.add(source); // Return to start
+
+        return route;
+    }
 
-        // dp[mask][last] = min cost to visit all nodes in mask ending at last
-        double[][] dp = new double[1 << (n + 1)][n + 1];
-        int[][] parent = new int[1 << (n + 1)][n + 1];
-        for (double[] row : dp) {
-            Arrays.fill(row, Double.POSITIVE_INFINITY);
-        }
-
-        // Initialize: start at source (node 0)
-        dp[1][0] = 0;
-
-        // Iterate over all subsets
-        for (int mask = 1; mask < (1 << (n + 1)); mask++) {
-            for (int last = 0; last <= n; last++) {
-                if (dp[mask][last] == Double.POSITIVE_INFINITY) continue;
-                // Try adding each unvisited node
-                for (int next = 0; next <= n; next++) {
-                    if ((mask & (1 << next)) == 0 && costs[last][next] != Double.POSITIVE_INFINITY) {
-                        int newMask = mask | (1 << next);
-                        double newCost = dp[mask][last] + costs[last][next];
-                        if (newCost < dp[newMask][next]) {
-                            dp[newMask][next] = newCost;
-                            parent[newMask][next] = last;
-                        }
-                    }
-                }
+    /**
+     * Solves the order of the nodes, exactly for few objectives, by branch and bound if it is
+     * enabled for the number of objectives, and heuristically otherwise,
+     * and records the cost of the tour with a lower bound.
+     * @param costs Matrix of path costs between nodes, where node 0 is the source
+     * @return Node indices of the tour, starting with 0, or null if no tour exists
+     */
+    private int[] solveTour(double[][] costs) {
+        int n = costs.length - 1;
+        if (n <= exactLimit) {
+            // Solve the tour over the objectives, the source is always the first node
+            HeldKarpSolver solver = new HeldKarpSolver(costs);
+            solver.setFloatCosts(floatCosts);
+            int[] tour = solver.solve(parallelism == 1 ? null : getPool());
+            if (tour != null) {
+                routeCost = HeuristicTourSolver.tourCost(costs, tour);
+                lowerBound = routeCost;
+                routeOptimal = true;
             }
+            return tour;
         }
 
-        // Find the minimum cost to complete the tour (return to source)
-        double minCost = Double.POSITIVE_INFINITY;
-        int lastNode = -1;
-        int finalMask = (1 << (n + 1)) - 1;
-        for (int last = 1; last <= n; last++) {
-            if (costs[last][0] != Double.POSITIVE_INFINITY) {
-                double tourCost = dp[finalMask][last] + costs[last][0];
-                if (tourCost < minCost) {
-                    minCost = tourCost;
-                    lastNode = last;
-                }
+        if (n <= branchAndBoundLimit) {
+            BranchAndBoundSolver solver = new BranchAndBoundSolver(costs);
+            solver.setTimeLimit(branchAndBoundTimeLimitMillis);
+            int[] tour = solver.solve();
+            if (tour != null) {
+                routeCost = HeuristicTourSolver.tourCost(costs, tour);
+                lowerBound = Math.min(routeCost, solver.getLowerBound());
+                routeOptimal = solver.isOptimal();
             }
+            return tour;
         }
 
-        // Reconstruct the route
-        ArrayList<Tile> route = new ArrayList<>();
-        if (lastNode == -1) {
-            // No valid tour exists
-            route.add(source);
-            return route;
+        HeuristicTourSolver solver = new HeuristicTourSolver(costs);
+        solver.setTimeBudget(timeBudgetMillis);
+        int[] tour = solver.solve();
+        if (tour != null) {
+            routeCost = HeuristicTourSolver.tourCost(costs, tour);
+            lowerBound = Math.min(routeCost, new OneTreeBound(costs).compute(BOUND_ITERATIONS, routeCost));
         }
+        return tour;
+    }
 
-        int currentMask = finalMask;
-        int currentNode = lastNode;
-        Stack<Integer> path = new Stack<>();
-        path.push(currentNode);
+    /**
+     * Computes the shortest path cost between every ordered pair of nodes with one sweep from
+     * each node to all the others. Travel costs are symmetric, but a path added up from its
+     * other end can round to a different last bit, and the solver breaks ties between a tour and
+     * its reverse on those bits, so every row comes from its own node's sweep like the searches
+     * from each node did before. A node that is an obstacle can be left but not entered, so
+     * the sweeps of the others do not reach it.
+     * @param nodes The source followed by the objectives
+     * @return Matrix where costs[i][j] is the cost from nodes[i] to nodes[j]
+     */
+    private double[][] computeCosts(Tile[] nodes) {
+        double[][] costs = runSweeps(nodes);
+        for (int i = 0; i < nodes.length; i++) {
+            costs[i][i] = 0;
+        }
+        return costs;
+    }
 
-        while (currentMask != 1) {
-            int prevNode = parent[currentMask][currentNode];
-            path.push(prevNode);
-            currentMask ^= (1 << currentNode);
-            currentNode = prevNode;
+    /**
+     * Runs the distance sweep of every node, on the worker pool when more than one thread is allowed.
+     * @param nodes The source followed by the objectives
+     * @return For each node, its distances to all nodes
+     */
+    private double[][] runSweeps(Tile[] nodes) {
+        int count = nodes.length;
+        double[][] sweeps = new double[count][];
+        if (parallelism == 1) {
+            for (int i = 0; i < count; i++) {
+                sweeps[i] = sweep(nodes, i);
+            }
+            return sweeps;
         }
 
-        // Build the route in correct order
-        while (!path.isEmpty()) {
-            route.add(nodes[path.pop()]);
+        List<Callable<double[]>> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int node = i;
+            tasks.add(() -> sweep(nodes, node));
         }
-        route.add(source); // Return to start
+        try {
+            List<Future<double[]>> results = getPool().invokeAll(tasks);
+            for (int i = 0; i < count; i++) {
+                sweeps[i] = results.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing distances", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to compute distances", e.getCause());
+        }
+        return sweeps;
+    }
 
-        return route;
+    /**
+     * Gets the worker pool, creating it on first use.
+     * @return The pool with one worker per allowed thread
+     */
+    private ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    /**
+     * Runs the distance sweep of one node.
+     * @param nodes The source followed by the objectives
+     * @param i Index of the node to sweep from
+     * @return Distances to all nodes
+     */
+    private double[] sweep(Tile[] nodes, int i) {
+        return pathFinder.findDistances(nodes[i], Arrays.asList(nodes));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The Tour class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class is a route that visits every objective in the order chosen by ShortestRoute and
+ * ends with a leg back to the starting point. Besides the legs it keeps the cost of the chosen
+ * order, a lower bound on the best order and whether the order is proven optimal, and it can
+ * write itself in the format of bonus.txt.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.io.PrintWriter;
+import java.util.List;
+
+public class Tour extends Route {
+    private final double routeCost;
+    private final double lowerBound;
+    private final boolean optimal;
+
+    /**
+     * Constructs a tour from its legs and the solver's result.
+     * @param source The starting tile
+     * @param legs The legs in visiting order, ending with the return leg
+     * @param routeCost Cost of the chosen order, or infinity if no tour exists
+     * @param lowerBound Lower bound on the cost of every order
+     * @param optimal True if the order is proven to be the shortest
+     */
+    public Tour(Tile source, List<RouteLeg> legs, double routeCost, double lowerBound, boolean optimal) {
+        super(source, legs);
+        this.routeCost = routeCost;
+        this.lowerBound = lowerBound;
+        this.optimal = optimal;
+    }
+
+    /**
+     * Gets the cost of the chosen order of objectives, including the return to the start.
+     * @return Cost of the tour, or infinity if no tour exists
+     */
+    public double getRouteCost() {
+        return routeCost;
+    }
+
+    /**
+     * Gets a lower bound on the cost of the best order of objectives.
+     * @return The lower bound, or infinity if no tour exists
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Checks if the chosen order is proven to be the shortest.
+     * @return True if an exact solver finished
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * Writes the tour in the format of bonus.txt, where steps and cost add up over the whole tour.
+     * @param output The writer to write to
+     */
+    public void writeBonus(PrintWriter output) {
+        int steps = 0;
+        double cost = 0;
+        for (RouteLeg leg : getLegs()) {
+            if (!leg.isReached()) {
+                if (!leg.isReturn()) {
+                    output.println("Objective " + leg.getObjectiveNumber() + " cannot be reached!");
+                }
+                continue;
+            }
+            List<Tile> path = leg.getPath();
+            for (int j = 1; j < path.size(); j++) {
+                cost += leg.getStepCost(j - 1);
+                steps++;
+                output.printf("Step Count: %d, move to %s. Total Cost: %.2f.%n", steps, path.get(j), cost);
+            }
+            if (!leg.isReturn()) {
+                output.println("Objective " + leg.getObjectiveNumber() + " reached!");
+            }
+        }
+        output.printf("Total Step: %d, Total Cost: %.2f%n", steps, cost);
+    }
+}
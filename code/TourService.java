@@ -0,0 +1,331 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The TourService class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class keeps the tour of a list of objectives that is edited one objective at a time, as a
+ * dispatcher does, instead of solving it again from scratch like ShortestRoute. It holds the
+ * cost matrix between the source and the objectives and the best tour found so far. Adding an
+ * objective runs one distance sweep from it to the others, inserts it where it adds the least
+ * cost and improves the tour with the local search of HeuristicTourSolver for a short time
+ * budget. Removing one needs no search at all. If enabled, a background thread then solves the
+ * edited matrix exactly with Held-Karp and takes the result if no edit came in meanwhile.
+ * </p>
+ * <p>
+ * The methods may be called from several threads, the edits are applied one at a time.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class TourService {
+    public static final long DEFAULT_REPAIR_BUDGET_MILLIS = 10;
+    public static final int DEFAULT_EXACT_LIMIT = 16; // Most objectives solved exactly in the background
+    private static final double EPSILON = 1e-9;       // Improvements smaller than this are rounding noise
+
+    private final GridGraph map;
+    private final PathFinder pathFinder;
+    private final ArrayList<Tile> nodes = new ArrayList<>(); // The source, then the objectives in the order added
+    private double[][] costs = {{0}}; // Replaced, never changed, by every edit, so exact solves can read it
+    private int[] tour = {0};         // Node indices of the tour, starting with 0, without the return
+    private double tourCost = 0;
+    private boolean tourOptimal = true;
+    private long version;             // Number of edits so far
+    private long repairBudgetMillis = DEFAULT_REPAIR_BUDGET_MILLIS;
+    private int exactLimit = DEFAULT_EXACT_LIMIT;
+    private ExecutorService background; // Runs the exact solves, or null if they are disabled
+    private Future<?> pendingSolve;
+    private long sweeps;                // Distance sweeps run by all edits
+
+    /**
+     * Constructs a service for a tour from a source with no objectives yet.
+     * @param map The grid graph of the map
+     * @param pathFinder The path finder whose sweeps give the costs between objectives
+     * @param source The starting tile, which the tour returns to
+     */
+    public TourService(GridGraph map, PathFinder pathFinder, Tile source) {
+        this.map = map;
+        this.pathFinder = pathFinder;
+        nodes.add(source);
+    }
+
+    /**
+     * Sets how long the local search may improve the tour after an edit.
+     * @param repairBudgetMillis Time budget in milliseconds
+     */
+    public synchronized void setRepairBudget(long repairBudgetMillis) {
+        this.repairBudgetMillis = repairBudgetMillis;
+    }
+
+    /**
+     * Sets the largest number of objectives solved exactly in the background.
+     * @param exactLimit Most objectives, at most HeldKarpSolver.MAX_OBJECTIVES
+     */
+    public synchronized void setExactLimit(int exactLimit) {
+        if (exactLimit < 0 || exactLimit > HeldKarpSolver.MAX_OBJECTIVES) {
+            throw new IllegalArgumentException("Exact limit must be between 0 and "
+                    + HeldKarpSolver.MAX_OBJECTIVES + ": " + exactLimit);
+        }
+        this.exactLimit = exactLimit;
+    }
+
+    /**
+     * Turns the exact solves in the background on or off. Each edit of a tour with few enough
+     * objectives starts one, and an edit cancels the solve of the previous matrix.
+     * @param enabled True to solve exactly in the background
+     */
+    public synchronized void setBackgroundExact(boolean enabled) {
+        if (enabled && background == null) {
+            background = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "tour-exact");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduleExactSolve();
+        } else if (!enabled && background != null) {
+            background.shutdownNow();
+            background = null;
+            pendingSolve = null;
+        }
+    }
+
+    /**
+     * Stops the background thread, if any.
+     */
+    public void close() {
+        setBackgroundExact(false);
+    }
+
+    /**
+     * Adds an objective: one sweep finds its costs to the others, it is inserted where it adds
+     * the least cost, and the tour is improved by local search.
+     * @param objective The objective tile
+     */
+    public synchronized void addObjective(Tile objective) {
+        int count = nodes.size();
+        double[][] newCosts = new double[count + 1][count + 1];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(costs[i], 0, newCosts[i], 0, count);
+        }
+        nodes.add(objective);
+        fillCosts(newCosts, count);
+        costs = newCosts;
+
+        // Put the objective between the two neighbours it adds the least cost between
+        int bestPosition = 0;
+        double bestIncrease = Double.POSITIVE_INFINITY;
+        for (int position = 0; position < tour.length; position++) {
+            int before = tour[position];
+            int after = tour[(position + 1) % tour.length];
+            double increase = costs[before][count] + costs[count][after] - costs[before][after];
+            if (increase < bestIncrease) {
+                bestIncrease = increase;
+                bestPosition = position;
+            }
+        }
+        int[] newTour = new int[tour.length + 1];
+        System.arraycopy(tour, 0, newTour, 0, bestPosition + 1);
+        newTour[bestPosition + 1] = count;
+        System.arraycopy(tour, bestPosition + 1, newTour, bestPosition + 2, tour.length - bestPosition - 1);
+        tour = newTour;
+        repairTour();
+    }
+
+    /**
+     * Removes an objective. Its neighbours in the tour are joined and the tour is improved by
+     * local search, without any path search.
+     * @param objective The objective tile, the earliest added one if it was added more than once
+     * @return True if the objective was removed, false if it is not in the tour
+     */
+    public synchronized boolean removeObjective(Tile objective) {
+        int removed = nodes.subList(1, nodes.size()).indexOf(objective) + 1;
+        if (removed == 0) {
+            return false;
+        }
+        nodes.remove(removed);
+
+        // Drop the row and column of the objective and renumber the nodes after it
+        int count = nodes.size();
+        double[][] newCosts = new double[count][count];
+        for (int i = 0; i < count; i++) {
+            double[] row = costs[i < removed ? i : i + 1];
+            System.arraycopy(row, 0, newCosts[i], 0, removed);
+            System.arraycopy(row, removed + 1, newCosts[i], removed, count - removed);
+        }
+        costs = newCosts;
+        int[] newTour = new int[tour.length - 1];
+        int size = 0;
+        for (int node : tour) {
+            if (node != removed) {
+                newTour[size++] = node < removed ? node : node - 1;
+            }
+        }
+        tour = newTour;
+        repairTour();
+        return true;
+    }
+
+    /**
+     * Fills the costs between a new node and the nodes before it, the same way as ShortestRoute.
+     * A node that is an obstacle can be left but not entered, so an obstacle node already in the
+     * tour gets its own sweep to the new node.
+     * @param newCosts The cost matrix with room for the new node
+     * @param index Index of the new node
+     */
+    private void fillCosts(double[][] newCosts, int index) {
+        Tile node = nodes.get(index);
+        double[] distances = pathFinder.findDistances(node, nodes.subList(0, index));
+        sweeps++;
+        boolean passable = map.isPassable(map.index(node));
+        for (int j = 0; j < index; j++) {
+            newCosts[index][j] = distances[j];
+            if (!passable) {
+                newCosts[j][index] = Double.POSITIVE_INFINITY;
+            } else if (map.isPassable(map.index(nodes.get(j)))) {
+                newCosts[j][index] = distances[j];
+            } else {
+                newCosts[j][index] = pathFinder.findDistances(nodes.get(j), Collections.singletonList(node))[0];
+                sweeps++;
+            }
+        }
+    }
+
+    /**
+     * Improves the tour after an edit with local search, then starts an exact solve in the
+     * background if it is enabled. A tour with an unreachable objective is left as it is.
+     */
+    private void repairTour() {
+        version++;
+        HeuristicTourSolver solver = new HeuristicTourSolver(costs);
+        solver.setTimeBudget(repairBudgetMillis);
+        int[] improved = solver.solve(tour);
+        if (improved != null) {
+            tour = improved;
+        }
+        tourCost = HeuristicTourSolver.tourCost(costs, tour);
+        tourOptimal = nodes.size() <= 2; // A single objective has only one tour
+        scheduleExactSolve();
+    }
+
+    /**
+     * Starts an exact solve of the current matrix in the background, cancelling the solve of an
+     * earlier one. A solve that already runs finishes, but its result is ignored.
+     */
+    private void scheduleExactSolve() {
+        if (pendingSolve != null) {
+            pendingSolve.cancel(false);
+            pendingSolve = null;
+        }
+        if (background == null || tourOptimal || nodes.size() - 1 > exactLimit) {
+            return;
+        }
+        double[][] snapshot = costs;
+        long solveVersion = version;
+        pendingSolve = background.submit(() -> solveExactly(snapshot, solveVersion));
+    }
+
+    /**
+     * Solves a cost matrix exactly and takes the tour if no edit came in since it was started.
+     * @param snapshot The cost matrix at the time of the solve
+     * @param solveVersion Number of edits at the time of the solve
+     */
+    private void solveExactly(double[][] snapshot, long solveVersion) {
+        int[] exact = new HeldKarpSolver(snapshot).solve();
+        synchronized (this) {
+            if (exact == null || solveVersion != version) {
+                return;
+            }
+            double exactCost = HeuristicTourSolver.tourCost(snapshot, exact);
+            if (exactCost < tourCost - EPSILON) {
+                tour = exact;
+                tourCost = exactCost;
+            }
+            tourOptimal = true;
+        }
+    }
+
+    /**
+     * Waits until the exact solve of the current tour, if one was started, has finished.
+     * @param timeoutMillis Longest time to wait in milliseconds
+     * @return True if the tour is now known to be optimal
+     * @throws InterruptedException If the waiting thread is interrupted
+     */
+    public boolean awaitExactSolve(long timeoutMillis) throws InterruptedException {
+        Future<?> solve;
+        synchronized (this) {
+            solve = pendingSolve;
+        }
+        if (solve != null) {
+            try {
+                solve.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Exact solve failed", e.getCause());
+            } catch (TimeoutException | CancellationException e) {
+                // Still running, or replaced by the solve of a later edit
+            }
+        }
+        return isRouteOptimal();
+    }
+
+    /**
+     * Gets the objectives of the tour in the order they were added.
+     * @return The objective tiles
+     */
+    public synchronized List<Tile> getObjectives() {
+        return new ArrayList<>(nodes.subList(1, nodes.size()));
+    }
+
+    /**
+     * Gets the route of the current tour, in the same form as ShortestRoute.
+     * @return The source, the objectives in visiting order and the source again,
+     *         or only the source if some objective cannot be reached
+     */
+    public synchronized ArrayList<Tile> getRoute() {
+        ArrayList<Tile> route = new ArrayList<>();
+        if (tourCost == Double.POSITIVE_INFINITY) {
+            route.add(nodes.get(0));
+            return route;
+        }
+        for (int node : tour) {
+            route.add(nodes.get(node));
+        }
+        route.add(nodes.get(0)); // Return to start
+        return route;
+    }
+
+    /**
+     * Gets the cost of the current tour, including the return to the source.
+     * @return Tour cost, or infinity if some objective cannot be reached
+     */
+    public synchronized double getRouteCost() {
+        return tourCost;
+    }
+
+    /**
+     * Checks if the current tour is known to be optimal.
+     * @return True if an exact solve confirmed the tour, or it has a single objective
+     */
+    public synchronized boolean isRouteOptimal() {
+        return tourOptimal;
+    }
+
+    /**
+     * Gets the number of distance sweeps run by all edits so far.
+     * @return Number of sweeps
+     */
+    public synchronized long getSweeps() {
+        return sweeps;
+    }
+}
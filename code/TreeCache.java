@@ -0,0 +1,247 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The TreeCache class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class keeps complete shortest path trees of the cells that queries keep starting from or
+ * going to, such as a depot. A tree is the previous cell and the distance of every cell of the
+ * map after a Dijkstra sweep that settled the whole map, so any later query from its root, or to
+ * its root since travel costs are the same in both directions, is answered by following previous
+ * cells. The cache counts how often each cell is an end of a query, and a cell becomes worth a
+ * tree once it has been used a given number of times. When the cache is full the least recently
+ * used tree is dropped. All methods may be called from several threads at once.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TreeCache {
+    public static final int DEFAULT_THRESHOLD = 4; // Queries at a cell before it gets a tree
+    private static final int TRACKED_CELLS = 4096; // Most cells whose queries are counted
+
+    private final GridGraph map;
+    private final int capacity;  // Most trees kept
+    private final int threshold; // Queries at a cell before it gets a tree
+    // Trees by root cell, in order of last use
+    private final LinkedHashMap<Integer, ShortestPathTree> trees;
+    // Query counts by cell, in order of last use, for cells without a tree
+    private final LinkedHashMap<Integer, Integer> uses;
+    private long hits;
+    private long misses;
+    private long builds;
+    private long evictions;
+
+    /**
+     * Constructs an empty cache.
+     * @param map The grid graph the trees are on
+     * @param capacity Most trees to keep
+     * @param threshold Number of queries at a cell after which a tree is built for it
+     */
+    public TreeCache(GridGraph map, int capacity, int threshold) {
+        this.map = map;
+        this.capacity = capacity;
+        this.threshold = threshold;
+        this.trees = new LinkedHashMap<Integer, ShortestPathTree>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ShortestPathTree> eldest) {
+                if (size() > TreeCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.uses = new LinkedHashMap<Integer, Integer>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                return size() > TRACKED_CELLS;
+            }
+        };
+    }
+
+    /**
+     * Estimates the memory taken by one tree.
+     * @param cellCount Number of cells in the map
+     * @return Estimated size in bytes
+     */
+    public static long estimateTreeBytes(int cellCount) {
+        return (long) cellCount * (4 + 4); // An int previous cell and a float distance per cell
+    }
+
+    /**
+     * Finds a tree that answers a query: the tree of its source, or the tree of its target if
+     * the path can be reversed, which needs both ends to be passable.
+     * @param sourceCell The starting cell
+     * @param targetCell The destination cell
+     * @return The tree, or null if no tree answers the query
+     */
+    public synchronized ShortestPathTree find(int sourceCell, int targetCell) {
+        ShortestPathTree tree = trees.get(sourceCell);
+        if (tree == null && map.isPassable(sourceCell) && map.isPassable(targetCell)) {
+            tree = trees.get(targetCell);
+        }
+        if (tree == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return tree;
+    }
+
+    /**
+     * Counts a query at a cell.
+     * @param cell A cell a query starts from or goes to
+     * @return True if the cell has now been used often enough to build its tree
+     */
+    public synchronized boolean recordUse(int cell) {
+        if (trees.containsKey(cell)) {
+            return false;
+        }
+        int count = uses.getOrDefault(cell, 0) + 1;
+        if (count >= threshold) {
+            uses.remove(cell);
+            return true;
+        }
+        uses.put(cell, count);
+        return false;
+    }
+
+    /**
+     * Stores the tree of a completed sweep.
+     * @param tree The tree
+     */
+    public synchronized void put(ShortestPathTree tree) {
+        trees.put(tree.getRoot(), tree);
+        builds++;
+    }
+
+    /**
+     * Gets the number of queries answered by a tree.
+     * @return Number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of queries no tree could answer.
+     * @return Number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of trees built.
+     * @return Number of builds
+     */
+    public synchronized long getBuilds() {
+        return builds;
+    }
+
+    /**
+     * Gets the number of trees dropped because the cache was full.
+     * @return Number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the most trees the cache keeps.
+     * @return Capacity in trees
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of trees in the cache.
+     * @return Number of cached trees
+     */
+    public synchronized int size() {
+        return trees.size();
+    }
+
+    /**
+     * The shortest paths from one root cell to every cell of the map.
+     */
+    public static class ShortestPathTree {
+        private final int root;
+        private final int[] previous;  // Previous cell on the path from the root, -1 for the root and unreached cells
+        private final float[] distance; // Distance from the root, infinity if unreached
+
+        /**
+         * Constructs a tree from the arrays of a completed sweep.
+         * @param root The root cell
+         * @param previous The previous cell of every cell
+         * @param distance The distance of every cell from the root
+         */
+        public ShortestPathTree(int root, int[] previous, float[] distance) {
+            this.root = root;
+            this.previous = previous;
+            this.distance = distance;
+        }
+
+        /**
+         * Gets the root cell of the tree.
+         * @return The root cell
+         */
+        public int getRoot() {
+            return root;
+        }
+
+        /**
+         * Checks if a cell can be reached from the root.
+         * @param cell Cell index
+         * @return True if the cell is in the tree
+         */
+        public boolean isReached(int cell) {
+            return distance[cell] != Float.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Gets the distance of a cell from the root, rounded to a float.
+         * @param cell Cell index
+         * @return Distance from the root, or infinity if the cell is not reached
+         */
+        public float getDistance(int cell) {
+            return distance[cell];
+        }
+
+        /**
+         * Gets the path between the root and a cell by following previous cells.
+         * @param sourceCell The starting cell, either the root or the other cell
+         * @param targetCell The destination cell, the other end
+         * @return The cells of the path from source to target, or null if there is no path
+         */
+        public int[] getPath(int sourceCell, int targetCell) {
+            int end = sourceCell == root ? targetCell : sourceCell;
+            if (!isReached(end)) {
+                return null;
+            }
+            int length = 0;
+            for (int cell = end; cell != -1; cell = previous[cell]) {
+                length++;
+            }
+
+            // Previous cells lead from the end back to the root
+            int[] cells = new int[length];
+            boolean fromRoot = sourceCell == root;
+            int i = 0;
+            for (int cell = end; cell != -1; cell = previous[cell]) {
+                cells[fromRoot ? length - 1 - i : i] = cell;
+                i++;
+            }
+            return cells;
+        }
+    }
+}
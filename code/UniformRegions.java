@@ -0,0 +1,219 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+/**
+ * The UniformRegions class for the "Gold Trail: The Knight’s Path".
+ * <p>
+ * This class splits a map into rectangles of passable cells in which every edge has the same
+ * travel cost, such as a field of grass with a single cost. Inside such a rectangle all paths
+ * of Manhattan length between two cells cost the same, so a search only needs the cells on its
+ * border: a shortest path between two border cells can always follow the border and cross the
+ * rectangle in a straight line, and a cell inside is left in a straight line towards one of the
+ * four sides. The rectangles are found greedily, each one grown from the first free cell in
+ * reading order to the largest area that fits, and only rectangles with cells inside their
+ * border are kept.
+ * </p>
+ *
+ * @author Devin Isler
+ * @version 1.0
+ * @since 2025-05-08
+ */
+import java.util.Arrays;
+
+public class UniformRegions {
+    private static final int MIN_SIDE = 3; // Narrower rectangles have no cells inside their border
+
+    private final GridGraph map;
+    private final int[] regions; // Rectangle of every cell, -1 if it is in none
+    private int[] left = new int[16];
+    private int[] top = new int[16];
+    private int[] right = new int[16];
+    private int[] bottom = new int[16];
+    private double[] costs = new double[16]; // Cost of every edge inside the rectangle
+    private int count;
+    private long coveredCells;
+
+    /**
+     * Finds the rectangles of uniform cost of a map.
+     * @param map The grid graph of the map
+     * @param pathFinder The path finder whose edge costs the rectangles must share
+     */
+    public UniformRegions(GridGraph map, PathFinder pathFinder) {
+        this.map = map;
+        this.regions = new int[map.getCellCount()];
+        Arrays.fill(regions, -1);
+        int columns = map.getColumns();
+        int rows = map.getRows();
+        for (int row = 0; row + MIN_SIDE <= rows; row++) {
+            for (int column = 0; column + MIN_SIDE <= columns; column++) {
+                int cell = map.index(column, row);
+                if (!isFree(cell) || !isFree(cell + 1)) {
+                    continue;
+                }
+                grow(pathFinder, column, row, pathFinder.getEdgeCost(cell, GridGraph.EAST));
+            }
+        }
+    }
+
+    /**
+     * Grows the largest rectangle of one edge cost from its top left cell, adding rows while
+     * shrinking its width to the part of each new row that still fits, and keeps it if it is
+     * large enough.
+     * @param pathFinder The path finder giving the edge costs
+     * @param column Column of the top left cell
+     * @param row Row of the top left cell
+     * @param cost The edge cost every edge inside must have
+     */
+    private void grow(PathFinder pathFinder, int column, int row, double cost) {
+        int lastColumn = map.getColumns() - 1;
+        int bestArea = 0;
+        int bestRight = -1;
+        int bestBottom = -1;
+        for (int y = row; y < map.getRows(); y++) {
+            // Extend the row as far as its cells are free and joined at the cost to the row above
+            int x = column;
+            while (x <= lastColumn && fits(pathFinder, x, y, column, row, cost)) {
+                x++;
+            }
+            lastColumn = x - 1;
+            int width = lastColumn - column + 1;
+            if (width < MIN_SIDE) {
+                break;
+            }
+            int height = y - row + 1;
+            if (height >= MIN_SIDE && width * height > bestArea) {
+                bestArea = width * height;
+                bestRight = lastColumn;
+                bestBottom = y;
+            }
+        }
+        if (bestArea == 0) {
+            return;
+        }
+
+        if (count == left.length) {
+            int capacity = 2 * count;
+            left = Arrays.copyOf(left, capacity);
+            top = Arrays.copyOf(top, capacity);
+            right = Arrays.copyOf(right, capacity);
+            bottom = Arrays.copyOf(bottom, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+        }
+        left[count] = column;
+        top[count] = row;
+        right[count] = bestRight;
+        bottom[count] = bestBottom;
+        costs[count] = cost;
+        for (int y = row; y <= bestBottom; y++) {
+            for (int x = column; x <= bestRight; x++) {
+                regions[map.index(x, y)] = count;
+            }
+        }
+        coveredCells += bestArea;
+        count++;
+    }
+
+    /**
+     * Checks if a cell can join a growing rectangle: it is free and its edges to the cells
+     * already in the rectangle to its west and north have the rectangle's cost.
+     * @param pathFinder The path finder giving the edge costs
+     * @param x Column of the cell
+     * @param y Row of the cell
+     * @param column First column of the rectangle
+     * @param row First row of the rectangle
+     * @param cost The edge cost of the rectangle
+     * @return True if the cell fits
+     */
+    private boolean fits(PathFinder pathFinder, int x, int y, int column, int row, double cost) {
+        int cell = map.index(x, y);
+        return isFree(cell)
+                && (x == column || pathFinder.getEdgeCost(cell, GridGraph.WEST) == cost)
+                && (y == row || pathFinder.getEdgeCost(cell, GridGraph.NORTH) == cost);
+    }
+
+    /**
+     * Checks if a cell is passable and not yet in a rectangle.
+     * @param cell Cell index
+     * @return True if the cell may join a rectangle
+     */
+    private boolean isFree(int cell) {
+        return map.isPassable(cell) && regions[cell] < 0;
+    }
+
+    /**
+     * Gets the rectangle a cell is in.
+     * @param cell Cell index
+     * @return Index of the rectangle, or -1 if the cell is in none
+     */
+    public int getRegion(int cell) {
+        return regions[cell];
+    }
+
+    /**
+     * Checks if a cell lies inside the border of its rectangle.
+     * @param region Index of the rectangle of the cell
+     * @param cell Cell index
+     * @return True if the cell is not on the border
+     */
+    public boolean isInside(int region, int cell) {
+        int column = map.getColumn(cell);
+        int row = map.getRow(cell);
+        return column > left[region] && column < right[region] && row > top[region] && row < bottom[region];
+    }
+
+    /**
+     * Gets the cell on the border of a rectangle reached by going straight from a cell of the
+     * rectangle in a direction.
+     * @param region Index of the rectangle
+     * @param cell A cell of the rectangle
+     * @param direction One of WEST, EAST, NORTH or SOUTH
+     * @return The border cell on the side in that direction
+     */
+    public int getBorderCell(int region, int cell, int direction) {
+        int column = map.getColumn(cell);
+        int row = map.getRow(cell);
+        switch (direction) {
+            case GridGraph.WEST:
+                return map.index(left[region], row);
+            case GridGraph.EAST:
+                return map.index(right[region], row);
+            case GridGraph.NORTH:
+                return map.index(column, top[region]);
+            default:
+                return map.index(column, bottom[region]);
+        }
+    }
+
+    /**
+     * Gets the cost of every edge inside a rectangle.
+     * @param region Index of the rectangle
+     * @return The edge cost
+     */
+    public double getCost(int region) {
+        return costs[region];
+    }
+
+    /**
+     * Gets the number of rectangles found.
+     * @return Number of rectangles
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of cells in all rectangles.
+     * @return Number of covered cells
+     */
+    public long getCoveredCells() {
+        return coveredCells;
+    }
+
+    /**
+     * Estimates the memory taken by the rectangles of a map.
+     * @param cellCount Number of cells in the map
+     * @return Estimated size in bytes
+     */
+    public static long estimateBytes(int cellCount) {
+        return 4L * cellCount; // The rectangle of every cell, the rectangles themselves are few
+    }
+}